@@ -0,0 +1,73 @@
+package de.drachir000.utils.config.benchmark;
+
+import de.drachir000.utils.config.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the typed {@code getOrDefault} overloads and {@link Configuration#set(String, Object)} on a flat configuration,
+ * by size, share of lookups hitting an existing key and value type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AccessorBenchmark {
+	
+	@Param({"16", "4096"})
+	private int size;
+	
+	@Param({"1.0", "0.5"})
+	private double hitRatio;
+	
+	@Param({"INT", "DOUBLE", "STRING"})
+	private Fixtures.ValueType valueType;
+	
+	private Configuration configuration;
+	private String[] lookups;
+	private Object[] values;
+	private int index;
+	
+	@Setup
+	public void setup() {
+		
+		configuration = Fixtures.flat(size, valueType);
+		lookups = Fixtures.lookups(size, hitRatio);
+		
+		values = new Object[Fixtures.LOOKUPS];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Fixtures.value(valueType, i);
+		}
+		
+	}
+	
+	private int next() {
+		return index = (index + 1) & (Fixtures.LOOKUPS - 1);
+	}
+	
+	@Benchmark
+	public Object getOrDefault() {
+		String key = lookups[next()];
+		switch (valueType) {
+			case INT:
+				return configuration.getOrDefault(key, -1);
+			case DOUBLE:
+				return configuration.getOrDefault(key, -1.0);
+			default:
+				return configuration.getOrDefault(key, "");
+		}
+	}
+	
+	/**
+	 * Overwrites existing keys and adds missing ones, so the size of the configuration is bounded by the lookup keys.
+	 */
+	@Benchmark
+	public Object set() {
+		int i = next();
+		return configuration.set(lookups[i], values[i]);
+	}
+	
+}
@@ -0,0 +1,38 @@
+package de.drachir000.utils.config.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The entry point of the benchmark jar. Accepts the regular JMH command line, but always attaches the GC profiler
+ * (allocation rate per operation, GC count and time) and writes the results as JSON to {@code results.json}
+ * unless {@code -rf}/{@code -rff} are given, so they can be compared with {@link CompareResults}.
+ */
+public class Benchmarks {
+	
+	public static void main(String[] args) throws Exception {
+		
+		CommandLineOptions cli = new CommandLineOptions(args);
+		
+		if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams() || cli.shouldListProfilers() || cli.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(cli);
+		options.addProfiler(GCProfiler.class);
+		
+		if (!cli.getResultFormat().hasValue())
+			options.resultFormat(ResultFormatType.JSON);
+		if (!cli.getResult().hasValue())
+			options.result("results.json");
+		
+		new Runner(options.build()).run();
+		
+	}
+	
+}
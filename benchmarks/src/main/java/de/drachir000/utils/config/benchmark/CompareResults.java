@@ -0,0 +1,115 @@
+package de.drachir000.utils.config.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, e.g. a baseline recorded before a change and a new run, benchmark by benchmark and parameter set.
+ * Prints the change of the score and of the allocations per operation, and exits with status 1 if any score
+ * got worse by more than the threshold (default 10%).
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar de.drachir000.utils.config.benchmark.CompareResults baseline.json results.json [threshold%]}
+ */
+public class CompareResults {
+	
+	private static final String ALLOCATION = "gc.alloc.rate.norm";
+	
+	public static void main(String[] args) throws IOException {
+		
+		if (args.length < 2) {
+			System.err.println("Usage: CompareResults <baseline.json> <results.json> [threshold%]");
+			System.exit(2);
+		}
+		
+		Map<String, JSONObject> baseline = read(Path.of(args[0]));
+		Map<String, JSONObject> current = read(Path.of(args[1]));
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+		
+		int regressions = 0;
+		
+		System.out.printf("%-90s %14s %14s %9s %12s%n", "benchmark", "baseline", "current", "change", "alloc B/op");
+		for (Map.Entry<String, JSONObject> entry : current.entrySet()) {
+			
+			JSONObject result = entry.getValue();
+			JSONObject base = baseline.get(entry.getKey());
+			
+			double score = result.getJSONObject("primaryMetric").getDouble("score");
+			String unit = result.getJSONObject("primaryMetric").getString("scoreUnit");
+			
+			if (base == null) {
+				System.out.printf("%-90s %14s %14.3f %9s %12s  (new, %s)%n", entry.getKey(), "-", score, "", allocation(result), unit);
+				continue;
+			}
+			
+			double baseScore = base.getJSONObject("primaryMetric").getDouble("score");
+			double change = 100.0 * (score - baseScore) / baseScore;
+			
+			// Higher is better in throughput mode, lower is better in all time based modes
+			double worsening = "thrpt".equals(result.getString("mode")) ? -change : change;
+			boolean regression = worsening > threshold;
+			if (regression)
+				regressions++;
+			
+			System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %12s%s%n", entry.getKey(), baseScore, score, change, allocation(result),
+					regression ? "  REGRESSION" : "");
+			
+		}
+		
+		for (String key : baseline.keySet()) {
+			if (!current.containsKey(key))
+				System.out.printf("%-90s (missing in the current results)%n", key);
+		}
+		
+		System.out.printf("%n%d regression(s) above %.1f%%%n", regressions, threshold);
+		if (regressions > 0)
+			System.exit(1);
+		
+	}
+	
+	private static Map<String, JSONObject> read(Path file) throws IOException {
+		
+		JSONArray results = new JSONArray(Files.readString(file));
+		Map<String, JSONObject> byKey = new LinkedHashMap<>();
+		
+		for (int i = 0; i < results.length(); i++) {
+			JSONObject result = results.getJSONObject(i);
+			byKey.put(key(result), result);
+		}
+		
+		return byKey;
+		
+	}
+	
+	private static String key(JSONObject result) {
+		
+		String benchmark = result.getString("benchmark");
+		benchmark = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+		
+		JSONObject params = result.optJSONObject("params");
+		if (params == null)
+			return benchmark;
+		
+		StringBuilder builder = new StringBuilder(benchmark);
+		for (Map.Entry<String, Object> param : new TreeMap<>(params.toMap()).entrySet()) {
+			builder.append(' ').append(param.getKey()).append('=').append(param.getValue());
+		}
+		
+		return builder.toString();
+		
+	}
+	
+	private static String allocation(JSONObject result) {
+		JSONObject secondary = result.optJSONObject("secondaryMetrics");
+		if (secondary == null || !secondary.has(ALLOCATION))
+			return "-";
+		return String.format("%.0f", secondary.getJSONObject(ALLOCATION).getDouble("score"));
+	}
+	
+}
@@ -0,0 +1,112 @@
+package de.drachir000.utils.config.benchmark;
+
+import de.drachir000.utils.config.ConcurrentConfiguration;
+import de.drachir000.utils.config.Configuration;
+import de.drachir000.utils.config.SimpleConfigLib;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link ConcurrentConfiguration} with a {@link Configuration} guarded by a single monitor,
+ * in a read-heavy (7 readers, 1 writer) and a mixed (4 readers, 4 writers) workload.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Group)
+public class ConcurrentConfigurationBenchmark {
+	
+	private static final int KEYS = 1024;
+	
+	private ConcurrentConfiguration concurrent;
+	private Configuration synchronizedConfiguration;
+	private String[] keys;
+	
+	@Setup
+	public void setup() {
+		
+		keys = new String[KEYS];
+		concurrent = SimpleConfigLib.concurrentConfiguration(SimpleConfigLib.emptyConfiguration());
+		synchronizedConfiguration = SimpleConfigLib.emptyConfiguration();
+		
+		for (int i = 0; i < KEYS; i++) {
+			keys[i] = "key-" + i;
+			concurrent.setInt(keys[i], i);
+			synchronizedConfiguration.setInt(keys[i], i);
+		}
+		
+	}
+	
+	private String randomKey() {
+		return keys[ThreadLocalRandom.current().nextInt(KEYS)];
+	}
+	
+	@Benchmark
+	@Group("readHeavyConcurrent")
+	@GroupThreads(7)
+	public int readHeavyConcurrentRead() {
+		return concurrent.getInt(randomKey());
+	}
+	
+	@Benchmark
+	@Group("readHeavyConcurrent")
+	@GroupThreads(1)
+	public Object readHeavyConcurrentWrite() {
+		return concurrent.setInt(randomKey(), ThreadLocalRandom.current().nextInt());
+	}
+	
+	@Benchmark
+	@Group("readHeavySynchronized")
+	@GroupThreads(7)
+	public int readHeavySynchronizedRead() {
+		synchronized (synchronizedConfiguration) {
+			return synchronizedConfiguration.getInt(randomKey());
+		}
+	}
+	
+	@Benchmark
+	@Group("readHeavySynchronized")
+	@GroupThreads(1)
+	public Object readHeavySynchronizedWrite() {
+		synchronized (synchronizedConfiguration) {
+			return synchronizedConfiguration.setInt(randomKey(), ThreadLocalRandom.current().nextInt());
+		}
+	}
+	
+	@Benchmark
+	@Group("mixedConcurrent")
+	@GroupThreads(4)
+	public int mixedConcurrentRead() {
+		return concurrent.getInt(randomKey());
+	}
+	
+	@Benchmark
+	@Group("mixedConcurrent")
+	@GroupThreads(4)
+	public Object mixedConcurrentCompute() {
+		return concurrent.compute(randomKey(), (key, value) -> value == null ? 0 : (int) value + 1);
+	}
+	
+	@Benchmark
+	@Group("mixedSynchronized")
+	@GroupThreads(4)
+	public int mixedSynchronizedRead() {
+		synchronized (synchronizedConfiguration) {
+			return synchronizedConfiguration.getInt(randomKey());
+		}
+	}
+	
+	@Benchmark
+	@Group("mixedSynchronized")
+	@GroupThreads(4)
+	public Object mixedSynchronizedCompute() {
+		synchronized (synchronizedConfiguration) {
+			return synchronizedConfiguration.compute(randomKey(), (key, value) -> value == null ? 0 : (int) value + 1);
+		}
+	}
+	
+}
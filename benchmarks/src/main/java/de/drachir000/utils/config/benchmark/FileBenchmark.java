@@ -0,0 +1,61 @@
+package de.drachir000.utils.config.benchmark;
+
+import de.drachir000.utils.config.Configuration;
+import de.drachir000.utils.config.SimpleConfigLib;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link SimpleConfigLib#save(Configuration, File)} and {@link SimpleConfigLib#load(File)},
+ * plain and with file locking, by size. The file lives in the temporary directory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FileBenchmark {
+	
+	@Param({"16", "4096"})
+	private int size;
+	
+	private Configuration configuration;
+	private File file;
+	
+	@Setup
+	public void setup() throws IOException {
+		configuration = Fixtures.flat(size, Fixtures.ValueType.STRING);
+		file = File.createTempFile("config-benchmark", ".json");
+		SimpleConfigLib.save(configuration, file);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		file.delete();
+	}
+	
+	@Benchmark
+	public void save() throws IOException {
+		SimpleConfigLib.save(configuration, file);
+	}
+	
+	@Benchmark
+	public Configuration load() throws IOException {
+		return SimpleConfigLib.load(file);
+	}
+	
+	@Benchmark
+	public void saveLocked() throws IOException {
+		SimpleConfigLib.saveLocked(configuration, file);
+	}
+	
+	@Benchmark
+	public Configuration loadLocked() throws IOException {
+		return SimpleConfigLib.loadLocked(file);
+	}
+	
+}
@@ -0,0 +1,109 @@
+package de.drachir000.utils.config.benchmark;
+
+import de.drachir000.utils.config.Configuration;
+import de.drachir000.utils.config.SimpleConfigLib;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Builds the configurations the benchmarks run against.
+ */
+public final class Fixtures {
+	
+	/**
+	 * The number of precomputed lookup keys, a power of two so the benchmarks can cycle through them with a mask.
+	 */
+	static final int LOOKUPS = 1024;
+	
+	/**
+	 * The type of the values stored in a fixture.
+	 */
+	public enum ValueType {
+		INT,
+		DOUBLE,
+		STRING,
+		/**
+		 * A {@link Serializable} object, stored as it is and written Base64 encoded by {@link Configuration#toString(boolean)}
+		 */
+		ENCODED
+	}
+	
+	private Fixtures() {
+	}
+	
+	static String key(int i) {
+		return "key-" + i;
+	}
+	
+	static Object value(ValueType type, int i) {
+		switch (type) {
+			case INT:
+				return i;
+			case DOUBLE:
+				return i + 0.5;
+			case STRING:
+				return "value-" + i;
+			default:
+				return new Payload(i, "payload-" + i);
+		}
+	}
+	
+	/**
+	 * @return a flat configuration holding {@code size} values of the type
+	 */
+	static Configuration flat(int size, ValueType type) {
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		for (int i = 0; i < size; i++) {
+			configuration.set(key(i), value(type, i));
+		}
+		return configuration;
+	}
+	
+	/**
+	 * @return a configuration whose {@code size} values are nested {@code depth} levels deep, at {@code level-0.level-1...}
+	 */
+	static Configuration nested(int size, int depth, ValueType type) {
+		Configuration leaf = flat(size, type);
+		for (int level = depth - 1; level >= 0; level--) {
+			Configuration parent = SimpleConfigLib.emptyConfiguration();
+			parent.setConfiguration("level-" + level, leaf);
+			leaf = parent;
+		}
+		return leaf;
+	}
+	
+	/**
+	 * @return {@link #LOOKUPS} keys of a fixture of the size, of which the share {@code hitRatio} is set
+	 */
+	static String[] lookups(int size, double hitRatio) {
+		String[] lookups = new String[LOOKUPS];
+		int hits = (int) Math.round(LOOKUPS * hitRatio);
+		for (int i = 0; i < LOOKUPS; i++) {
+			lookups[i] = i < hits ? key((int) ((long) i * 7919 % size)) : "missing-" + i;
+		}
+		// Interleave hits and misses, so the branch predictor cannot learn the pattern from runs
+		Collections.shuffle(Arrays.asList(lookups), new Random(42));
+		return lookups;
+	}
+	
+	/**
+	 * A small serializable value object.
+	 */
+	static final class Payload implements Serializable {
+		
+		private static final long serialVersionUID = 1L;
+		
+		final int id;
+		final String name;
+		
+		Payload(int id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,81 @@
+package de.drachir000.utils.config.benchmark;
+
+import de.drachir000.utils.config.Configuration;
+import de.drachir000.utils.config.SimpleConfigLib;
+
+/**
+ * Measures the heap retained by many parsed {@link Configuration} instances with the same keys,
+ * with and without {@link SimpleConfigLib#setKeyInterning(boolean) key interning}.
+ * This is not a JMH benchmark, run it with
+ * {@code java -cp target/benchmarks.jar de.drachir000.utils.config.benchmark.KeyInterningFootprint [instances]}.
+ */
+public class KeyInterningFootprint {
+	
+	private static final int KEYS = 200;
+	
+	public static void main(String[] args) {
+		
+		int instances = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+		String source = source();
+		
+		long plain = measure(source, instances, false);
+		long interned = measure(source, instances, true);
+		
+		System.out.printf("%d configurations with %d keys each%n", instances, KEYS);
+		System.out.printf("without interning: %,d bytes (%,d per configuration)%n", plain, plain / instances);
+		System.out.printf("with interning:    %,d bytes (%,d per configuration)%n", interned, interned / instances);
+		System.out.printf("saved:             %.1f%%%n", 100.0 * (plain - interned) / plain);
+		
+	}
+	
+	private static long measure(String source, int instances, boolean interning) {
+		
+		SimpleConfigLib.setKeyInterning(interning);
+		
+		long before = usedHeap();
+		
+		Configuration[] configurations = new Configuration[instances];
+		for (int i = 0; i < instances; i++) {
+			configurations[i] = SimpleConfigLib.buildConfiguration(source);
+		}
+		
+		long after = usedHeap();
+		
+		// Keep the configurations reachable until the heap was measured
+		if (configurations[instances - 1].getKeys().size() != KEYS)
+			throw new IllegalStateException();
+		
+		SimpleConfigLib.setKeyInterning(false);
+		
+		return after - before;
+		
+	}
+	
+	private static String source() {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		for (int i = 0; i < KEYS; i++) {
+			configuration.setInt("entity.attribute.name-" + i, i);
+		}
+		
+		return configuration.toString();
+		
+	}
+	
+	private static long usedHeap() {
+		
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+		
+	}
+	
+}
@@ -0,0 +1,59 @@
+package de.drachir000.utils.config.benchmark;
+
+import de.drachir000.utils.config.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Configuration#getConfiguration(String)} by nesting depth: walking from the root to the innermost
+ * configuration and reading a value there.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NestingBenchmark {
+	
+	@Param({"1", "4", "16"})
+	private int depth;
+	
+	@Param({"16", "4096"})
+	private int size;
+	
+	private Configuration root;
+	private String[] levels;
+	private String[] lookups;
+	private int index;
+	
+	@Setup
+	public void setup() {
+		
+		root = Fixtures.nested(size, depth, Fixtures.ValueType.INT);
+		lookups = Fixtures.lookups(size, 1.0);
+		
+		levels = new String[depth];
+		for (int level = 0; level < depth; level++) {
+			levels[level] = "level-" + level;
+		}
+		
+	}
+	
+	@Benchmark
+	public Configuration getConfiguration() {
+		Configuration configuration = root;
+		for (String level : levels) {
+			configuration = configuration.getConfiguration(level);
+		}
+		return configuration;
+	}
+	
+	@Benchmark
+	public int getNestedInt() {
+		index = (index + 1) & (Fixtures.LOOKUPS - 1);
+		return getConfiguration().getInt(lookups[index]);
+	}
+	
+}
@@ -0,0 +1,52 @@
+package de.drachir000.utils.config.benchmark;
+
+import de.drachir000.utils.config.Configuration;
+import de.drachir000.utils.config.SimpleConfigLib;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing a configuration as JSON text, with and without encoding unknown objects, and parsing it again,
+ * by size and value type.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+	
+	@Param({"16", "4096"})
+	private int size;
+	
+	@Param({"INT", "STRING", "ENCODED"})
+	private Fixtures.ValueType valueType;
+	
+	private Configuration configuration;
+	private String json;
+	
+	@Setup
+	public void setup() throws IOException {
+		configuration = Fixtures.flat(size, valueType);
+		json = configuration.toString(true);
+	}
+	
+	@Benchmark
+	public String toJson() {
+		return configuration.toString();
+	}
+	
+	@Benchmark
+	public String toJsonEncoded() throws IOException {
+		return configuration.toString(true);
+	}
+	
+	@Benchmark
+	public Configuration parse() {
+		return SimpleConfigLib.buildConfiguration(json);
+	}
+	
+}
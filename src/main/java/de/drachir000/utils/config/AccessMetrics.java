@@ -0,0 +1,194 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the reads of a {@link Configuration} per key: successful reads (hits), reads of keys which are not set (misses),
+ * fallback values returned by the {@code getOrDefault} methods (defaults) and values which could not be converted
+ * to the requested type (conversion failures). Keys of nested {@link Configuration}s are counted under their dotted path,
+ * e.g. {@code "database.port"}. The counters are {@link LongAdder}s, so concurrent reads do not contend on them.
+ * <p>
+ * Metrics are disabled by default and cost a single null check per read while disabled.
+ *
+ * @see Configuration#enableAccessMetrics()
+ * @since 2.2
+ */
+public final class AccessMetrics {
+	
+	private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+	
+	AccessMetrics() {
+	}
+	
+	void recordHit(String key) {
+		counters(key).hits.increment();
+	}
+	
+	void recordMiss(String key) {
+		counters(key).misses.increment();
+	}
+	
+	void recordDefault(String key) {
+		counters(key).defaults.increment();
+	}
+	
+	void recordConversionFailure(String key) {
+		counters(key).conversionFailures.increment();
+	}
+	
+	private Counters counters(String key) {
+		Counters c = counters.get(key);
+		return c != null ? c : counters.computeIfAbsent(key, k -> new Counters());
+	}
+	
+	/**
+	 * @return the current counters of every key read so far, sorted by key
+	 */
+	public Map<String, KeyStatistics> snapshot() {
+		Map<String, KeyStatistics> snapshot = new LinkedHashMap<>();
+		for (String key : new TreeSet<>(counters.keySet())) {
+			snapshot.put(key, counters.get(key).snapshot(key));
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * @param limit the maximum number of keys to return
+	 * @return the keys with the most hits, most hits first
+	 */
+	public List<KeyStatistics> getHottestKeys(int limit) {
+		List<KeyStatistics> statistics = new ArrayList<>(snapshot().values());
+		statistics.sort(Comparator.comparingLong(KeyStatistics::getHits).reversed());
+		return statistics.subList(0, Math.min(limit, statistics.size()));
+	}
+	
+	/**
+	 * Returns the keys of a {@link Configuration} which were never read successfully, including the keys of nested {@link Configuration}s.
+	 *
+	 * @param configuration the {@link Configuration} these metrics were collected for
+	 * @return the dotted paths of the keys without hits, sorted
+	 */
+	public Set<String> getUnreadKeys(Configuration configuration) {
+		Set<String> unread = new TreeSet<>();
+		collectUnread(configuration.toJsonObject(), "", unread);
+		return unread;
+	}
+	
+	private void collectUnread(JSONObject object, String prefix, Set<String> unread) {
+		for (String key : object.keySet()) {
+			
+			String path = prefix + key;
+			Counters c = counters.get(path);
+			if (c == null || c.hits.sum() == 0)
+				unread.add(path);
+			
+			Object value = object.opt(key);
+			if (value instanceof JSONObject)
+				collectUnread((JSONObject) value, path + ".", unread);
+			
+		}
+	}
+	
+	/**
+	 * Resets all counters.
+	 */
+	public void reset() {
+		counters.clear();
+	}
+	
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(String.format("%-40s %12s %10s %10s %10s%n", "key", "hits", "misses", "defaults", "failures"));
+		for (KeyStatistics statistics : snapshot().values()) {
+			builder.append(String.format("%-40s %12d %10d %10d %10d%n", statistics.getKey(), statistics.getHits(), statistics.getMisses(),
+					statistics.getDefaultsUsed(), statistics.getConversionFailures()));
+		}
+		return builder.toString();
+	}
+	
+	private static final class Counters {
+		
+		private final LongAdder hits = new LongAdder();
+		private final LongAdder misses = new LongAdder();
+		private final LongAdder defaults = new LongAdder();
+		private final LongAdder conversionFailures = new LongAdder();
+		
+		KeyStatistics snapshot(String key) {
+			return new KeyStatistics(key, hits.sum(), misses.sum(), defaults.sum(), conversionFailures.sum());
+		}
+		
+	}
+	
+	/**
+	 * The counters of a single key at the time of the snapshot.
+	 */
+	public static final class KeyStatistics {
+		
+		private final String key;
+		private final long hits;
+		private final long misses;
+		private final long defaultsUsed;
+		private final long conversionFailures;
+		
+		private KeyStatistics(String key, long hits, long misses, long defaultsUsed, long conversionFailures) {
+			this.key = key;
+			this.hits = hits;
+			this.misses = misses;
+			this.defaultsUsed = defaultsUsed;
+			this.conversionFailures = conversionFailures;
+		}
+		
+		/**
+		 * @return the dotted path of the key
+		 */
+		public String getKey() {
+			return key;
+		}
+		
+		/**
+		 * @return the number of reads which found the key
+		 */
+		public long getHits() {
+			return hits;
+		}
+		
+		/**
+		 * @return the number of reads of the key while it was not set
+		 */
+		public long getMisses() {
+			return misses;
+		}
+		
+		/**
+		 * @return the number of times a {@code getOrDefault} method returned the fallback value, because the key was not set or had the wrong type
+		 */
+		public long getDefaultsUsed() {
+			return defaultsUsed;
+		}
+		
+		/**
+		 * @return the number of reads whose value could not be converted to the requested type
+		 */
+		public long getConversionFailures() {
+			return conversionFailures;
+		}
+		
+		@Override
+		public String toString() {
+			return key + "{hits=" + hits + ", misses=" + misses + ", defaults=" + defaultsUsed + ", failures=" + conversionFailures + "}";
+		}
+		
+	}
+	
+}
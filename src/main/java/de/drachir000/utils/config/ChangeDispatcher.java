@@ -0,0 +1,228 @@
+package de.drachir000.utils.config;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Routes the changes of a {@link Configuration} to its {@link ConfigurationSubscription}s.
+ * Subscriptions are stored in a trie of path segments, so finding the subscribers of a changed key takes time proportional
+ * to the length of its path (plus the subscriptions below it), not to the number of subscriptions.
+ */
+final class ChangeDispatcher {
+	
+	private static volatile Executor defaultExecutor;
+	
+	private final Node root = new Node();
+	
+	/**
+	 * Subscribes a listener to a path. Paths are keys separated by dots; a trailing ".*" is ignored, an empty path or "*"
+	 * subscribes to all changes. A listener subscribed to a path is notified about changes of the path itself,
+	 * of keys below it, and of keys above it, since replacing a parent replaces the path as well.
+	 *
+	 * @param executor the executor delivering the notifications, null to deliver them on the modifying thread
+	 */
+	synchronized ConfigurationSubscription subscribe(String path, Consumer<ConfigurationChange> listener, Executor executor) {
+		
+		if (listener == null)
+			throw new NullPointerException("listener must not be null!");
+		
+		String normalized = normalize(path);
+		ConfigurationSubscription subscription = new ConfigurationSubscription(normalized, listener, executor, this);
+		
+		Node node = root;
+		for (String segment : segments(normalized)) {
+			node = node.children.computeIfAbsent(segment, s -> new Node());
+		}
+		node.subscriptions.add(subscription);
+		
+		return subscription;
+		
+	}
+	
+	synchronized void remove(ConfigurationSubscription subscription) {
+		
+		Deque<Node> trail = new ArrayDeque<>();
+		Node node = root;
+		trail.push(node);
+		
+		for (String segment : segments(subscription.getPath())) {
+			node = node.children.get(segment);
+			if (node == null)
+				return;
+			trail.push(node);
+		}
+		node.subscriptions.remove(subscription);
+		
+		// Prune nodes without subscriptions and children
+		String[] segments = segments(subscription.getPath());
+		for (int i = segments.length - 1; i >= 0; i--) {
+			Node child = trail.pop();
+			if (!child.subscriptions.isEmpty() || !child.children.isEmpty())
+				break;
+			trail.peek().children.remove(segments[i]);
+		}
+		
+	}
+	
+	/**
+	 * Removes the first subscription of a listener to the whole {@link Configuration}.
+	 */
+	synchronized boolean removeListener(Consumer<ConfigurationChange> listener) {
+		for (ConfigurationSubscription subscription : root.subscriptions) {
+			if (subscription.getListener() == listener) {
+				subscription.cancel();
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	boolean isEmpty() {
+		return root.subscriptions.isEmpty() && root.children.isEmpty();
+	}
+	
+	void dispatch(ConfigurationChange change) {
+		
+		if (change.isEmpty() || isEmpty())
+			return;
+		
+		// Single key changes - the common case - have at most a few subscribers and need no de-duplication
+		Collection<ConfigurationSubscription> matches = change.getKeys().size() == 1 ? new ArrayList<>(4) : new LinkedHashSet<>();
+		
+		for (String key : change.getKeys()) {
+			collect(key, matches);
+		}
+		
+		// An Error thrown by a listener is rethrown once every subscription, including the internal ones, has been notified
+		Error error = null;
+		for (ConfigurationSubscription subscription : matches) {
+			try {
+				subscription.enqueue(change);
+			} catch (Error e) {
+				if (error == null) {
+					error = e;
+				} else {
+					error.addSuppressed(e);
+				}
+			}
+		}
+		
+		if (error != null)
+			throw error;
+		
+	}
+	
+	private void collect(String key, Collection<ConfigurationSubscription> matches) {
+		
+		Node node = root;
+		matches.addAll(node.subscriptions);
+		
+		int start = 0;
+		while (start <= key.length()) {
+			
+			int end = key.indexOf('.', start);
+			if (end < 0)
+				end = key.length();
+			
+			node = node.children.get(key.substring(start, end));
+			if (node == null)
+				return;
+			
+			matches.addAll(node.subscriptions);
+			start = end + 1;
+			
+		}
+		
+		// The changed key may be a parent of subscribed paths
+		for (Node child : node.children.values()) {
+			collectAll(child, matches);
+		}
+		
+	}
+	
+	private static void collectAll(Node node, Collection<ConfigurationSubscription> matches) {
+		matches.addAll(node.subscriptions);
+		for (Node child : node.children.values()) {
+			collectAll(child, matches);
+		}
+	}
+	
+	private static String normalize(String path) {
+		
+		if (path == null || path.equals("*"))
+			return "";
+		
+		if (path.endsWith(".*"))
+			return path.substring(0, path.length() - 2);
+		
+		return path;
+		
+	}
+	
+	private static String[] segments(String path) {
+		return path.isEmpty() ? new String[0] : path.split("\\.", -1);
+	}
+	
+	/**
+	 * The executor used by {@link Configuration#subscribe(String, Consumer)}. Unless set otherwise, a virtual thread is started
+	 * per notification on Java 21 and newer, and a pool of daemon threads is used on older versions.
+	 */
+	static Executor defaultExecutor() {
+		
+		Executor executor = defaultExecutor;
+		if (executor != null)
+			return executor;
+		
+		synchronized (ChangeDispatcher.class) {
+			if (defaultExecutor == null)
+				defaultExecutor = createDefaultExecutor();
+			return defaultExecutor;
+		}
+		
+	}
+	
+	static void setDefaultExecutor(Executor executor) {
+		synchronized (ChangeDispatcher.class) {
+			defaultExecutor = executor;
+		}
+	}
+	
+	private static Executor createDefaultExecutor() {
+		
+		try {
+			// Executors.newVirtualThreadPerTaskExecutor() is only available on Java 21 and newer
+			return (ExecutorService) MethodHandles.publicLookup()
+					.findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+					.invoke();
+		} catch (Throwable ignored) {
+		}
+		
+		return Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "SimpleConfigLib-Change-Dispatcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		
+	}
+	
+	private static final class Node {
+		
+		final Map<String, Node> children = new ConcurrentHashMap<>();
+		final List<ConfigurationSubscription> subscriptions = new CopyOnWriteArrayList<>();
+		
+	}
+	
+}
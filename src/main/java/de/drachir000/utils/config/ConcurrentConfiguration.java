@@ -0,0 +1,272 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiFunction;
+
+/**
+ * A thread-safe {@link Configuration}. Lookups hold the read lock of a {@link StampedLock}, so they run concurrently with each other
+ * and only wait for writes, which hold the write lock just for the update of the underlying {@link JSONObject}. {@link ConcurrentConfiguration#putIfAbsent(String, Object)},
+ * {@link ConcurrentConfiguration#compute(String, BiFunction)} and {@link Configuration#update(java.util.function.Consumer)} are atomic.
+ * <p>
+ * Nested {@link Configuration}s returned by {@link Configuration#getConfiguration(String)} share the lock of their parent.
+ * {@link org.json.JSONArray}s returned by {@link Configuration#getJSONArray(String)} are not guarded and must not be modified concurrently.
+ *
+ * @see SimpleConfigLib#concurrentConfiguration(Configuration)
+ * @since 2.2
+ */
+public class ConcurrentConfiguration extends Configuration {
+	
+	private final CallbackLock lock;
+	
+	/**
+	 * Create a {@link ConcurrentConfiguration} based on a {@link JSONObject}.
+	 * The {@link JSONObject} must not be accessed other than through this {@link ConcurrentConfiguration} afterwards.
+	 *
+	 * @param jsonObject The base {@link JSONObject}
+	 * @see SimpleConfigLib#concurrentConfiguration(Configuration)
+	 */
+	protected ConcurrentConfiguration(JSONObject jsonObject) {
+		this(jsonObject, new CallbackLock());
+	}
+	
+	private ConcurrentConfiguration(JSONObject jsonObject, CallbackLock lock) {
+		super(jsonObject);
+		this.lock = lock;
+	}
+	
+	@Override
+	public Object get(String key) throws JSONException {
+		
+		if (key == null)
+			throw new JSONException("Null key.");
+		
+		// The underlying map is not thread-safe, so it is only walked under the read lock, never optimistically
+		Object object;
+		long stamp = readLock();
+		try {
+			object = content.opt(key);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+		
+		if (object == null)
+			throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] not found.");
+		
+		return object;
+		
+	}
+	
+	@Override
+	public boolean hasKey(String key) {
+		try {
+			get(key);
+			return true;
+		} catch (JSONException e) {
+			return false;
+		}
+	}
+	
+	@Override
+	public Set<String> getKeys() {
+		long stamp = readLock();
+		try {
+			return super.getKeys();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	@Override
+	public Object putIfAbsent(String key, Object value) {
+		
+		Object current;
+		
+		long stamp = writeLock();
+		try {
+			current = content.opt(key);
+			if (current == null) {
+				thaw();
+				content.put(KeyPool.intern(key), value);
+			}
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+		
+		if (current == null)
+			fireChange(key, null, value);
+		
+		return current;
+		
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The function is called while the write lock is held, so it must be short and must not access this {@link Configuration};
+	 * doing so throws an {@link IllegalStateException} instead of deadlocking.
+	 */
+	@Override
+	public Object compute(String key, BiFunction<String, Object, Object> remappingFunction) {
+		
+		Object prevValue;
+		Object value;
+		
+		long stamp = writeLock();
+		lock.callbackThread = Thread.currentThread();
+		try {
+			prevValue = content.opt(key);
+			value = remappingFunction.apply(key, prevValue);
+			thaw();
+			content.put(KeyPool.intern(key), value);
+		} finally {
+			lock.callbackThread = null;
+			lock.unlockWrite(stamp);
+		}
+		
+		fireChange(key, prevValue, value);
+		
+		return value;
+		
+	}
+	
+	@Override
+	public String toString() {
+		long stamp = readLock();
+		try {
+			return super.toString();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	@Override
+	public long estimateRetainedSize() {
+		long stamp = readLock();
+		try {
+			return super.estimateRetainedSize();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	@Override
+	public ConfigurationFootprint footprint() {
+		long stamp = readLock();
+		try {
+			return super.footprint();
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	@Override
+	public void write(Writer writer, boolean encodeUnknownObjects) throws IOException, SecurityException {
+		long stamp = readLock();
+		try {
+			super.write(writer, encodeUnknownObjects);
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	/**
+	 * Returns a copy of the underlying {@link JSONObject}, taken under the read lock.
+	 *
+	 * @return a copy of the underlying {@link JSONObject}
+	 */
+	@Override
+	protected JSONObject toJsonObject() {
+		long stamp = readLock();
+		try {
+			return JsonTrees.deepCopy(super.toJsonObject());
+		} finally {
+			lock.unlockRead(stamp);
+		}
+	}
+	
+	@Override
+	protected Object put(String key, Object value) {
+		long stamp = writeLock();
+		try {
+			return super.put(key, value);
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Stores all values while holding the write lock, so concurrent readers see either none or all of them.
+	 */
+	@Override
+	protected Map<String, Object> putAll(Map<String, Object> values) {
+		long stamp = writeLock();
+		try {
+			Map<String, Object> prevValues = new HashMap<>();
+			for (Map.Entry<String, Object> entry : values.entrySet()) {
+				prevValues.put(entry.getKey(), super.put(entry.getKey(), entry.getValue()));
+			}
+			return prevValues;
+		} finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	/**
+	 * Merges while holding the write lock, so concurrent readers see either none or all of the changes.
+	 * The {@link MergePolicy.ConflictResolver} of the policy is called while the write lock is held, so it must not access this {@link Configuration}.
+	 */
+	@Override
+	protected ConfigurationChange mergeContent(JSONObject source, MergePolicy policy) {
+		long stamp = writeLock();
+		lock.callbackThread = Thread.currentThread();
+		try {
+			return super.mergeContent(source, policy);
+		} finally {
+			lock.callbackThread = null;
+			lock.unlockWrite(stamp);
+		}
+	}
+	
+	@Override
+	protected Configuration createChild(JSONObject jsonObject) {
+		return new ConcurrentConfiguration(jsonObject, lock);
+	}
+	
+	private long readLock() {
+		checkNotInCallback();
+		return lock.readLock();
+	}
+	
+	private long writeLock() {
+		checkNotInCallback();
+		return lock.writeLock();
+	}
+	
+	/**
+	 * The {@link StampedLock} is not reentrant, so a callback accessing the {@link Configuration} while the write lock is held would deadlock.
+	 */
+	private void checkNotInCallback() {
+		if (lock.callbackThread == Thread.currentThread())
+			throw new IllegalStateException("A callback running under the write lock must not access this Configuration!");
+	}
+	
+	/**
+	 * The lock shared by a {@link ConcurrentConfiguration} and its nested {@link Configuration}s, remembering the thread running a callback
+	 * of {@link ConcurrentConfiguration#compute(String, BiFunction)} or of a merge under the write lock.
+	 */
+	private static final class CallbackLock extends StampedLock {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private volatile transient Thread callbackThread;
+		
+	}
+	
+}
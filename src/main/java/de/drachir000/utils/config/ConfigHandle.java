@@ -0,0 +1,225 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * A ConfigHandle holds the current version of a {@link Configuration} and allows replacing it atomically, e.g. on reload.
+ * The held {@link Configuration} is an immutable snapshot: readers always see either the complete old or the complete new
+ * {@link Configuration}, without taking any lock. Every published snapshot gets a new, increasing version number,
+ * which readers can compare cheaply to find out whether anything changed, see {@link ConfigHandle#derive(Function)}.
+ *
+ * @since 2.2
+ */
+public final class ConfigHandle {
+	
+	private final AtomicReference<Snapshot> current;
+	private final File file;
+	
+	private ConfigHandle(Configuration initial, File file) {
+		this.current = new AtomicReference<>(new Snapshot(initial, 1L));
+		this.file = file;
+	}
+	
+	/**
+	 * Creates a ConfigHandle holding an immutable copy of a {@link Configuration}.
+	 *
+	 * @param configuration the initial {@link Configuration}
+	 * @return the new ConfigHandle
+	 */
+	public static ConfigHandle of(Configuration configuration) {
+		return new ConfigHandle(SimpleConfigLib.immutableConfiguration(configuration), null);
+	}
+	
+	/**
+	 * Creates a ConfigHandle holding the {@link Configuration} loaded from a {@link File}.
+	 * The {@link File} is loaded again by {@link ConfigHandle#reload()}.
+	 *
+	 * @param file the {@link File} to load the {@link Configuration} from
+	 * @return the new ConfigHandle
+	 * @throws IOException   if an I/O error occurs while reading the file
+	 * @throws JSONException if there is a syntax error in the JSON string or a duplicated key
+	 * @see SimpleConfigLib#load(File)
+	 */
+	public static ConfigHandle load(File file) throws IOException, JSONException {
+		return new ConfigHandle(new ReadOnlyConfiguration(SimpleConfigLib.load(file).toJsonObject()), file);
+	}
+	
+	/**
+	 * Get the current {@link Configuration}. It is read-only and never changes; modifications throw an {@link UnsupportedOperationException}.
+	 *
+	 * @return the current {@link Configuration}
+	 */
+	public Configuration get() {
+		return current.get().configuration;
+	}
+	
+	/**
+	 * Get the version of the current {@link Configuration}. The version increases with every {@link ConfigHandle#publish(Configuration)}
+	 * and {@link ConfigHandle#reload()}.
+	 *
+	 * @return the current version
+	 */
+	public long version() {
+		return current.get().version;
+	}
+	
+	/**
+	 * Get the current {@link Configuration} together with its version.
+	 *
+	 * @return the current {@link Snapshot}
+	 */
+	public Snapshot snapshot() {
+		return current.get();
+	}
+	
+	/**
+	 * Replaces the current {@link Configuration} with an immutable copy of the given one in a single atomic step.
+	 *
+	 * @param configuration the new {@link Configuration}
+	 * @return the version of the published {@link Configuration}
+	 */
+	public long publish(Configuration configuration) {
+		return swap(SimpleConfigLib.immutableConfiguration(configuration));
+	}
+	
+	/**
+	 * Loads the {@link File} this ConfigHandle was created from again and publishes the result in a single atomic step.
+	 * If loading fails, the current {@link Configuration} stays in place.
+	 *
+	 * @return the version of the reloaded {@link Configuration}
+	 * @throws IOException           if an I/O error occurs while reading the file
+	 * @throws JSONException         if there is a syntax error in the JSON string or a duplicated key
+	 * @throws IllegalStateException if this ConfigHandle was not created from a {@link File}
+	 * @see ConfigHandle#load(File)
+	 */
+	public long reload() throws IOException, JSONException, IllegalStateException {
+		
+		if (file == null)
+			throw new IllegalStateException("This ConfigHandle was not loaded from a File!");
+		
+		ConfigurationEvents.Reload event = new ConfigurationEvents.Reload();
+		event.begin();
+		
+		Configuration configuration = new ReadOnlyConfiguration(SimpleConfigLib.load(file).toJsonObject());
+		long version = swap(configuration);
+		
+		if (event.shouldCommit()) {
+			event.path = file.getPath();
+			event.version = version;
+			event.keys = configuration.getKeys().size();
+			event.commit();
+		}
+		
+		return version;
+		
+	}
+	
+	/**
+	 * Creates a value derived from the current {@link Configuration}, e.g. a parsed settings object.
+	 * The function is only called again after a new {@link Configuration} has been published.
+	 *
+	 * @param function the function computing the value from a {@link Configuration}
+	 * @param <T>      the type of the derived value
+	 * @return a {@link Derived} value following this ConfigHandle
+	 */
+	public <T> Derived<T> derive(Function<Configuration, T> function) {
+		return new Derived<>(this, function);
+	}
+	
+	private long swap(Configuration configuration) {
+		
+		Snapshot previous;
+		Snapshot next;
+		do {
+			previous = current.get();
+			next = new Snapshot(configuration, previous.version + 1);
+		} while (!current.compareAndSet(previous, next));
+		
+		return next.version;
+		
+	}
+	
+	/**
+	 * A published {@link Configuration} together with its version.
+	 */
+	public static final class Snapshot {
+		
+		private final Configuration configuration;
+		private final long version;
+		
+		private Snapshot(Configuration configuration, long version) {
+			this.configuration = configuration;
+			this.version = version;
+		}
+		
+		/**
+		 * @return the read-only {@link Configuration} of this snapshot
+		 */
+		public Configuration getConfiguration() {
+			return configuration;
+		}
+		
+		/**
+		 * @return the version of this snapshot
+		 */
+		public long getVersion() {
+			return version;
+		}
+		
+	}
+	
+	/**
+	 * A value derived from the {@link Configuration} of a {@link ConfigHandle}, recomputed only when the version changes.
+	 *
+	 * @param <T> the type of the derived value
+	 */
+	public static final class Derived<T> {
+		
+		private final ConfigHandle handle;
+		private final Function<Configuration, T> function;
+		private volatile Computed<T> computed;
+		
+		private Derived(ConfigHandle handle, Function<Configuration, T> function) {
+			this.handle = handle;
+			this.function = function;
+		}
+		
+		/**
+		 * Get the value derived from the current {@link Configuration}.
+		 *
+		 * @return the derived value
+		 */
+		public T get() {
+			
+			Snapshot snapshot = handle.snapshot();
+			Computed<T> c = computed;
+			
+			if (c == null || c.version != snapshot.version) {
+				c = new Computed<>(snapshot.version, function.apply(snapshot.configuration));
+				computed = c;
+			}
+			
+			return c.value;
+			
+		}
+		
+		private static final class Computed<T> {
+			
+			final long version;
+			final T value;
+			
+			private Computed(long version, T value) {
+				this.version = version;
+				this.value = value;
+			}
+			
+		}
+		
+	}
+	
+}
@@ -5,9 +5,16 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.*;
-import java.util.Base64;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 /**
  * The Configuration class represents a configuration object that can be used to retrieve values from a JSON object.
@@ -16,6 +23,32 @@ public class Configuration {
 	
 	JSONObject content;
 	
+	private volatile ChangeDispatcher changeDispatcher;
+	
+	/**
+	 * The {@link Configuration} this one was obtained from by {@link Configuration#getConfiguration(String)}, and the key it is stored at.
+	 * Changes are reported to the parent as well.
+	 */
+	private Configuration parent;
+	private String keyInParent;
+	
+	/**
+	 * The access metrics, null while they are disabled, and the path of this {@link Configuration} the keys are counted under.
+	 */
+	private volatile AccessMetrics accessMetrics;
+	private String metricsPrefix = "";
+	
+	/**
+	 * The interpolation of {@code ${...}} references, null while it is disabled, and the path of this {@link Configuration} in the {@link Configuration} it was enabled for.
+	 */
+	private volatile Interpolation interpolation;
+	private String interpolationPrefix = "";
+	
+	/**
+	 * The flattened index of the leaves by their dotted paths, null while it is disabled.
+	 */
+	private volatile FlatIndex flatIndex;
+	
 	/**
 	 * Create a {@link Configuration} based on a {@link JSONObject}
 	 *
@@ -46,6 +79,7 @@ public class Configuration {
 	
 	/**
 	 * Retrieves the {@link Serializable} {@link Object} value associated Base64 encoded with the given key.
+	 * Values written by a registered {@link ValueCodec} are decoded by that codec.
 	 *
 	 * @param key The key of the value to retrieve.
 	 * @return The decoded {@link Serializable} {@link Object} associated with the given key.
@@ -71,7 +105,11 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, String)
 	 */
 	public String getString(String key) throws JSONException {
-		return content.getString(key);
+		Object object = read(key);
+		if (object instanceof String) {
+			return interpolate(key, (String) object);
+		}
+		throw wrongValueFormatException(key, "string", object, null);
 	}
 	
 	/**
@@ -83,7 +121,15 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, int)
 	 */
 	public int getInt(String key) throws JSONException {
-		return content.getInt(key);
+		Object object = read(key);
+		if (object instanceof Number) {
+			return ((Number) object).intValue();
+		}
+		try {
+			return Integer.parseInt(object.toString());
+		} catch (Exception e) {
+			throw wrongValueFormatException(key, "int", object, e);
+		}
 	}
 	
 	/**
@@ -95,7 +141,15 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, long)
 	 */
 	public long getLong(String key) throws JSONException {
-		return content.getLong(key);
+		Object object = read(key);
+		if (object instanceof Number) {
+			return ((Number) object).longValue();
+		}
+		try {
+			return Long.parseLong(object.toString());
+		} catch (Exception e) {
+			throw wrongValueFormatException(key, "long", object, e);
+		}
 	}
 	
 	/**
@@ -107,7 +161,15 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, double)
 	 */
 	public double getDouble(String key) throws JSONException {
-		return content.getDouble(key);
+		Object object = read(key);
+		if (object instanceof Number) {
+			return ((Number) object).doubleValue();
+		}
+		try {
+			return Double.parseDouble(object.toString());
+		} catch (Exception e) {
+			throw wrongValueFormatException(key, "double", object, e);
+		}
 	}
 	
 	/**
@@ -119,7 +181,15 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, float)
 	 */
 	public float getFloat(String key) throws JSONException {
-		return content.getFloat(key);
+		Object object = read(key);
+		if (object instanceof Number) {
+			return ((Number) object).floatValue();
+		}
+		try {
+			return Float.parseFloat(object.toString());
+		} catch (Exception e) {
+			throw wrongValueFormatException(key, "float", object, e);
+		}
 	}
 	
 	/**
@@ -131,7 +201,13 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, boolean)
 	 */
 	public boolean getBoolean(String key) throws JSONException {
-		return content.getBoolean(key);
+		Object object = read(key);
+		if (object.equals(Boolean.FALSE) || (object instanceof String && ((String) object).equalsIgnoreCase("false"))) {
+			return false;
+		} else if (object.equals(Boolean.TRUE) || (object instanceof String && ((String) object).equalsIgnoreCase("true"))) {
+			return true;
+		}
+		throw wrongValueFormatException(key, "Boolean", object, null);
 	}
 	
 	/**
@@ -144,20 +220,29 @@ public class Configuration {
 	 */
 	public Configuration getConfiguration(String key) throws JSONException {
 		
-		Object object = get(key);
+		Object object = read(key);
 		
+		Configuration child;
 		if (object instanceof JSONObject) {
-			return new Configuration((JSONObject) object);
+			child = createChild((JSONObject) object);
+			child.parent = this;
+			child.keyInParent = key;
 		} else if (object instanceof String) {
-			return new Configuration(new JSONObject((String) object));
+			child = createChild(new JSONObject((String) object));
 		} else {
-			return new Configuration(new JSONObject(object.toString()));
+			child = createChild(new JSONObject(object.toString()));
 		}
 		
+		inherit(child, key);
+		
+		return child;
+		
 	}
 	
 	/**
 	 * Get the {@link JSONArray} value associated with a key.
+	 * If the value was saved as a primitive array, e.g. by {@link Configuration#setIntArray(String, int[])},
+	 * a new {@link JSONArray} containing its elements is returned instead.
 	 *
 	 * @param key A key string.
 	 * @return A {@link JSONArray} which is the value.
@@ -165,7 +250,110 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, JSONArray)
 	 */
 	public JSONArray getJSONArray(String key) throws JSONException {
-		return content.getJSONArray(key);
+		Object object = read(key);
+		if (object instanceof JSONArray) {
+			return (JSONArray) object;
+		}
+		if (isPrimitiveArray(object)) {
+			return new JSONArray(object);
+		}
+		throw wrongValueFormatException(key, "JSONArray", object, null);
+	}
+	
+	/**
+	 * Get the int array associated with a key.
+	 * If the value was saved by {@link Configuration#setIntArray(String, int[])}, the saved array itself is returned without boxing or copying,
+	 * so modifications of it write through to the {@link Configuration}.
+	 * Otherwise, a new array is built from the elements of the {@link JSONArray} or primitive array, converted like {@link Configuration#getInt(String)}.
+	 * Unlike {@link Configuration#getInt(String)}, an element out of the range of an int is rejected instead of truncated.
+	 *
+	 * @param key A key string.
+	 * @return The int array.
+	 * @throws JSONException if the key is not found or if the value is not an array of numbers which fit into an int.
+	 * @see Configuration#getOrDefault(String, int[])
+	 * @since 2.2
+	 */
+	public int[] getIntArray(String key) throws JSONException {
+		Object object = read(key);
+		if (object instanceof int[]) {
+			return (int[]) object;
+		}
+		JSONArray array = arrayValue(key, "int[]", object);
+		int[] result = new int[array.length()];
+		for (int i = 0; i < result.length; i++) {
+			Object element = array.opt(i);
+			try {
+				result[i] = element instanceof Number ? intValue((Number) element) : array.getInt(i);
+			} catch (ArithmeticException e) {
+				throw wrongValueFormatException(key, "int[]", array, e);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Get the long array associated with a key.
+	 * If the value was saved by {@link Configuration#setLongArray(String, long[])}, the saved array itself is returned without boxing or copying,
+	 * so modifications of it write through to the {@link Configuration}.
+	 * Otherwise, a new array is built from the elements of the {@link JSONArray} or primitive array, converted like {@link Configuration#getLong(String)}.
+	 * Unlike {@link Configuration#getLong(String)}, an element out of the range of a long is rejected instead of truncated.
+	 *
+	 * @param key A key string.
+	 * @return The long array.
+	 * @throws JSONException if the key is not found or if the value is not an array of numbers which fit into a long.
+	 * @see Configuration#getOrDefault(String, long[])
+	 * @since 2.2
+	 */
+	public long[] getLongArray(String key) throws JSONException {
+		Object object = read(key);
+		if (object instanceof long[]) {
+			return (long[]) object;
+		}
+		if (object instanceof int[]) {
+			return Arrays.stream((int[]) object).asLongStream().toArray();
+		}
+		JSONArray array = arrayValue(key, "long[]", object);
+		long[] result = new long[array.length()];
+		for (int i = 0; i < result.length; i++) {
+			Object element = array.opt(i);
+			try {
+				result[i] = element instanceof Number ? longValue((Number) element) : array.getLong(i);
+			} catch (ArithmeticException e) {
+				throw wrongValueFormatException(key, "long[]", array, e);
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Get the double array associated with a key.
+	 * If the value was saved by {@link Configuration#setDoubleArray(String, double[])}, the saved array itself is returned without boxing or copying,
+	 * so modifications of it write through to the {@link Configuration}.
+	 * Otherwise, a new array is built from the elements of the {@link JSONArray} or primitive array.
+	 *
+	 * @param key A key string.
+	 * @return The double array.
+	 * @throws JSONException if the key is not found or if the value is not an array of numbers.
+	 * @see Configuration#getOrDefault(String, double[])
+	 * @since 2.2
+	 */
+	public double[] getDoubleArray(String key) throws JSONException {
+		Object object = read(key);
+		if (object instanceof double[]) {
+			return (double[]) object;
+		}
+		if (object instanceof int[]) {
+			return Arrays.stream((int[]) object).asDoubleStream().toArray();
+		}
+		if (object instanceof long[]) {
+			return Arrays.stream((long[]) object).asDoubleStream().toArray();
+		}
+		JSONArray array = arrayValue(key, "double[]", object);
+		double[] result = new double[array.length()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = array.getDouble(i);
+		}
+		return result;
 	}
 	
 	/**
@@ -179,7 +367,15 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(Class, String, Enum)
 	 */
 	public <E extends Enum<E>> E getEnum(Class<E> clazz, String key) throws JSONException {
-		return content.getEnum(clazz, key);
+		Object object = read(key);
+		if (clazz.isInstance(object)) {
+			return clazz.cast(object);
+		}
+		try {
+			return Enum.valueOf(clazz, object.toString());
+		} catch (IllegalArgumentException e) {
+			throw wrongValueFormatException(key, "enum of type " + JSONObject.quote(clazz.getSimpleName()), object, e);
+		}
 	}
 	
 	/**
@@ -191,14 +387,14 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, byte)
 	 */
 	public byte getByte(String key) throws JSONException {
-		Object object = get(key);
+		Object object = read(key);
 		if (object instanceof Number) {
 			return ((Number) object).byteValue();
 		}
 		try {
 			return Byte.parseByte(object.toString());
 		} catch (Exception e) {
-			throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] is not a " + "byte" + " (" + object.getClass() + " : " + object + ").", e);
+			throw wrongValueFormatException(key, "byte", object, e);
 		}
 	}
 	
@@ -211,14 +407,14 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, short)
 	 */
 	public short getShort(String key) throws JSONException {
-		Object object = get(key);
+		Object object = read(key);
 		if (object instanceof Number) {
 			return ((Number) object).shortValue();
 		}
 		try {
 			return Short.parseShort(object.toString());
 		} catch (Exception e) {
-			throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] is not a " + "short" + " (" + object.getClass() + " : " + object + ").", e);
+			throw wrongValueFormatException(key, "short", object, e);
 		}
 	}
 	
@@ -231,18 +427,18 @@ public class Configuration {
 	 * @see Configuration#getOrDefault(String, char)
 	 */
 	public char getChar(String key) throws JSONException {
-		Object object = get(key);
+		Object object = read(key);
 		if (object instanceof Character) {
 			return (char) object;
 		}
 		String s = object.toString();
 		if (s.length() > 1) {
-			throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] is not a " + "char" + " (" + object.getClass() + " : " + object + ").");
+			throw wrongValueFormatException(key, "char", object, null);
 		}
 		try {
 			return s.charAt(0);
 		} catch (Exception e) {
-			throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] is not a " + "char" + " (" + object.getClass() + " : " + object + ").", e);
+			throw wrongValueFormatException(key, "char", object, e);
 		}
 	}
 	
@@ -262,8 +458,9 @@ public class Configuration {
 	 */
 	public Object getOrDefault(String key, Object defaultValue) {
 		try {
-			return get(key);
+			return read(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -281,6 +478,7 @@ public class Configuration {
 			return getEncoded(key);
 		} catch (JSONException | IOException | ClassNotFoundException | IllegalArgumentException | SecurityException |
 		         NullPointerException ignored) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -297,6 +495,7 @@ public class Configuration {
 		try {
 			return getString(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -313,6 +512,7 @@ public class Configuration {
 		try {
 			return getInt(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -329,6 +529,7 @@ public class Configuration {
 		try {
 			return getLong(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -345,6 +546,7 @@ public class Configuration {
 		try {
 			return getDouble(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -361,6 +563,7 @@ public class Configuration {
 		try {
 			return getFloat(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -377,6 +580,7 @@ public class Configuration {
 		try {
 			return getBoolean(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -393,6 +597,7 @@ public class Configuration {
 		try {
 			return getConfiguration(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -409,6 +614,61 @@ public class Configuration {
 		try {
 			return getJSONArray(key);
 		} catch (JSONException e) {
+			recordDefault(key);
+			return defaultValue;
+		}
+	}
+	
+	/**
+	 * Get the int array associated with a key, or the provided replacement value if the key is not set.
+	 *
+	 * @param key          A key string.
+	 * @param defaultValue The fallback value
+	 * @return The int array associated with the key or the fallback value
+	 * @see Configuration#getIntArray(String)
+	 * @since 2.2
+	 */
+	public int[] getOrDefault(String key, int[] defaultValue) {
+		try {
+			return getIntArray(key);
+		} catch (JSONException e) {
+			recordDefault(key);
+			return defaultValue;
+		}
+	}
+	
+	/**
+	 * Get the long array associated with a key, or the provided replacement value if the key is not set.
+	 *
+	 * @param key          A key string.
+	 * @param defaultValue The fallback value
+	 * @return The long array associated with the key or the fallback value
+	 * @see Configuration#getLongArray(String)
+	 * @since 2.2
+	 */
+	public long[] getOrDefault(String key, long[] defaultValue) {
+		try {
+			return getLongArray(key);
+		} catch (JSONException e) {
+			recordDefault(key);
+			return defaultValue;
+		}
+	}
+	
+	/**
+	 * Get the double array associated with a key, or the provided replacement value if the key is not set.
+	 *
+	 * @param key          A key string.
+	 * @param defaultValue The fallback value
+	 * @return The double array associated with the key or the fallback value
+	 * @see Configuration#getDoubleArray(String)
+	 * @since 2.2
+	 */
+	public double[] getOrDefault(String key, double[] defaultValue) {
+		try {
+			return getDoubleArray(key);
+		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -427,6 +687,7 @@ public class Configuration {
 		try {
 			return getEnum(clazz, key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -443,6 +704,7 @@ public class Configuration {
 		try {
 			return getByte(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -459,6 +721,7 @@ public class Configuration {
 		try {
 			return getShort(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -475,6 +738,7 @@ public class Configuration {
 		try {
 			return getChar(key);
 		} catch (JSONException e) {
+			recordDefault(key);
 			return defaultValue;
 		}
 	}
@@ -495,8 +759,8 @@ public class Configuration {
 	 * @throws NullPointerException If the key is null.
 	 */
 	public Object set(String key, Object value) {
-		Object prevValue = getOrDefault(key, (Object) null);
-		content.put(key, value);
+		Object prevValue = put(key, value);
+		fireChange(key, prevValue, value);
 		return prevValue;
 	}
 	
@@ -513,10 +777,195 @@ public class Configuration {
 	 */
 	public Object setEncoded(String key, Serializable value) throws IOException, SecurityException, NullPointerException {
 		Object prevValue = getEncodedOrDefault(key, null);
-		content.put(key, serialize(value));
+		String encoded = serialize(value);
+		fireChange(key, put(key, encoded), encoded);
 		return prevValue;
 	}
 	
+	/**
+	 * Saves an {@link Object} value with a registered {@link ValueCodec} in the {@link Configuration}.
+	 * The value will be encoded by its codec and then stored as a Base64 encoded String.
+	 * Values without a registered codec must be {@link Serializable}.
+	 *
+	 * @param key   the key to set
+	 * @param value the value to set
+	 * @return the previous value associated with the key, or {@code null} if there was no previous value
+	 * @throws IOException          if there was an IO error during encoding or the value cannot be encoded
+	 * @throws SecurityException    if a security violation occurs
+	 * @throws NullPointerException if the key or value is {@code null}
+	 * @see SimpleConfigLib#registerCodec(Class, String, ValueCodec)
+	 * @since 2.2
+	 */
+	public Object setEncoded(String key, Object value) throws IOException, SecurityException, NullPointerException {
+		Object prevValue = getEncodedOrDefault(key, null);
+		String encoded = serialize(value);
+		fireChange(key, put(key, encoded), encoded);
+		return prevValue;
+	}
+	
+	/**
+	 * Save a value in the {@link Configuration} if the key is not set yet.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link Object} Value to save.
+	 * @return The value currently assigned to that key, or null if the key wasn't set and the value was saved.
+	 * @throws JSONException        If the value is non-finite number.
+	 * @throws NullPointerException If the key is null.
+	 * @since 2.2
+	 */
+	public Object putIfAbsent(String key, Object value) {
+		Object current = peek(key);
+		if (current == null) {
+			put(key, value);
+			fireChange(key, null, value);
+		}
+		return current;
+	}
+	
+	/**
+	 * Compute a new value for a key from its current value. If the function returns null, the key will be removed from the {@link Configuration}.
+	 *
+	 * @param key               A key string.
+	 * @param remappingFunction The function computing the new value from the key and the current value, which is null if the key isn't set.
+	 * @return The new value assigned to that key, or null if the key was removed.
+	 * @throws JSONException        If the new value is non-finite number.
+	 * @throws NullPointerException If the key or the function is null.
+	 * @since 2.2
+	 */
+	public Object compute(String key, BiFunction<String, Object, Object> remappingFunction) {
+		Object prevValue = peek(key);
+		Object value = remappingFunction.apply(key, prevValue);
+		put(key, value);
+		fireChange(key, prevValue, value);
+		return value;
+	}
+	
+	/**
+	 * Apply several modifications as one. The modifications made to the {@link ConfigurationTransaction} are staged
+	 * and applied together once the function returns; if it throws, nothing is applied.
+	 * Change listeners are notified once with all changes.
+	 *
+	 * <pre>{@code
+	 * configuration.update(tx -> tx
+	 *         .setString("host", "localhost")
+	 *         .setInt("port", 8080)
+	 *         .remove("legacy-port"));
+	 * }</pre>
+	 *
+	 * @param transaction The function staging the modifications.
+	 * @return The applied changes.
+	 * @see Configuration#addChangeListener(Consumer)
+	 * @see SimpleConfigLib#update(Configuration, java.io.File, Consumer)
+	 * @since 2.2
+	 */
+	public ConfigurationChange update(Consumer<ConfigurationTransaction> transaction) {
+		
+		ConfigurationTransaction tx = new ConfigurationTransaction(this);
+		transaction.accept(tx);
+		
+		Map<String, Object> values = tx.commit();
+		if (values.isEmpty())
+			return ConfigurationChange.EMPTY;
+		
+		ConfigurationChange change = ConfigurationChange.of(putAll(values), values);
+		fireChange(change);
+		
+		return change;
+		
+	}
+	
+	/**
+	 * Deep-merge another {@link Configuration} into this one, as described by the policy. The underlying trees are merged directly,
+	 * without creating {@link Configuration}s for nested objects or copying key sets. Values taken from the other {@link Configuration}
+	 * are copied, so modifying it afterwards does not affect this one. Change listeners are notified once with all changes.
+	 * The {@link MergePolicy.ConflictResolver} of the policy must not access this {@link Configuration}: a {@link ConcurrentConfiguration}
+	 * holds its write lock during the merge and throws an {@link IllegalStateException} if the resolver does.
+	 *
+	 * @param other  The {@link Configuration} to merge into this one.
+	 * @param policy How objects, arrays and conflicting values are combined, e.g. {@link MergePolicy#DEFAULT}.
+	 * @return The applied changes, by the dotted paths of the modified keys.
+	 * @see SimpleConfigLib#merge(Configuration, Configuration, MergePolicy)
+	 * @since 2.2
+	 */
+	public ConfigurationChange merge(Configuration other, MergePolicy policy) {
+		ConfigurationChange change = mergeContent(other.toJsonObject(), policy);
+		fireChange(change);
+		return change;
+	}
+	
+	/**
+	 * Register a listener which is notified after every modification of this {@link Configuration}, including modifications
+	 * of nested {@link Configuration}s obtained from it with {@link Configuration#getConfiguration(String)}.
+	 * A {@link Configuration#update(Consumer)} notifies the listener once with all its changes.
+	 * Listeners are called on the modifying thread, after the modification has been applied.
+	 *
+	 * @param listener The listener.
+	 * @see Configuration#subscribe(String, Consumer)
+	 * @since 2.2
+	 */
+	public void addChangeListener(Consumer<ConfigurationChange> listener) {
+		changeDispatcher().subscribe("", listener, null);
+	}
+	
+	/**
+	 * Remove a listener registered with {@link Configuration#addChangeListener(Consumer)}.
+	 *
+	 * @param listener The listener.
+	 * @return true if the listener was registered.
+	 * @since 2.2
+	 */
+	public boolean removeChangeListener(Consumer<ConfigurationChange> listener) {
+		ChangeDispatcher dispatcher = changeDispatcher;
+		return dispatcher != null && dispatcher.removeListener(listener);
+	}
+	
+	/**
+	 * Subscribe a listener to the changes of a path, for example {@code db.pool.*}. Paths are keys of nested {@link Configuration}s
+	 * separated by dots; an empty path or {@code *} subscribes to all changes. The listener is notified about changes of the path itself,
+	 * of keys below it and of keys above it, since replacing a parent replaces the path as well.
+	 * Notifications are delivered asynchronously by the default executor, see {@link SimpleConfigLib#setDefaultChangeExecutor(Executor)}.
+	 *
+	 * @param path     The path to listen to.
+	 * @param listener The listener.
+	 * @return The subscription, which can be cancelled.
+	 * @since 2.2
+	 */
+	public ConfigurationSubscription subscribe(String path, Consumer<ConfigurationChange> listener) {
+		return subscribe(path, listener, ChangeDispatcher.defaultExecutor());
+	}
+	
+	/**
+	 * Subscribe a listener to the changes of a path, see {@link Configuration#subscribe(String, Consumer)}.
+	 *
+	 * @param path     The path to listen to.
+	 * @param listener The listener.
+	 * @param executor The executor delivering the notifications. {@code Runnable::run} delivers them on the modifying thread.
+	 * @return The subscription, which can be cancelled.
+	 * @since 2.2
+	 */
+	public ConfigurationSubscription subscribe(String path, Consumer<ConfigurationChange> listener, Executor executor) {
+		if (executor == null)
+			throw new NullPointerException("executor must not be null!");
+		return changeDispatcher().subscribe(path, listener, executor);
+	}
+	
+	private ChangeDispatcher changeDispatcher() {
+		ChangeDispatcher dispatcher = changeDispatcher;
+		if (dispatcher == null) {
+			synchronized (this) {
+				if (changeDispatcher == null)
+					changeDispatcher = new ChangeDispatcher();
+				dispatcher = changeDispatcher;
+			}
+		}
+		return dispatcher;
+	}
+	
+	private boolean hasChangeListeners() {
+		ChangeDispatcher dispatcher = changeDispatcher;
+		return (dispatcher != null && !dispatcher.isEmpty()) || (parent != null && parent.hasChangeListeners());
+	}
+	
 	/**
 	 * Save an {@link String} value in the {@link Configuration}. If the value is null, then the key will be removed from the {@link Configuration} if it is present.
 	 *
@@ -621,6 +1070,57 @@ public class Configuration {
 		return set(key, value);
 	}
 	
+	/**
+	 * Save a int array in the {@link Configuration}. If the value is null, then the key will be removed from the {@link Configuration} if it is present.
+	 * The array is stored as it is, without boxing its elements, and is written as a regular JSON array.
+	 * Later modifications of the array are visible in the {@link Configuration} without notifying its listeners.
+	 *
+	 * @param key   A key string.
+	 * @param value The int array to save.
+	 * @return The value previously assigned to that key. null if the key wasn't set.
+	 * @throws NullPointerException If the key is null.
+	 * @since 2.2
+	 */
+	public Object setIntArray(String key, int[] value) {
+		return set(key, value);
+	}
+	
+	/**
+	 * Save a long array in the {@link Configuration}. If the value is null, then the key will be removed from the {@link Configuration} if it is present.
+	 * The array is stored as it is, without boxing its elements, and is written as a regular JSON array.
+	 * Later modifications of the array are visible in the {@link Configuration} without notifying its listeners.
+	 *
+	 * @param key   A key string.
+	 * @param value The long array to save.
+	 * @return The value previously assigned to that key. null if the key wasn't set.
+	 * @throws NullPointerException If the key is null.
+	 * @since 2.2
+	 */
+	public Object setLongArray(String key, long[] value) {
+		return set(key, value);
+	}
+	
+	/**
+	 * Save a double array in the {@link Configuration}. If the value is null, then the key will be removed from the {@link Configuration} if it is present.
+	 * The array is stored as it is, without boxing its elements, and is written as a regular JSON array.
+	 * Later modifications of the array are visible in the {@link Configuration} without notifying its listeners.
+	 *
+	 * @param key   A key string.
+	 * @param value The double array to save.
+	 * @return The value previously assigned to that key. null if the key wasn't set.
+	 * @throws JSONException        If the array contains a non-finite number.
+	 * @throws NullPointerException If the key is null.
+	 * @since 2.2
+	 */
+	public Object setDoubleArray(String key, double[] value) {
+		if (value != null) {
+			for (double d : value) {
+				JSONObject.testValidity(d);
+			}
+		}
+		return set(key, value);
+	}
+	
 	/**
 	 * Save an Enum Value in the {@link Configuration}. If the value is null, then the key will be removed from the {@link Configuration} if it is present.
 	 *
@@ -634,6 +1134,160 @@ public class Configuration {
 		return set(key, value);
 	}
 	
+	/**
+	 * Start counting the reads of this {@link Configuration} and of the {@link Configuration}s obtained from it
+	 * by {@link Configuration#getConfiguration(String)} afterwards.
+	 *
+	 * @return the metrics, which are updated while they are enabled
+	 * @since 2.2
+	 */
+	public AccessMetrics enableAccessMetrics() {
+		AccessMetrics metrics = accessMetrics;
+		if (metrics == null) {
+			synchronized (this) {
+				metrics = accessMetrics;
+				if (metrics == null)
+					accessMetrics = metrics = new AccessMetrics();
+			}
+		}
+		return metrics;
+	}
+	
+	/**
+	 * Stop counting the reads of this {@link Configuration}. Nested {@link Configuration}s obtained before keep counting.
+	 *
+	 * @since 2.2
+	 */
+	public void disableAccessMetrics() {
+		accessMetrics = null;
+	}
+	
+	/**
+	 * @return the access metrics, or null if they are disabled
+	 * @see Configuration#enableAccessMetrics()
+	 * @since 2.2
+	 */
+	public AccessMetrics getAccessMetrics() {
+		return accessMetrics;
+	}
+	
+	/**
+	 * Resolve {@code ${...}} references in the values returned by {@link Configuration#getString(String)}, e.g. {@code "${db.host}:${db.port}"}.
+	 * References are dotted paths of keys of this {@link Configuration}, or {@code env:NAME} for the environment variable {@code NAME};
+	 * {@code ${name:-fallback}} falls back to a default if {@code name} is not set, <code>$${</code> is a literal <code>${</code>.
+	 * Values are stored as written, so they are saved with their references. Nested {@link Configuration}s obtained afterwards
+	 * resolve their values against this {@link Configuration}.
+	 * <p>
+	 * Each value is compiled and resolved once, and the result is memoized until the value or one of the keys it references is modified.
+	 * A {@link JSONException} is thrown if a referenced key is not set or the references are circular.
+	 *
+	 * @since 2.2
+	 */
+	public void enableInterpolation() {
+		synchronized (this) {
+			if (interpolation == null)
+				interpolation = new Interpolation(this);
+		}
+	}
+	
+	/**
+	 * Stop resolving {@code ${...}} references, {@link Configuration#getString(String)} returns the values as they are stored.
+	 *
+	 * @since 2.2
+	 */
+	public void disableInterpolation() {
+		synchronized (this) {
+			Interpolation i = interpolation;
+			interpolation = null;
+			if (i != null && i.getRoot() == this)
+				i.close();
+		}
+	}
+	
+	/**
+	 * Maintain a {@link FlatIndex} of this {@link Configuration}, mapping the dotted path of every leaf to its value, so a deep read
+	 * such as {@code index.getInt("db.pool.size")} is a single hash lookup. The index is built once and then updated incrementally
+	 * by every modification of this {@link Configuration} and of the nested {@link Configuration}s obtained from it.
+	 *
+	 * @return the index, which is kept up to date while it is enabled
+	 * @since 2.2
+	 */
+	public FlatIndex enableFlatIndex() {
+		FlatIndex index = flatIndex;
+		if (index == null) {
+			synchronized (this) {
+				index = flatIndex;
+				if (index == null)
+					flatIndex = index = new FlatIndex(this);
+			}
+		}
+		return index;
+	}
+	
+	/**
+	 * Stop maintaining the {@link FlatIndex}. An index obtained before keeps its last state.
+	 *
+	 * @since 2.2
+	 */
+	public void disableFlatIndex() {
+		synchronized (this) {
+			FlatIndex index = flatIndex;
+			flatIndex = null;
+			if (index != null)
+				index.close();
+		}
+	}
+	
+	/**
+	 * @return the flattened index, or null if it is disabled
+	 * @see Configuration#enableFlatIndex()
+	 * @since 2.2
+	 */
+	public FlatIndex getFlatIndex() {
+		return flatIndex;
+	}
+	
+	/**
+	 * Estimate the number of bytes of heap retained by this {@link Configuration} and everything nested in it.
+	 * The tree is walked without copying it, so this is cheap enough to be called periodically.
+	 *
+	 * @return the estimated retained size in bytes
+	 * @see Configuration#footprint()
+	 * @since 2.2
+	 */
+	public long estimateRetainedSize() {
+		return ConfigurationFootprint.estimate(content);
+	}
+	
+	/**
+	 * Estimate the heap retained by this {@link Configuration}, broken down by value type and by nested {@link Configuration}.
+	 *
+	 * @return the estimate
+	 * @see Configuration#estimateRetainedSize()
+	 * @since 2.2
+	 */
+	public ConfigurationFootprint footprint() {
+		return ConfigurationFootprint.of(content);
+	}
+	
+	/**
+	 * Create an instance of a record or a class and fill it with the values of this {@link Configuration}.
+	 * Record components and non-static, non-transient fields are matched by name with the keys of the {@link Configuration}
+	 * and read with the typed getters. Nested records and classes are bound from the nested {@link Configuration}.
+	 * Missing keys leave record components at their default value and fields at their initial value.
+	 * The binding plan of a class is built once and reused for every following call.
+	 *
+	 * @param type the record or the class with a no-arg constructor to bind to
+	 * @param <T>  the type to bind to
+	 * @return a new instance of the type holding the values of this {@link Configuration}
+	 * @throws JSONException            if a value cannot be converted to the type of its component or field
+	 * @throws IllegalArgumentException if the type or one of its component or field types is not supported
+	 * @since 2.2
+	 */
+	public <T> T bind(Class<T> type) throws JSONException, IllegalArgumentException {
+		return ConfigurationBinder.of(type).bind(this);
+	}
+	
 	/**
 	 * Get a set of keys of the {@link Configuration}. Modifying it will have no impact on the {@link Configuration} itself.
 	 *
@@ -681,12 +1335,228 @@ public class Configuration {
 		return content;
 	}
 	
+	/**
+	 * Store a value in the underlying {@link JSONObject}. All setters of the {@link Configuration} write through this method.
+	 *
+	 * @param key   A key string.
+	 * @param value The value to store, null removes the key.
+	 * @return The value previously assigned to that key. null if the key wasn't set.
+	 * @since 2.2
+	 */
+	protected Object put(String key, Object value) {
+		thaw();
+		Object prevValue = content.opt(key);
+		content.put(KeyPool.intern(key), value);
+		return prevValue;
+	}
+	
+	/**
+	 * Store several values in the underlying {@link JSONObject} as one modification.
+	 *
+	 * @param values The values to store, null values remove their key.
+	 * @return The values previously assigned to the keys.
+	 * @since 2.2
+	 */
+	protected Map<String, Object> putAll(Map<String, Object> values) {
+		Map<String, Object> prevValues = new HashMap<>();
+		for (Map.Entry<String, Object> entry : values.entrySet()) {
+			prevValues.put(entry.getKey(), put(entry.getKey(), entry.getValue()));
+		}
+		return prevValues;
+	}
+	
+	/**
+	 * Merge a {@link JSONObject} into the underlying {@link JSONObject}. {@link Configuration#merge(Configuration, MergePolicy)} writes through this method.
+	 *
+	 * @param source The {@link JSONObject} to merge.
+	 * @param policy How objects, arrays and conflicting values are combined.
+	 * @return The applied changes.
+	 * @since 2.2
+	 */
+	protected ConfigurationChange mergeContent(JSONObject source, MergePolicy policy) {
+		
+		thaw();
+		
+		Map<String, Object> oldValues = new LinkedHashMap<>();
+		Map<String, Object> newValues = new LinkedHashMap<>();
+		policy.merge(content, source, "", oldValues, newValues);
+		
+		return ConfigurationChange.of(oldValues, newValues);
+		
+	}
+	
+	/**
+	 * Notify the change listeners about a modification of a single key.
+	 *
+	 * @param key      The modified key.
+	 * @param oldValue The value before the modification.
+	 * @param newValue The value after the modification.
+	 * @since 2.2
+	 */
+	protected void fireChange(String key, Object oldValue, Object newValue) {
+		if (hasChangeListeners())
+			fireChange(ConfigurationChange.of(key, oldValue, newValue));
+	}
+	
+	/**
+	 * Notify the change listeners about a modification.
+	 *
+	 * @param change The modification.
+	 * @since 2.2
+	 */
+	protected void fireChange(ConfigurationChange change) {
+		
+		if (change.isEmpty())
+			return;
+		
+		ChangeDispatcher dispatcher = changeDispatcher;
+		if (dispatcher != null)
+			dispatcher.dispatch(change);
+		
+		// Only report to the parent while this Configuration is still stored at its key
+		Configuration p = parent;
+		if (p != null && p.hasChangeListeners() && p.peek(keyInParent) == content)
+			p.fireChange(change.prefixed(keyInParent));
+		
+	}
+	
+	/**
+	 * Replace the content by a modifiable copy before it is modified, if it is a fragment shared by several {@link Configuration}s.
+	 * The copy replaces the shared fragment in the parent as well, which is copied first if it is shared too.
+	 * If another view of the same key has already replaced the fragment in the parent, its copy is adopted instead.
+	 */
+	void thaw() {
+		
+		JSONObject shared = content;
+		if (!(shared instanceof Includes.SharedJSONObject))
+			return;
+		
+		Configuration p = parent;
+		if (p != null) {
+			
+			p.thaw();
+			
+			Object current = p.content.opt(keyInParent);
+			if (current instanceof JSONObject && !(current instanceof Includes.SharedJSONObject)) {
+				content = (JSONObject) current;
+				return;
+			}
+			
+			if (current == shared) {
+				JSONObject copy = ((Includes.SharedJSONObject) shared).copy();
+				p.content.put(keyInParent, copy);
+				content = copy;
+				return;
+			}
+			
+		}
+		
+		content = ((Includes.SharedJSONObject) shared).copy();
+		
+	}
+	
+	/**
+	 * Create the {@link Configuration} returned by {@link Configuration#getConfiguration(String)} for a nested {@link JSONObject}.
+	 *
+	 * @param jsonObject The nested {@link JSONObject}
+	 * @return a {@link Configuration} based on the nested {@link JSONObject}
+	 * @since 2.2
+	 */
+	protected Configuration createChild(JSONObject jsonObject) {
+		return new Configuration(jsonObject);
+	}
+	
+	/**
+	 * Read a value through {@link Configuration#get(String)}, counting the access if metrics are enabled.
+	 */
+	private Object read(String key) throws JSONException {
+		
+		AccessMetrics metrics = accessMetrics;
+		if (metrics == null)
+			return get(key);
+		
+		Object value;
+		try {
+			value = get(key);
+		} catch (JSONException e) {
+			metrics.recordMiss(metricsPrefix + key);
+			throw e;
+		}
+		
+		metrics.recordHit(metricsPrefix + key);
+		return value;
+		
+	}
+	
+	/**
+	 * Count a read which was served without {@link Configuration#get(String)}, see {@link OffHeapConfiguration}.
+	 */
+	void recordAccess(String key, boolean found) {
+		AccessMetrics metrics = accessMetrics;
+		if (metrics == null)
+			return;
+		if (found) {
+			metrics.recordHit(metricsPrefix + key);
+		} else {
+			metrics.recordMiss(metricsPrefix + key);
+		}
+	}
+	
+	private void recordDefault(String key) {
+		AccessMetrics metrics = accessMetrics;
+		if (metrics != null)
+			metrics.recordDefault(metricsPrefix + key);
+	}
+	
+	/**
+	 * Pass the access metrics and the interpolation on to a nested {@link Configuration} stored at a key.
+	 */
+	void inherit(Configuration child, String key) {
+		AccessMetrics metrics = accessMetrics;
+		if (metrics != null) {
+			child.accessMetrics = metrics;
+			child.metricsPrefix = metricsPrefix + key + ".";
+		}
+		Interpolation i = interpolation;
+		if (i != null) {
+			child.interpolation = i;
+			child.interpolationPrefix = interpolationPrefix + key + ".";
+		}
+	}
+	
+	/**
+	 * @return the value with its {@code ${...}} references resolved if interpolation is enabled, otherwise the value itself
+	 */
+	String interpolate(String key, String value) throws JSONException {
+		Interpolation i = interpolation;
+		return i == null ? value : i.resolve(interpolationPrefix + key, value);
+	}
+	
+	/**
+	 * @return the value of the key, null if it is not set. The read is not counted by the access metrics.
+	 */
+	Object peek(String key) {
+		try {
+			return get(key);
+		} catch (JSONException e) {
+			return null;
+		}
+	}
+	
+	private JSONException wrongValueFormatException(String key, String valueType, Object value, Throwable cause) {
+		AccessMetrics metrics = accessMetrics;
+		if (metrics != null)
+			metrics.recordConversionFailure(metricsPrefix + key);
+		return new JSONException("JSONObject[" + JSONObject.quote(key) + "] is not a " + valueType + " (" + value.getClass() + " : " + value + ").", cause);
+	}
+	
 	/**
 	 * Make a JSON text of this {@link Configuration}. For compactness, no whitespace is added.
 	 *
 	 * @param encodeUnknownObjects represents whether to encode unknown objects. If this is set to true, any {@link Serializable}
 	 *                             object, which is not recognized and hence would be converted into a String for the result, will be
-	 *                             serialized and Base64 encoded. Such objects can then be fetched using {@link Configuration#getEncoded(String)}.
+	 *                             serialized and Base64 encoded. Objects with a registered {@link ValueCodec} are encoded by their codec.
+	 *                             Such objects can then be fetched using {@link Configuration#getEncoded(String)}.
 	 *                             This setting does not modify this Object, only the manner these objects are stored within the String generated by this method.
 	 * @return a printable, displayable, portable, transmittable representation
 	 * of the object, beginning with <code>{</code>&nbsp;<small>(left
@@ -701,67 +1571,141 @@ public class Configuration {
 		if (!encodeUnknownObjects)
 			return toString();
 		
-		JSONObject cont = new JSONObject();
+		StringWriter writer = new StringWriter();
+		write(writer, true);
+		
+		return writer.toString();
+		
+	}
+	
+	/**
+	 * Write the JSON text of this {@link Configuration} to a {@link Writer}. For compactness, no whitespace is added.
+	 * Encoded objects are Base64 encoded straight into the {@link Writer}, without building the JSON text in memory first.
+	 *
+	 * @param writer               the {@link Writer} to write the JSON text to
+	 * @param encodeUnknownObjects represents whether to encode unknown objects, see {@link Configuration#toString(boolean)}.
+	 * @throws IOException       if an I/O error occurs
+	 * @throws SecurityException if a security violation occurs
+	 * @since 2.2
+	 */
+	public void write(Writer writer, boolean encodeUnknownObjects) throws IOException, SecurityException {
+		
+		if (!encodeUnknownObjects) {
+			content.write(writer);
+			return;
+		}
+		
+		writer.write('{');
+		
+		boolean first = true;
 		for (String key : content.keySet()) {
-			cont.put(key, encodeIfUnknownType(content.get(key)));
+			
+			if (!first)
+				writer.write(',');
+			first = false;
+			
+			writer.write(JSONObject.quote(key));
+			writer.write(':');
+			
+			Object value = content.get(key);
+			if (isUnknownType(value)) {
+				// Base64 characters never need to be escaped
+				writer.write('"');
+				EncodedValues.encodeTo(value, writer);
+				writer.write('"');
+			} else if (value instanceof JSONObject) {
+				((JSONObject) value).write(writer);
+			} else if (value instanceof JSONArray) {
+				((JSONArray) value).write(writer);
+			} else {
+				writer.write(JSONObject.valueToString(value));
+			}
+			
 		}
 		
-		return cont.toString();
+		writer.write('}');
 		
 	}
 	
-	private static Object encodeIfUnknownType(Object object) throws IOException, SecurityException {
+	private static boolean isUnknownType(Object object) {
 		
-		if (
-				object instanceof Serializable &&
-						!(
-								object instanceof String ||
-										object instanceof Enum ||
-										object instanceof JSONObject ||
-										object instanceof JSONArray ||
-										object.getClass().isPrimitive() ||
-										object.getClass() == Integer.class ||
-										object.getClass() == Long.class ||
-										object.getClass() == Double.class ||
-										object.getClass() == Float.class ||
-										object.getClass() == Boolean.class ||
-										object.getClass() == Character.class ||
-										object.getClass() == Byte.class ||
-										object.getClass() == Short.class
-						)
-		) {
-			return serialize((Serializable) object);
-		}
+		if (ValueCodecRegistry.forType(object.getClass()) != null)
+			return true;
 		
-		return object;
+		return object instanceof Serializable &&
+				!(
+						object instanceof String ||
+								isPrimitiveArray(object) ||
+								object instanceof Enum ||
+								object instanceof JSONObject ||
+								object instanceof JSONArray ||
+								object.getClass().isPrimitive() ||
+								object.getClass() == Integer.class ||
+								object.getClass() == Long.class ||
+								object.getClass() == Double.class ||
+								object.getClass() == Float.class ||
+								object.getClass() == Boolean.class ||
+								object.getClass() == Character.class ||
+								object.getClass() == Byte.class ||
+								object.getClass() == Short.class
+				);
 		
 	}
 	
 	/**
-	 * Deserializes a serialized object.
+	 * Converts a number to an int, dropping a fraction.
+	 *
+	 * @throws ArithmeticException if the number is out of the range of an int
+	 */
+	private static int intValue(Number number) throws ArithmeticException {
+		return Math.toIntExact(longValue(number));
+	}
+	
+	/**
+	 * Converts a number to a long, dropping a fraction.
+	 *
+	 * @throws ArithmeticException if the number is out of the range of a long
+	 */
+	private static long longValue(Number number) throws ArithmeticException {
+		if (number instanceof Integer || number instanceof Long || number instanceof Short || number instanceof Byte)
+			return number.longValue();
+		if (number instanceof BigInteger)
+			return ((BigInteger) number).longValueExact();
+		if (number instanceof BigDecimal)
+			return ((BigDecimal) number).toBigInteger().longValueExact();
+		double value = number.doubleValue();
+		if (!(value >= -0x1p63 && value < 0x1p63))
+			throw new ArithmeticException("long overflow");
+		return (long) value;
+	}
+	
+	static boolean isPrimitiveArray(Object object) {
+		return object instanceof int[] || object instanceof long[] || object instanceof double[];
+	}
+	
+	private JSONArray arrayValue(String key, String type, Object value) throws JSONException {
+		if (value instanceof JSONArray)
+			return (JSONArray) value;
+		if (isPrimitiveArray(value))
+			return new JSONArray(value);
+		throw wrongValueFormatException(key, type, value, null);
+	}
+	
+	/**
+	 * Deserializes a serialized object. Values written by a registered {@link ValueCodec} are decoded by the codec
+	 * named in the payload, any other value is read using the Java serialization.
+	 * The value is decoded while it is read from the String, without decoding all bytes up front.
 	 *
 	 * @param s the serialized object as a Base64 encoded string
 	 * @return the deserialized object
 	 * @throws IOException              if an I/O error occurs while deserializing
-	 * @throws ClassNotFoundException   if the class of the object to be deserialized is not found
+	 * @throws ClassNotFoundException   if the class of the object to be deserialized or the codec it was written with is not found
 	 * @throws IllegalArgumentException if the string is null or empty
 	 * @throws SecurityException        if a security manager exists and its checkPermission method denies permission to deserialize
 	 * @throws NullPointerException     if the string is null or empty
 	 */
 	protected static Object deserialize(String s) throws IOException, ClassNotFoundException, IllegalArgumentException, SecurityException, NullPointerException {
-		
-		if (s == null || s.isBlank())
-			throw new NullPointerException("Cannot deserialize null or empty String!");
-		
-		byte[] data = Base64.getDecoder().decode(s);
-		
-		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data));
-		
-		Object obj = ois.readObject();
-		ois.close();
-		
-		return obj;
-		
+		return EncodedValues.decode(s);
 	}
 	
 	/**
@@ -774,18 +1718,23 @@ public class Configuration {
 	 * @throws NullPointerException If the object passed is null.
 	 */
 	protected static String serialize(Serializable obj) throws IOException, SecurityException, NullPointerException {
-		
-		if (obj == null)
-			throw new NullPointerException("null cannot be serialized!");
-		
-		ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		ObjectOutputStream oos = new ObjectOutputStream(baos);
-		
-		oos.writeObject(obj);
-		oos.close();
-		
-		return Base64.getEncoder().encodeToString(baos.toByteArray());
-		
+		return serialize((Object) obj);
+	}
+	
+	/**
+	 * Serializes an object into a Base64 encoded string. If a {@link ValueCodec} is registered for the class of the object,
+	 * the codec is used and its id is written in front of the encoded value. Otherwise, the Java serialization is used.
+	 * The serialized bytes are Base64 encoded while they are written, without buffering them as a whole.
+	 *
+	 * @param obj The object to be serialized. Must either have a registered {@link ValueCodec} or implement the Serializable interface.
+	 * @return A Base64 encoded string representation of the serialized object.
+	 * @throws IOException          If an I/O error occurs while serializing the object or the object cannot be serialized.
+	 * @throws SecurityException    If a security violation occurs during serialization.
+	 * @throws NullPointerException If the object passed is null.
+	 * @since 2.2
+	 */
+	protected static String serialize(Object obj) throws IOException, SecurityException, NullPointerException {
+		return EncodedValues.encode(obj);
 	}
 	
 }
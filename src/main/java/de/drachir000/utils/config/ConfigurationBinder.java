@@ -0,0 +1,256 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds the values of a {@link Configuration} to a record or a plain object, see {@link Configuration#bind(Class)}.
+ * The binding plan - one key, one typed reader and one {@link MethodHandle} per component or field - is built once per class
+ * and cached, so binding a {@link Configuration} does not involve any reflective lookup.
+ *
+ * @param <T> the bound type
+ */
+final class ConfigurationBinder<T> {
+	
+	private static final ClassValue<ConfigurationBinder<?>> BINDERS = new ClassValue<>() {
+		@Override
+		protected ConfigurationBinder<?> computeValue(Class<?> type) {
+			return create(type);
+		}
+	};
+	
+	private final Class<T> type;
+	private final Slot[] slots;
+	/**
+	 * Records: the canonical constructor taking an Object[], POJOs: the no-arg constructor.
+	 */
+	private final MethodHandle constructor;
+	private final boolean record;
+	
+	private ConfigurationBinder(Class<T> type, Slot[] slots, MethodHandle constructor, boolean record) {
+		this.type = type;
+		this.slots = slots;
+		this.constructor = constructor;
+		this.record = record;
+	}
+	
+	@SuppressWarnings("unchecked")
+	static <T> ConfigurationBinder<T> of(Class<T> type) throws IllegalArgumentException {
+		return (ConfigurationBinder<T>) BINDERS.get(type);
+	}
+	
+	T bind(Configuration configuration) throws JSONException {
+		return record ? bindRecord(configuration) : bindObject(configuration);
+	}
+	
+	private T bindRecord(Configuration configuration) throws JSONException {
+		
+		Object[] arguments = new Object[slots.length];
+		for (int i = 0; i < slots.length; i++) {
+			Slot slot = slots[i];
+			arguments[i] = configuration.hasKey(slot.key) ? slot.reader.read(configuration, slot.key) : slot.defaultValue;
+		}
+		
+		try {
+			return type.cast((Object) constructor.invokeExact(arguments));
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new JSONException("Cannot construct " + type.getName() + "!", t);
+		}
+		
+	}
+	
+	private T bindObject(Configuration configuration) throws JSONException {
+		
+		Object instance;
+		try {
+			instance = (Object) constructor.invokeExact();
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new JSONException("Cannot construct " + type.getName() + "!", t);
+		}
+		
+		for (Slot slot : slots) {
+			
+			// Fields of missing keys keep their initial value
+			if (!configuration.hasKey(slot.key))
+				continue;
+			
+			Object value = slot.reader.read(configuration, slot.key);
+			try {
+				slot.setter.invokeExact(instance, value);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new JSONException("Cannot set " + type.getName() + "." + slot.key + "!", t);
+			}
+			
+		}
+		
+		return type.cast(instance);
+		
+	}
+	
+	private static <T> ConfigurationBinder<T> create(Class<T> type) throws IllegalArgumentException {
+		
+		if (type.isPrimitive() || type.isArray() || type.isInterface() || type.isEnum() || Modifier.isAbstract(type.getModifiers()))
+			throw new IllegalArgumentException(type.getName() + " cannot be bound, only records and classes with a no-arg constructor are supported!");
+		
+		try {
+			
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+			
+			if (type.isRecord()) {
+				
+				RecordComponent[] components = type.getRecordComponents();
+				Slot[] slots = new Slot[components.length];
+				Class<?>[] types = new Class<?>[components.length];
+				
+				for (int i = 0; i < components.length; i++) {
+					types[i] = components[i].getType();
+					slots[i] = new Slot(components[i].getName(), reader(type, components[i].getName(), types[i]), null, defaultValue(types[i]));
+				}
+				
+				MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class, types))
+						.asSpreader(Object[].class, types.length)
+						.asType(MethodType.methodType(Object.class, Object[].class));
+				
+				return new ConfigurationBinder<>(type, slots, constructor, true);
+				
+			}
+			
+			List<Slot> slots = new ArrayList<>();
+			for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+				
+				MethodHandles.Lookup fieldLookup = c == type ? lookup : MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+				
+				for (Field field : c.getDeclaredFields()) {
+					
+					int modifiers = field.getModifiers();
+					if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic())
+						continue;
+					
+					if (Modifier.isFinal(modifiers))
+						throw new IllegalArgumentException("The field " + c.getName() + "." + field.getName() + " is final and cannot be bound!");
+					
+					MethodHandle setter = fieldLookup.unreflectSetter(field)
+							.asType(MethodType.methodType(void.class, Object.class, Object.class));
+					slots.add(new Slot(field.getName(), reader(type, field.getName(), field.getType()), setter, null));
+					
+				}
+				
+			}
+			
+			MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class))
+					.asType(MethodType.methodType(Object.class));
+			
+			return new ConfigurationBinder<>(type, slots.toArray(new Slot[0]), constructor, false);
+			
+		} catch (ReflectiveOperationException | SecurityException e) {
+			throw new IllegalArgumentException(type.getName() + " cannot be bound, it must be accessible and have a no-arg constructor or be a record!", e);
+		}
+		
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Reader reader(Class<?> owner, String name, Class<?> type) throws IllegalArgumentException {
+		
+		if (type == int.class || type == Integer.class)
+			return Configuration::getInt;
+		if (type == long.class || type == Long.class)
+			return Configuration::getLong;
+		if (type == double.class || type == Double.class)
+			return Configuration::getDouble;
+		if (type == float.class || type == Float.class)
+			return Configuration::getFloat;
+		if (type == boolean.class || type == Boolean.class)
+			return Configuration::getBoolean;
+		if (type == byte.class || type == Byte.class)
+			return Configuration::getByte;
+		if (type == short.class || type == Short.class)
+			return Configuration::getShort;
+		if (type == char.class || type == Character.class)
+			return Configuration::getChar;
+		if (type == String.class)
+			return Configuration::getString;
+		if (type == Object.class)
+			return Configuration::get;
+		if (type == Configuration.class)
+			return Configuration::getConfiguration;
+		if (type == JSONArray.class)
+			return Configuration::getJSONArray;
+		if (type == int[].class)
+			return Configuration::getIntArray;
+		if (type == long[].class)
+			return Configuration::getLongArray;
+		if (type == double[].class)
+			return Configuration::getDoubleArray;
+		if (type.isEnum()) {
+			Class<? extends Enum> enumType = (Class<? extends Enum>) type;
+			return (configuration, key) -> configuration.getEnum(enumType, key);
+		}
+		
+		if (type.isPrimitive() || type.isArray() || type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+			throw new IllegalArgumentException("Unsupported type " + type.getName() + " of " + owner.getName() + "." + name + "!");
+		
+		// Nested records and objects are bound from the nested Configuration, their binder is resolved on first use
+		return (configuration, key) -> configuration.getConfiguration(key).bind(type);
+		
+	}
+	
+	private static Object defaultValue(Class<?> type) {
+		
+		if (!type.isPrimitive())
+			return null;
+		
+		if (type == boolean.class)
+			return false;
+		if (type == char.class)
+			return '\0';
+		if (type == byte.class)
+			return (byte) 0;
+		if (type == short.class)
+			return (short) 0;
+		if (type == int.class)
+			return 0;
+		if (type == long.class)
+			return 0L;
+		if (type == float.class)
+			return 0f;
+		
+		return 0d;
+		
+	}
+	
+	private interface Reader {
+		Object read(Configuration configuration, String key) throws JSONException;
+	}
+	
+	private static final class Slot {
+		
+		final String key;
+		final Reader reader;
+		final MethodHandle setter;
+		final Object defaultValue;
+		
+		private Slot(String key, Reader reader, MethodHandle setter, Object defaultValue) {
+			this.key = key;
+			this.reader = reader;
+			this.setter = setter;
+			this.defaultValue = defaultValue;
+		}
+		
+	}
+	
+}
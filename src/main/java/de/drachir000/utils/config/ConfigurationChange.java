@@ -0,0 +1,189 @@
+package de.drachir000.utils.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Describes the changes of a single modification of a {@link Configuration}: one setter call or one whole
+ * {@link Configuration#update(java.util.function.Consumer)} transaction. Keys which were set to the value they already had are not included.
+ * Changes of nested {@link Configuration}s are reported to their parents with the path of the key, e.g. {@code db.pool.size}.
+ *
+ * @see Configuration#addChangeListener(java.util.function.Consumer)
+ * @since 2.2
+ */
+public final class ConfigurationChange {
+	
+	static final ConfigurationChange EMPTY = new ConfigurationChange(Collections.emptyMap(), Collections.emptyMap());
+	
+	private final Map<String, Object> oldValues;
+	private final Map<String, Object> newValues;
+	
+	private ConfigurationChange(Map<String, Object> oldValues, Map<String, Object> newValues) {
+		this.oldValues = oldValues;
+		this.newValues = newValues;
+	}
+	
+	static ConfigurationChange of(String key, Object oldValue, Object newValue) {
+		
+		if (Objects.equals(oldValue, newValue))
+			return EMPTY;
+		
+		Map<String, Object> oldValues = new LinkedHashMap<>(2);
+		Map<String, Object> newValues = new LinkedHashMap<>(2);
+		oldValues.put(key, oldValue);
+		newValues.put(key, newValue);
+		
+		return new ConfigurationChange(oldValues, newValues);
+		
+	}
+	
+	static ConfigurationChange of(Map<String, Object> oldValues, Map<String, Object> newValues) {
+		
+		Map<String, Object> changedOld = new LinkedHashMap<>();
+		Map<String, Object> changedNew = new LinkedHashMap<>();
+		
+		for (Map.Entry<String, Object> entry : newValues.entrySet()) {
+			Object oldValue = oldValues.get(entry.getKey());
+			if (!Objects.equals(oldValue, entry.getValue())) {
+				changedOld.put(entry.getKey(), oldValue);
+				changedNew.put(entry.getKey(), entry.getValue());
+			}
+		}
+		
+		return changedNew.isEmpty() ? EMPTY : new ConfigurationChange(changedOld, changedNew);
+		
+	}
+	
+	/**
+	 * Combines this change with a later one: keys changed by both keep the old value of this change and get the new value of the later one.
+	 */
+	ConfigurationChange merge(ConfigurationChange later) {
+		
+		if (isEmpty())
+			return later;
+		if (later.isEmpty())
+			return this;
+		
+		Map<String, Object> mergedOld = new LinkedHashMap<>(oldValues);
+		Map<String, Object> mergedNew = new LinkedHashMap<>(newValues);
+		
+		for (Map.Entry<String, Object> entry : later.newValues.entrySet()) {
+			if (!mergedOld.containsKey(entry.getKey()))
+				mergedOld.put(entry.getKey(), later.oldValues.get(entry.getKey()));
+			mergedNew.put(entry.getKey(), entry.getValue());
+		}
+		
+		return new ConfigurationChange(mergedOld, mergedNew);
+		
+	}
+	
+	/**
+	 * Describes this change as seen from a parent {@link Configuration}, which holds the changed {@link Configuration} at the given key.
+	 */
+	ConfigurationChange prefixed(String key) {
+		
+		Map<String, Object> prefixedOld = new LinkedHashMap<>();
+		Map<String, Object> prefixedNew = new LinkedHashMap<>();
+		
+		for (Map.Entry<String, Object> entry : newValues.entrySet()) {
+			String path = key + "." + entry.getKey();
+			prefixedOld.put(path, oldValues.get(entry.getKey()));
+			prefixedNew.put(path, entry.getValue());
+		}
+		
+		return new ConfigurationChange(prefixedOld, prefixedNew);
+		
+	}
+	
+	/**
+	 * Describes the part of this change affecting a path: changes of the path itself, of keys below it and of keys above it,
+	 * since replacing a parent replaces the path as well.
+	 *
+	 * @param path a dotted path, an empty {@link String} for the whole {@link Configuration}
+	 */
+	ConfigurationChange restrictedTo(String path) {
+		
+		if (path.isEmpty())
+			return this;
+		
+		Map<String, Object> restrictedOld = null;
+		Map<String, Object> restrictedNew = null;
+		
+		for (Map.Entry<String, Object> entry : newValues.entrySet()) {
+			
+			String key = entry.getKey();
+			if (!isRelated(key, path))
+				continue;
+			
+			if (restrictedNew == null) {
+				restrictedOld = new LinkedHashMap<>();
+				restrictedNew = new LinkedHashMap<>();
+			}
+			restrictedOld.put(key, oldValues.get(key));
+			restrictedNew.put(key, entry.getValue());
+			
+		}
+		
+		if (restrictedNew == null)
+			return EMPTY;
+		return restrictedNew.size() == newValues.size() ? this : new ConfigurationChange(restrictedOld, restrictedNew);
+		
+	}
+	
+	private static boolean isRelated(String key, String path) {
+		if (key.length() == path.length())
+			return key.equals(path);
+		if (key.length() > path.length())
+			return key.startsWith(path) && key.charAt(path.length()) == '.';
+		return path.startsWith(key) && path.charAt(key.length()) == '.';
+	}
+	
+	/**
+	 * @return the changed keys, in the order they were changed
+	 */
+	public Set<String> getKeys() {
+		return Collections.unmodifiableSet(newValues.keySet());
+	}
+	
+	/**
+	 * Determine if a key was changed.
+	 *
+	 * @param key A key string.
+	 * @return true if the key was changed
+	 */
+	public boolean contains(String key) {
+		return newValues.containsKey(key);
+	}
+	
+	/**
+	 * @param key A key string.
+	 * @return the value assigned to the key before the change, null if the key wasn't set or wasn't changed
+	 */
+	public Object getOldValue(String key) {
+		return oldValues.get(key);
+	}
+	
+	/**
+	 * @param key A key string.
+	 * @return the value assigned to the key after the change, null if the key was removed or wasn't changed
+	 */
+	public Object getNewValue(String key) {
+		return newValues.get(key);
+	}
+	
+	/**
+	 * @return true if nothing was changed
+	 */
+	public boolean isEmpty() {
+		return newValues.isEmpty();
+	}
+	
+	@Override
+	public String toString() {
+		return "ConfigurationChange" + getKeys();
+	}
+	
+}
@@ -0,0 +1,146 @@
+package de.drachir000.utils.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The JDK Flight Recorder events of the SimpleConfigLib. Every event records its duration.
+ * The events are created on every call, but their fields are only computed and committed
+ * if a recording has enabled them ({@link Event#shouldCommit()}), so they are cheap enough to stay in place.
+ */
+final class ConfigurationEvents {
+	
+	private static final String CATEGORY = "SimpleConfigLib";
+	
+	private ConfigurationEvents() {
+	}
+	
+	@Name("de.drachir000.config.Load")
+	@Label("Configuration Load")
+	@Description("A configuration file was read and parsed")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class Load extends Event {
+		
+		@Label("Path")
+		String path;
+		
+		@Label("Size")
+		@DataAmount
+		long bytes;
+		
+		@Label("Keys")
+		@Description("The number of top-level keys")
+		int keys;
+		
+		@Label("Locked")
+		boolean locked;
+		
+	}
+	
+	@Name("de.drachir000.config.Save")
+	@Label("Configuration Save")
+	@Description("A configuration was written to a file")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class Save extends Event {
+		
+		@Label("Path")
+		String path;
+		
+		@Label("Size")
+		@DataAmount
+		long bytes;
+		
+		@Label("Keys")
+		@Description("The number of top-level keys")
+		int keys;
+		
+		@Label("Locked")
+		boolean locked;
+		
+	}
+	
+	@Name("de.drachir000.config.Parse")
+	@Label("Configuration Parse")
+	@Description("A JSON text was parsed into a configuration")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class Parse extends Event {
+		
+		@Label("Size")
+		@Description("The number of characters parsed")
+		@DataAmount
+		long bytes;
+		
+		@Label("Keys")
+		@Description("The number of top-level keys")
+		int keys;
+		
+	}
+	
+	@Name("de.drachir000.config.Encode")
+	@Label("Value Encode")
+	@Description("A value was serialized and Base64 encoded")
+	@Category(CATEGORY)
+	static final class Encode extends Event {
+		
+		@Label("Value Class")
+		String valueClass;
+		
+		@Label("Codec")
+		@Description("The id of the ValueCodec, or empty for the Java serialization")
+		String codec;
+		
+		@Label("Size")
+		@Description("The number of Base64 characters")
+		@DataAmount
+		long bytes;
+		
+	}
+	
+	@Name("de.drachir000.config.Decode")
+	@Label("Value Decode")
+	@Description("A Base64 encoded value was deserialized")
+	@Category(CATEGORY)
+	static final class Decode extends Event {
+		
+		@Label("Value Class")
+		String valueClass;
+		
+		@Label("Codec")
+		@Description("The id of the ValueCodec, or empty for the Java serialization")
+		String codec;
+		
+		@Label("Size")
+		@Description("The number of Base64 characters")
+		@DataAmount
+		long bytes;
+		
+	}
+	
+	@Name("de.drachir000.config.Reload")
+	@Label("Configuration Reload")
+	@Description("A ConfigHandle reloaded its file and published a new version")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class Reload extends Event {
+		
+		@Label("Path")
+		String path;
+		
+		@Label("Version")
+		long version;
+		
+		@Label("Keys")
+		@Description("The number of top-level keys")
+		int keys;
+		
+	}
+	
+}
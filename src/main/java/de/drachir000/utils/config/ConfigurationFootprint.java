@@ -0,0 +1,323 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An estimate of the heap retained by a {@link Configuration}, broken down by value type and by nested {@link Configuration}.
+ * The sizes are computed from the layout of a 64-bit JVM with compressed references and 8-byte alignment,
+ * so they are an approximation: the capacity of hash tables and lists is derived from their size,
+ * strings shared between configurations (e.g. pooled keys) are counted for every occurrence
+ * and values of unknown classes are counted as an empty object.
+ * <p>
+ * The footprint of an {@link OffHeapConfiguration} describes its buffer outside the heap instead, it is exact.
+ *
+ * @see Configuration#footprint()
+ * @see Configuration#estimateRetainedSize()
+ * @since 2.2
+ */
+public final class ConfigurationFootprint {
+	
+	private static final int HEADER = 12;
+	private static final int REFERENCE = 4;
+	private static final int ARRAY_HEADER = 16;
+	
+	private static final long JSON_OBJECT = align(HEADER + REFERENCE);
+	private static final long HASH_MAP = align(HEADER + REFERENCE * 3 + 4 * 4);
+	private static final long HASH_MAP_NODE = align(HEADER + 4 + REFERENCE * 3);
+	private static final long JSON_ARRAY = align(HEADER + REFERENCE);
+	private static final long ARRAY_LIST = align(HEADER + 4 + 4 + REFERENCE);
+	private static final long STRING = align(HEADER + 4 + 1 + 1 + REFERENCE);
+	private static final long BOXED_INT = align(HEADER + 4);
+	private static final long BOXED_LONG = align(HEADER + 8);
+	private static final long BIG_INTEGER = align(HEADER + 4 * 5 + REFERENCE);
+	private static final long BIG_DECIMAL = align(HEADER + 8 + 4 * 2 + REFERENCE * 2);
+	private static final long OBJECT = align(HEADER);
+	
+	/**
+	 * The categories of the heap retained by a {@link Configuration}.
+	 */
+	public enum Category {
+		
+		/**
+		 * The {@link JSONObject}s, their hash tables and entries
+		 */
+		STRUCTURE,
+		/**
+		 * The key strings
+		 */
+		KEY,
+		/**
+		 * String values, except encoded values
+		 */
+		STRING,
+		/**
+		 * Base64 encoded strings, e.g. loaded values written by {@link Configuration#setEncoded(String, Object)}
+		 */
+		ENCODED,
+		/**
+		 * Boxed numbers
+		 */
+		NUMBER,
+		/**
+		 * {@link JSONArray}s and their backing lists, without their elements
+		 */
+		ARRAY,
+		/**
+		 * Primitive arrays, see {@link Configuration#setIntArray(String, int[])}
+		 */
+		PRIMITIVE_ARRAY,
+		/**
+		 * Other values like booleans, enums and objects of unknown classes
+		 */
+		OTHER
+		
+	}
+	
+	private final long[] bytes = new long[Category.values().length];
+	private final Map<String, Long> subtrees = new LinkedHashMap<>();
+	
+	private ConfigurationFootprint() {
+	}
+	
+	/**
+	 * Estimates the retained size of a {@link JSONObject} tree without allocating any intermediate objects.
+	 */
+	static long estimate(JSONObject object) {
+		return objectSize(object, null, null);
+	}
+	
+	/**
+	 * Estimates the retained size of a {@link JSONObject} tree and builds the breakdown.
+	 */
+	static ConfigurationFootprint of(JSONObject object) {
+		ConfigurationFootprint footprint = new ConfigurationFootprint();
+		footprint.subtrees.put("", 0L);
+		footprint.subtrees.put("", objectSize(object, "", footprint));
+		return footprint;
+	}
+	
+	/**
+	 * Creates an empty breakdown, for {@link Configuration}s which compute their sizes themselves.
+	 */
+	static ConfigurationFootprint empty() {
+		return new ConfigurationFootprint();
+	}
+	
+	void add(Category category, long size) {
+		bytes[category.ordinal()] += size;
+	}
+	
+	void putSubtree(String path, long size) {
+		subtrees.put(path, size);
+	}
+	
+	/**
+	 * @return the estimated total number of bytes
+	 */
+	public long getTotalBytes() {
+		long total = 0;
+		for (long b : bytes) {
+			total += b;
+		}
+		return total;
+	}
+	
+	/**
+	 * @param category a category
+	 * @return the estimated number of bytes in the category
+	 */
+	public long getBytes(Category category) {
+		return bytes[category.ordinal()];
+	}
+	
+	/**
+	 * @return the estimated number of bytes per category
+	 */
+	public Map<Category, Long> getBytesByCategory() {
+		Map<Category, Long> result = new EnumMap<>(Category.class);
+		for (Category category : Category.values()) {
+			result.put(category, bytes[category.ordinal()]);
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the share of the total size taken by Base64 encoded values, between 0 and 1
+	 */
+	public double getEncodedShare() {
+		long total = getTotalBytes();
+		return total == 0 ? 0 : (double) getBytes(Category.ENCODED) / total;
+	}
+	
+	/**
+	 * Returns the estimated size of every nested {@link Configuration}, including everything nested in it.
+	 * The root is mapped to the empty path, nested configurations to their dotted path, e.g. {@code "database.pool"}.
+	 * Objects nested in arrays are counted in the subtree containing the array.
+	 *
+	 * @return the estimated number of bytes per path, in the order of the tree walk
+	 */
+	public Map<String, Long> getSubtreeBytes() {
+		return Collections.unmodifiableMap(subtrees);
+	}
+	
+	@Override
+	public String toString() {
+		
+		StringBuilder builder = new StringBuilder();
+		long total = getTotalBytes();
+		
+		builder.append("Estimated retained size: ").append(total).append(" bytes").append(System.lineSeparator());
+		for (Category category : Category.values()) {
+			long b = bytes[category.ordinal()];
+			if (b == 0)
+				continue;
+			builder.append(String.format("  %-16s %12d bytes %6.1f%%%n", category, b, 100.0 * b / total));
+		}
+		
+		builder.append("Subtrees:").append(System.lineSeparator());
+		for (Map.Entry<String, Long> entry : subtrees.entrySet()) {
+			builder.append(String.format("  %-40s %12d bytes%n", entry.getKey().isEmpty() ? "<root>" : entry.getKey(), entry.getValue()));
+		}
+		
+		return builder.toString();
+		
+	}
+	
+	/**
+	 * @param path      the path of the object to record the sizes of nested objects under, or null to not record them
+	 * @param footprint the footprint to add the sizes per category to, or null to only compute the total
+	 */
+	private static long objectSize(JSONObject object, String path, ConfigurationFootprint footprint) {
+		
+		int size = object.length();
+		long structure = JSON_OBJECT + HASH_MAP + (size == 0 ? 0 : align(ARRAY_HEADER + (long) REFERENCE * tableCapacity(size))) + HASH_MAP_NODE * size;
+		count(footprint, Category.STRUCTURE, structure);
+		
+		long total = structure;
+		for (String key : object.keySet()) {
+			
+			long keySize = stringSize(key);
+			count(footprint, Category.KEY, keySize);
+			
+			Object value = object.opt(key);
+			if (value instanceof JSONObject && path != null) {
+				String childPath = path.isEmpty() ? key : path + "." + key;
+				footprint.subtrees.put(childPath, 0L);
+				long childSize = objectSize((JSONObject) value, childPath, footprint);
+				footprint.subtrees.put(childPath, childSize);
+				total += keySize + childSize;
+			} else {
+				total += keySize + valueSize(value, footprint);
+			}
+			
+		}
+		
+		return total;
+		
+	}
+	
+	private static long arraySize(JSONArray array, ConfigurationFootprint footprint) {
+		
+		int length = array.length();
+		long structure = JSON_ARRAY + ARRAY_LIST + align(ARRAY_HEADER + (long) REFERENCE * length);
+		count(footprint, Category.ARRAY, structure);
+		
+		long total = structure;
+		for (int i = 0; i < length; i++) {
+			total += valueSize(array.opt(i), footprint);
+		}
+		
+		return total;
+		
+	}
+	
+	private static long valueSize(Object value, ConfigurationFootprint footprint) {
+		
+		if (value instanceof JSONObject)
+			return objectSize((JSONObject) value, null, footprint);
+		if (value instanceof JSONArray)
+			return arraySize((JSONArray) value, footprint);
+		
+		long size;
+		Category category;
+		
+		if (value instanceof String) {
+			size = stringSize((String) value);
+			category = isEncoded((String) value) ? Category.ENCODED : Category.STRING;
+		} else if (value instanceof Integer || value instanceof Float || value instanceof Short || value instanceof Byte) {
+			size = BOXED_INT;
+			category = Category.NUMBER;
+		} else if (value instanceof Long || value instanceof Double) {
+			size = BOXED_LONG;
+			category = Category.NUMBER;
+		} else if (value instanceof BigInteger) {
+			size = BIG_INTEGER + align(ARRAY_HEADER + ((BigInteger) value).bitLength() / 8 + 4);
+			category = Category.NUMBER;
+		} else if (value instanceof BigDecimal) {
+			size = BIG_DECIMAL;
+			category = Category.NUMBER;
+		} else if (value instanceof int[]) {
+			size = align(ARRAY_HEADER + 4L * ((int[]) value).length);
+			category = Category.PRIMITIVE_ARRAY;
+		} else if (value instanceof long[]) {
+			size = align(ARRAY_HEADER + 8L * ((long[]) value).length);
+			category = Category.PRIMITIVE_ARRAY;
+		} else if (value instanceof double[]) {
+			size = align(ARRAY_HEADER + 8L * ((double[]) value).length);
+			category = Category.PRIMITIVE_ARRAY;
+		} else if (value instanceof Boolean || value instanceof Enum || value == JSONObject.NULL) {
+			// Shared instances
+			size = 0;
+			category = Category.OTHER;
+		} else {
+			size = OBJECT;
+			category = Category.OTHER;
+		}
+		
+		count(footprint, category, size);
+		return size;
+		
+	}
+	
+	private static void count(ConfigurationFootprint footprint, Category category, long size) {
+		if (footprint != null)
+			footprint.bytes[category.ordinal()] += size;
+	}
+	
+	/**
+	 * Encoded values start with the Base64 encoded Java serialization stream magic ({@code 0xACED} - "rO0")
+	 * or the magic of values encoded by a {@link ValueCodec} ({@code 0xC0DE} - "wN4").
+	 */
+	static boolean isEncoded(String value) {
+		return value.length() >= 8 && (value.startsWith("rO0") || value.startsWith("wN4"));
+	}
+	
+	private static long stringSize(String string) {
+		
+		boolean latin1 = true;
+		for (int i = 0; i < string.length() && latin1; i++) {
+			latin1 = string.charAt(i) < 256;
+		}
+		
+		return STRING + align(ARRAY_HEADER + (long) string.length() * (latin1 ? 1 : 2));
+		
+	}
+	
+	private static int tableCapacity(int size) {
+		int capacity = Integer.highestOneBit(Math.max(1, (int) Math.ceil(size / 0.75)) - 1) << 1;
+		return Math.max(16, capacity);
+	}
+	
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+	
+}
@@ -0,0 +1,474 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A ConfigurationSchema describes the keys a {@link Configuration} is expected to contain: whether they are required,
+ * the type and range of their values and the schemas of nested {@link Configuration}s.
+ * A schema is declared once with a {@link Builder}, compiled into a flat list of checks, and can then validate any number
+ * of {@link Configuration}s. Validation never throws, all violations are collected and returned.
+ *
+ * <pre>{@code
+ * ConfigurationSchema schema = ConfigurationSchema.builder()
+ *         .required("host", ConfigurationSchema.Type.STRING)
+ *         .required("port", ConfigurationSchema.Type.INT, 1, 65535)
+ *         .optional("pool", poolSchema)
+ *         .build();
+ *
+ * List<ConfigurationSchema.Violation> violations = schema.validate(configuration);
+ * }</pre>
+ *
+ * @since 2.2
+ */
+public final class ConfigurationSchema {
+	
+	private final Rule[] rules;
+	private final Set<String> knownKeys;
+	private final boolean strict;
+	
+	private ConfigurationSchema(Rule[] rules, boolean strict) {
+		this.rules = rules;
+		this.strict = strict;
+		Set<String> keys = new HashSet<>();
+		for (Rule rule : rules) {
+			keys.add(rule.key);
+		}
+		this.knownKeys = keys;
+	}
+	
+	/**
+	 * Creates a new {@link Builder} for a schema.
+	 *
+	 * @return a new {@link Builder}
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+	
+	/**
+	 * Validates a {@link Configuration} against this schema.
+	 *
+	 * @param configuration the {@link Configuration} to validate
+	 * @return all violations found, an empty list if the {@link Configuration} is valid
+	 */
+	public List<Violation> validate(Configuration configuration) {
+		List<Violation> violations = new ArrayList<>(0);
+		validate(configuration.toJsonObject(), null, violations);
+		return violations;
+	}
+	
+	/**
+	 * Determines whether a {@link Configuration} is valid according to this schema.
+	 *
+	 * @param configuration the {@link Configuration} to validate
+	 * @return true if there are no violations
+	 */
+	public boolean isValid(Configuration configuration) {
+		return validate(configuration).isEmpty();
+	}
+	
+	private void validate(JSONObject object, String path, List<Violation> violations) {
+		
+		int present = 0;
+		
+		for (Rule rule : rules) {
+			
+			Object value = object.opt(rule.key);
+			
+			if (value == null || value == JSONObject.NULL) {
+				if (rule.required)
+					violations.add(new Violation(path(path, rule.key), Violation.Kind.MISSING, "is required"));
+				continue;
+			}
+			
+			present++;
+			rule.check(value, path(path, rule.key), violations);
+			
+		}
+		
+		// Only look for unknown keys if there are more keys than the ones known to the schema
+		if (strict && object.length() > present) {
+			for (String key : object.keySet()) {
+				if (!knownKeys.contains(key))
+					violations.add(new Violation(path(path, key), Violation.Kind.UNKNOWN_KEY, "is not part of the schema"));
+			}
+		}
+		
+	}
+	
+	private static String path(String parent, String key) {
+		return parent == null ? key : parent + "." + key;
+	}
+	
+	/**
+	 * The value types a schema can require.
+	 */
+	public enum Type {
+		
+		/**
+		 * A {@link String}, see {@link Configuration#getString(String)}
+		 */
+		STRING,
+		/**
+		 * A number or numeric {@link String} without fraction that fits into an int, see {@link Configuration#getInt(String)}
+		 */
+		INT,
+		/**
+		 * A number or numeric {@link String} without fraction that fits into a long, see {@link Configuration#getLong(String)}
+		 */
+		LONG,
+		/**
+		 * Any number or numeric {@link String}, see {@link Configuration#getDouble(String)}
+		 */
+		DOUBLE,
+		/**
+		 * A {@link Boolean} or the {@link String} "true" or "false", see {@link Configuration#getBoolean(String)}
+		 */
+		BOOLEAN,
+		/**
+		 * A nested {@link Configuration}, see {@link Configuration#getConfiguration(String)}
+		 */
+		CONFIGURATION,
+		/**
+		 * A {@link JSONArray} or a primitive array, see {@link Configuration#getJSONArray(String)}
+		 */
+		ARRAY,
+		/**
+		 * Any value
+		 */
+		ANY
+		
+	}
+	
+	/**
+	 * A single violation of a schema.
+	 */
+	public static final class Violation {
+		
+		/**
+		 * The kinds of violations.
+		 */
+		public enum Kind {
+			MISSING,
+			WRONG_TYPE,
+			OUT_OF_RANGE,
+			UNKNOWN_KEY
+		}
+		
+		private final String path;
+		private final Kind kind;
+		private final String message;
+		
+		private Violation(String path, Kind kind, String message) {
+			this.path = path;
+			this.kind = kind;
+			this.message = message;
+		}
+		
+		/**
+		 * @return the key of the violating value. Keys of nested {@link Configuration}s are prefixed with the keys of their parents, separated by dots.
+		 */
+		public String getPath() {
+			return path;
+		}
+		
+		/**
+		 * @return the kind of this violation
+		 */
+		public Kind getKind() {
+			return kind;
+		}
+		
+		/**
+		 * @return a human-readable description of this violation
+		 */
+		public String getMessage() {
+			return message;
+		}
+		
+		@Override
+		public String toString() {
+			return path + " " + message;
+		}
+		
+	}
+	
+	/**
+	 * Declares the keys of a {@link ConfigurationSchema}.
+	 */
+	public static final class Builder {
+		
+		private final Map<String, Rule> rules = new LinkedHashMap<>();
+		private boolean strict;
+		
+		private Builder() {
+		}
+		
+		/**
+		 * Declares a required key.
+		 *
+		 * @param key  the key
+		 * @param type the type of the value
+		 * @return this {@link Builder}
+		 */
+		public Builder required(String key, Type type) {
+			return add(new Rule(key, true, type, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, null));
+		}
+		
+		/**
+		 * Declares a required numeric key with a range.
+		 *
+		 * @param key  the key
+		 * @param type the numeric type of the value
+		 * @param min  the smallest allowed value (inclusive)
+		 * @param max  the largest allowed value (inclusive)
+		 * @return this {@link Builder}
+		 * @throws IllegalArgumentException if the type is not numeric or min is greater than max
+		 */
+		public Builder required(String key, Type type, double min, double max) throws IllegalArgumentException {
+			return add(new Rule(key, true, numeric(type, min, max), min, max, null));
+		}
+		
+		/**
+		 * Declares a required nested {@link Configuration}.
+		 *
+		 * @param key    the key
+		 * @param schema the schema of the nested {@link Configuration}
+		 * @return this {@link Builder}
+		 */
+		public Builder required(String key, ConfigurationSchema schema) {
+			return add(new Rule(key, true, Type.CONFIGURATION, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, schema));
+		}
+		
+		/**
+		 * Declares an optional key. If present, its value must match the type.
+		 *
+		 * @param key  the key
+		 * @param type the type of the value
+		 * @return this {@link Builder}
+		 */
+		public Builder optional(String key, Type type) {
+			return add(new Rule(key, false, type, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, null));
+		}
+		
+		/**
+		 * Declares an optional numeric key with a range. If present, its value must match the type and range.
+		 *
+		 * @param key  the key
+		 * @param type the numeric type of the value
+		 * @param min  the smallest allowed value (inclusive)
+		 * @param max  the largest allowed value (inclusive)
+		 * @return this {@link Builder}
+		 * @throws IllegalArgumentException if the type is not numeric or min is greater than max
+		 */
+		public Builder optional(String key, Type type, double min, double max) throws IllegalArgumentException {
+			return add(new Rule(key, false, numeric(type, min, max), min, max, null));
+		}
+		
+		/**
+		 * Declares an optional nested {@link Configuration}. If present, it must match the schema.
+		 *
+		 * @param key    the key
+		 * @param schema the schema of the nested {@link Configuration}
+		 * @return this {@link Builder}
+		 */
+		public Builder optional(String key, ConfigurationSchema schema) {
+			return add(new Rule(key, false, Type.CONFIGURATION, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, schema));
+		}
+		
+		/**
+		 * Reports keys which are not declared in the schema as violations.
+		 *
+		 * @return this {@link Builder}
+		 */
+		public Builder strict() {
+			this.strict = true;
+			return this;
+		}
+		
+		/**
+		 * Compiles the declared keys into a {@link ConfigurationSchema}.
+		 *
+		 * @return the {@link ConfigurationSchema}
+		 */
+		public ConfigurationSchema build() {
+			return new ConfigurationSchema(rules.values().toArray(new Rule[0]), strict);
+		}
+		
+		private Builder add(Rule rule) {
+			if (rule.key == null)
+				throw new NullPointerException("The key must not be null!");
+			rules.put(rule.key, rule);
+			return this;
+		}
+		
+		private static Type numeric(Type type, double min, double max) throws IllegalArgumentException {
+			if (type != Type.INT && type != Type.LONG && type != Type.DOUBLE)
+				throw new IllegalArgumentException("Ranges are only supported for numeric types, not " + type + "!");
+			if (min > max)
+				throw new IllegalArgumentException("min (" + min + ") must not be greater than max (" + max + ")!");
+			return type;
+		}
+		
+	}
+	
+	private static final class Rule {
+		
+		final String key;
+		final boolean required;
+		final Type type;
+		final double min;
+		final double max;
+		final ConfigurationSchema nested;
+		
+		private Rule(String key, boolean required, Type type, double min, double max, ConfigurationSchema nested) {
+			this.key = key;
+			this.required = required;
+			this.type = type;
+			this.min = min;
+			this.max = max;
+			this.nested = nested;
+		}
+		
+		void check(Object value, String path, List<Violation> violations) {
+			switch (type) {
+				case STRING:
+					if (!(value instanceof String))
+						wrongType(value, path, violations);
+					break;
+				case INT:
+				case LONG:
+				case DOUBLE:
+					checkNumber(value, path, violations);
+					break;
+				case BOOLEAN:
+					if (!(value instanceof Boolean || "true".equalsIgnoreCase(value.toString()) || "false".equalsIgnoreCase(value.toString())))
+						wrongType(value, path, violations);
+					break;
+				case CONFIGURATION:
+					if (!(value instanceof JSONObject))
+						wrongType(value, path, violations);
+					else if (nested != null)
+						nested.validate((JSONObject) value, path, violations);
+					break;
+				case ARRAY:
+					if (!(value instanceof JSONArray) && !Configuration.isPrimitiveArray(value))
+						wrongType(value, path, violations);
+					break;
+				case ANY:
+					break;
+			}
+		}
+		
+		private void checkNumber(Object value, String path, List<Violation> violations) {
+			
+			double number;
+			
+			if (value instanceof Number) {
+				number = ((Number) value).doubleValue();
+				if (type != Type.DOUBLE && !isIntegral(value, number)) {
+					wrongType(value, path, violations);
+					return;
+				}
+			} else if (value instanceof String && (type == Type.DOUBLE ? isDecimal((String) value) : isInteger((String) value))) {
+				number = Double.parseDouble((String) value);
+			} else {
+				wrongType(value, path, violations);
+				return;
+			}
+			
+			if (type != Type.DOUBLE && toBigInteger(value).bitLength() > (type == Type.INT ? 31 : 63)) {
+				violations.add(new Violation(path, Violation.Kind.OUT_OF_RANGE, "does not fit into " + (type == Type.INT ? "an int" : "a long") + " (" + value + ")"));
+			} else if (number < min || number > max || Double.isNaN(number)) {
+				violations.add(new Violation(path, Violation.Kind.OUT_OF_RANGE, "must be between " + min + " and " + max + " (" + value + ")"));
+			}
+			
+		}
+		
+		private void wrongType(Object value, String path, List<Violation> violations) {
+			violations.add(new Violation(path, Violation.Kind.WRONG_TYPE, "is not a " + type + " (" + value.getClass().getSimpleName() + ")"));
+		}
+		
+		private static boolean isIntegral(Object value, double number) {
+			if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte || value instanceof BigInteger)
+				return true;
+			if (value instanceof BigDecimal)
+				return ((BigDecimal) value).stripTrailingZeros().scale() <= 0;
+			return !Double.isInfinite(number) && number == Math.rint(number);
+		}
+		
+		/**
+		 * @param value an integral {@link Number} or a {@link String} of digits
+		 */
+		private static BigInteger toBigInteger(Object value) {
+			if (value instanceof BigInteger)
+				return (BigInteger) value;
+			if (value instanceof BigDecimal)
+				return ((BigDecimal) value).toBigInteger();
+			if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+				return BigInteger.valueOf(((Number) value).longValue());
+			if (value instanceof Number)
+				return new BigDecimal(((Number) value).doubleValue()).toBigInteger();
+			return new BigInteger((String) value);
+		}
+		
+		private static boolean isInteger(String s) {
+			
+			int i = s.startsWith("-") || s.startsWith("+") ? 1 : 0;
+			if (i == s.length())
+				return false;
+			
+			for (; i < s.length(); i++) {
+				if (s.charAt(i) < '0' || s.charAt(i) > '9')
+					return false;
+			}
+			
+			return true;
+			
+		}
+		
+		private static boolean isDecimal(String s) {
+			
+			int i = s.startsWith("-") || s.startsWith("+") ? 1 : 0;
+			int digits = 0;
+			
+			for (; i < s.length() && Character.isDigit(s.charAt(i)); i++) {
+				digits++;
+			}
+			if (i < s.length() && s.charAt(i) == '.') {
+				for (i++; i < s.length() && Character.isDigit(s.charAt(i)); i++) {
+					digits++;
+				}
+			}
+			if (digits == 0)
+				return false;
+			
+			if (i < s.length() && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+				i++;
+				if (i < s.length() && (s.charAt(i) == '-' || s.charAt(i) == '+'))
+					i++;
+				int exponentDigits = 0;
+				for (; i < s.length() && Character.isDigit(s.charAt(i)); i++) {
+					exponentDigits++;
+				}
+				if (exponentDigits == 0)
+					return false;
+			}
+			
+			return i == s.length();
+			
+		}
+		
+	}
+	
+}
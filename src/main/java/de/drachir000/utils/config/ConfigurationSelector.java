@@ -0,0 +1,319 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A compiled selector matching values in the tree of a {@link Configuration}. Selectors are paths of steps:
+ * <ul>
+ *     <li>{@code name} - the key {@code name}, {@code ['a.b']} for keys containing dots or brackets</li>
+ *     <li>{@code *} - every key of an object and every element of an array</li>
+ *     <li>{@code **} - any number of levels, including none (recursive descent)</li>
+ *     <li>{@code [2]} - the element at an index of an array, {@code [-1]} counts from the end</li>
+ *     <li>{@code [*]} - every element of an array</li>
+ * </ul>
+ * For example {@code services.*.timeout} selects the timeouts of all services, {@code **.timeout} every timeout at any depth
+ * and {@code servers[0].host} the host of the first server.
+ * <p>
+ * A selector is compiled once and can be applied to any number of {@link Configuration}s. Applying it walks the tree once and hands the matches
+ * to a consumer as they are found, without collecting them first; only the branches the selector can match are visited.
+ *
+ * <pre>{@code
+ * ConfigurationSelector timeouts = ConfigurationSelector.compile("services.*.timeout");
+ * timeouts.forEach(configuration, (path, value) -> System.out.println(path + " = " + value));
+ * }</pre>
+ *
+ * @since 2.2
+ */
+public final class ConfigurationSelector {
+	
+	private final String expression;
+	private final Step[] steps;
+	
+	private ConfigurationSelector(String expression, Step[] steps) {
+		this.expression = expression;
+		this.steps = steps;
+	}
+	
+	/**
+	 * Compiles a selector.
+	 *
+	 * @param expression the selector, an empty {@link String} selects the {@link Configuration} itself
+	 * @return the compiled selector
+	 * @throws IllegalArgumentException if the selector is malformed
+	 */
+	public static ConfigurationSelector compile(String expression) throws IllegalArgumentException {
+		
+		List<Step> steps = new ArrayList<>();
+		int i = 0;
+		int length = expression.length();
+		
+		while (i < length) {
+			
+			char c = expression.charAt(i);
+			
+			if (c == '[') {
+				
+				int start = i + 1;
+				while (start < length && Character.isWhitespace(expression.charAt(start))) {
+					start++;
+				}
+				
+				int end;
+				if (start < length && (expression.charAt(start) == '\'' || expression.charAt(start) == '"')) {
+					
+					// A quoted key may contain brackets, so it ends at the closing quote, not at the first ']'
+					int close = expression.indexOf(expression.charAt(start), start + 1);
+					if (close < 0)
+						throw malformed(expression, start, "unclosed quote");
+					
+					end = close + 1;
+					while (end < length && Character.isWhitespace(expression.charAt(end))) {
+						end++;
+					}
+					if (end == length || expression.charAt(end) != ']')
+						throw malformed(expression, end, "expected ']' after the quoted key");
+					
+					steps.add(new Step(Step.KEY, expression.substring(start + 1, close), 0));
+					
+				} else {
+					
+					end = expression.indexOf(']', i);
+					if (end < 0)
+						throw malformed(expression, i, "unclosed '['");
+					
+					String content = expression.substring(i + 1, end).trim();
+					if (content.equals("*")) {
+						steps.add(new Step(Step.ANY_ELEMENT, null, 0));
+					} else {
+						try {
+							steps.add(new Step(Step.INDEX, null, Integer.parseInt(content)));
+						} catch (NumberFormatException e) {
+							throw malformed(expression, i, "invalid index '" + content + "'");
+						}
+					}
+					
+				}
+				
+				i = end + 1;
+				
+			} else {
+				
+				int end = i;
+				while (end < length && expression.charAt(end) != '.' && expression.charAt(end) != '[') {
+					end++;
+				}
+				
+				String name = expression.substring(i, end);
+				if (name.isEmpty())
+					throw malformed(expression, i, "empty key");
+				
+				if (name.equals("**")) {
+					// Consecutive descents match the same values as a single one
+					if (steps.isEmpty() || steps.get(steps.size() - 1).type != Step.DESCENT)
+						steps.add(new Step(Step.DESCENT, null, 0));
+				} else if (name.equals("*")) {
+					steps.add(new Step(Step.ANY, null, 0));
+				} else {
+					steps.add(new Step(Step.KEY, name, 0));
+				}
+				
+				i = end;
+				
+			}
+			
+			if (i < length && expression.charAt(i) == '.') {
+				i++;
+				if (i == length)
+					throw malformed(expression, i, "trailing '.'");
+			}
+			
+		}
+		
+		return new ConfigurationSelector(expression, steps.toArray(new Step[0]));
+		
+	}
+	
+	/**
+	 * Hand every match to a consumer, in the order of the tree.
+	 *
+	 * @param configuration the {@link Configuration} to search
+	 * @param consumer      receives the path of each match, e.g. {@code services.api.timeout} or {@code servers[0].host}, and its value.
+	 *                      Nested objects and arrays are passed as {@link JSONObject} and {@link JSONArray} and must not be modified.
+	 */
+	public void forEach(Configuration configuration, BiConsumer<String, Object> consumer) {
+		match(configuration.toJsonObject(), 0, new StringBuilder(), consumer);
+	}
+	
+	/**
+	 * Hand the value of every match to a consumer, in the order of the tree. Unlike {@link ConfigurationSelector#forEach(Configuration, BiConsumer)},
+	 * no paths are built.
+	 *
+	 * @param configuration the {@link Configuration} to search
+	 * @param consumer      receives the value of each match
+	 */
+	public void forEachValue(Configuration configuration, Consumer<Object> consumer) {
+		match(configuration.toJsonObject(), 0, null, (path, value) -> consumer.accept(value));
+	}
+	
+	/**
+	 * @param configuration the {@link Configuration} to search
+	 * @return the number of matches
+	 */
+	public int count(Configuration configuration) {
+		int[] count = new int[1];
+		match(configuration.toJsonObject(), 0, null, (path, value) -> count[0]++);
+		return count[0];
+	}
+	
+	/**
+	 * @return the expression this selector was compiled from
+	 */
+	@Override
+	public String toString() {
+		return expression;
+	}
+	
+	/**
+	 * Matches the steps from the given one on against a node of the tree.
+	 *
+	 * @param path the path of the node, null if no paths are needed. Restored to its previous length before returning.
+	 */
+	private void match(Object node, int step, StringBuilder path, BiConsumer<String, Object> consumer) {
+		
+		if (step == steps.length) {
+			consumer.accept(path == null ? null : path.toString(), node);
+			return;
+		}
+		
+		Step s = steps[step];
+		switch (s.type) {
+			case Step.KEY:
+				if (node instanceof JSONObject)
+					matchKey((JSONObject) node, s.key, step + 1, path, consumer);
+				break;
+			case Step.INDEX:
+				int length = length(node);
+				int index = s.index < 0 ? length + s.index : s.index;
+				if (index >= 0 && index < length)
+					matchElement(node, index, step + 1, path, consumer);
+				break;
+			case Step.ANY:
+				matchChildren(node, step + 1, path, consumer);
+				break;
+			case Step.ANY_ELEMENT:
+				if (!(node instanceof JSONObject))
+					matchChildren(node, step + 1, path, consumer);
+				break;
+			case Step.DESCENT:
+				match(node, step + 1, path, consumer);
+				matchChildren(node, step, path, consumer);
+				break;
+			default:
+				throw new IllegalStateException("Unexpected step " + s.type);
+		}
+		
+	}
+	
+	private void matchChildren(Object node, int step, StringBuilder path, BiConsumer<String, Object> consumer) {
+		if (node instanceof JSONObject) {
+			JSONObject object = (JSONObject) node;
+			for (String key : object.keySet()) {
+				matchKey(object, key, step, path, consumer);
+			}
+		} else {
+			int length = length(node);
+			for (int i = 0; i < length; i++) {
+				matchElement(node, i, step, path, consumer);
+			}
+		}
+	}
+	
+	private void matchKey(JSONObject object, String key, int step, StringBuilder path, BiConsumer<String, Object> consumer) {
+		
+		Object value = object.opt(key);
+		if (value == null)
+			return;
+		
+		if (path == null) {
+			match(value, step, null, consumer);
+			return;
+		}
+		
+		int mark = path.length();
+		if (mark > 0)
+			path.append('.');
+		path.append(key);
+		match(value, step, path, consumer);
+		path.setLength(mark);
+		
+	}
+	
+	private void matchElement(Object array, int index, int step, StringBuilder path, BiConsumer<String, Object> consumer) {
+		
+		Object value = element(array, index);
+		
+		if (path == null) {
+			match(value, step, null, consumer);
+			return;
+		}
+		
+		int mark = path.length();
+		path.append('[').append(index).append(']');
+		match(value, step, path, consumer);
+		path.setLength(mark);
+		
+	}
+	
+	private static int length(Object node) {
+		if (node instanceof JSONArray)
+			return ((JSONArray) node).length();
+		if (node instanceof int[])
+			return ((int[]) node).length;
+		if (node instanceof long[])
+			return ((long[]) node).length;
+		if (node instanceof double[])
+			return ((double[]) node).length;
+		return 0;
+	}
+	
+	private static Object element(Object array, int index) {
+		if (array instanceof JSONArray)
+			return ((JSONArray) array).opt(index);
+		if (array instanceof int[])
+			return ((int[]) array)[index];
+		if (array instanceof long[])
+			return ((long[]) array)[index];
+		return ((double[]) array)[index];
+	}
+	
+	private static IllegalArgumentException malformed(String expression, int position, String reason) {
+		return new IllegalArgumentException("Malformed selector \"" + expression + "\" at " + position + ": " + reason);
+	}
+	
+	private static final class Step {
+		
+		static final int KEY = 0;
+		static final int INDEX = 1;
+		static final int ANY = 2;
+		static final int ANY_ELEMENT = 3;
+		static final int DESCENT = 4;
+		
+		final int type;
+		final String key;
+		final int index;
+		
+		Step(int type, String key, int index) {
+			this.type = type;
+			this.key = key;
+			this.index = index;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,150 @@
+package de.drachir000.utils.config;
+
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * A listener subscribed to the changes below a path of a {@link Configuration}, see {@link Configuration#subscribe(String, Consumer)}.
+ * Changes are handed to the executor of the subscription. While a notification is pending, further changes are merged into it,
+ * so a burst of modifications results in few notifications and the number of pending changes never grows beyond the number of changed keys.
+ * Notifications of one subscription are delivered one after another, in the order of the modifications.
+ * A notification only contains the changed keys at, below or above the subscribed path. If the executor rejects a notification,
+ * it is dropped and the rejection is reported to the uncaught exception handler of the modifying thread.
+ *
+ * @since 2.2
+ */
+public final class ConfigurationSubscription {
+	
+	private final String path;
+	private final Consumer<ConfigurationChange> listener;
+	private final Executor executor;
+	private final ChangeDispatcher dispatcher;
+	
+	private volatile boolean active = true;
+	private ConfigurationChange pending;
+	private boolean scheduled;
+	
+	ConfigurationSubscription(String path, Consumer<ConfigurationChange> listener, Executor executor, ChangeDispatcher dispatcher) {
+		this.path = path;
+		this.listener = listener;
+		this.executor = executor;
+		this.dispatcher = dispatcher;
+	}
+	
+	/**
+	 * @return the path this subscription listens to, an empty String for the whole {@link Configuration}
+	 */
+	public String getPath() {
+		return path;
+	}
+	
+	/**
+	 * @return true if the subscription has not been cancelled
+	 */
+	public boolean isActive() {
+		return active;
+	}
+	
+	/**
+	 * Stop notifying the listener. A notification which is already running is not interrupted.
+	 */
+	public void cancel() {
+		if (active) {
+			active = false;
+			dispatcher.remove(this);
+		}
+	}
+	
+	Consumer<ConfigurationChange> getListener() {
+		return listener;
+	}
+	
+	/**
+	 * Hands the part of a change affecting the path of this subscription to the listener. Never throws: a rejected notification
+	 * is dropped and reported to the uncaught exception handler of the modifying thread, so the modification itself and the other
+	 * subscriptions are not affected.
+	 */
+	void enqueue(ConfigurationChange change) {
+		
+		if (!active)
+			return;
+		
+		change = change.restrictedTo(path);
+		if (change.isEmpty())
+			return;
+		
+		if (executor == null) {
+			// The modification is already applied, a failing listener must neither undo it for the caller nor skip other subscriptions
+			try {
+				listener.accept(change);
+			} catch (RuntimeException e) {
+				report(e);
+			}
+			return;
+		}
+		
+		boolean schedule;
+		synchronized (this) {
+			pending = pending == null ? change : pending.merge(change);
+			schedule = !scheduled;
+			scheduled = true;
+		}
+		
+		if (schedule) {
+			try {
+				executor.execute(this::drain);
+			} catch (RuntimeException e) {
+				synchronized (this) {
+					pending = null;
+					scheduled = false;
+				}
+				report(e);
+			}
+		}
+		
+	}
+	
+	private void drain() {
+		
+		boolean drained = false;
+		try {
+			for (; ; ) {
+				
+				ConfigurationChange change;
+				synchronized (this) {
+					change = pending;
+					pending = null;
+					if (change == null) {
+						scheduled = false;
+						drained = true;
+						return;
+					}
+				}
+				
+				if (!active || change.isEmpty())
+					continue;
+				
+				try {
+					listener.accept(change);
+				} catch (RuntimeException e) {
+					report(e);
+				}
+				
+			}
+		} finally {
+			// An Error thrown by the listener must not leave the subscription scheduled forever, the next change schedules it again
+			if (!drained) {
+				synchronized (this) {
+					scheduled = false;
+				}
+			}
+		}
+		
+	}
+	
+	private static void report(RuntimeException e) {
+		Thread thread = Thread.currentThread();
+		thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+	}
+	
+}
@@ -0,0 +1,208 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the modifications of a {@link Configuration#update(java.util.function.Consumer)} call.
+ * The modifications are staged and only applied to the {@link Configuration} - all at once - when the update completes.
+ * Reads through the transaction see the staged values, reads through the {@link Configuration} do not.
+ *
+ * @since 2.2
+ */
+public final class ConfigurationTransaction {
+	
+	private final Configuration configuration;
+	private final Map<String, Object> staged = new LinkedHashMap<>();
+	private boolean closed;
+	
+	ConfigurationTransaction(Configuration configuration) {
+		this.configuration = configuration;
+	}
+	
+	/**
+	 * Get the value of a key as it will be after this transaction.
+	 *
+	 * @param key A key string.
+	 * @return the staged value of the key, or its current value in the {@link Configuration} if it isn't staged. null if the key isn't or won't be set.
+	 */
+	public Object get(String key) {
+		checkOpen();
+		if (staged.containsKey(key))
+			return staged.get(key);
+		return configuration.peek(key);
+	}
+	
+	/**
+	 * Stage an {@link Object} value. If the value is null, then the key will be removed.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link Object} Value to save.
+	 * @return this transaction
+	 * @throws JSONException        If the value is non-finite number.
+	 * @throws NullPointerException If the key is null.
+	 * @see Configuration#set(String, Object)
+	 */
+	public ConfigurationTransaction set(String key, Object value) throws JSONException, NullPointerException {
+		
+		checkOpen();
+		
+		if (key == null)
+			throw new NullPointerException("Null key.");
+		
+		// Reject invalid values now, so the commit cannot fail halfway through
+		JSONObject.testValidity(value);
+		staged.put(key, value);
+		
+		return this;
+		
+	}
+	
+	/**
+	 * Stage the removal of a key.
+	 *
+	 * @param key A key string.
+	 * @return this transaction
+	 */
+	public ConfigurationTransaction remove(String key) {
+		return set(key, null);
+	}
+	
+	/**
+	 * Stage a {@link Serializable} {@link Object} value, which is encoded immediately.
+	 *
+	 * @param key   A key string.
+	 * @param value The value to encode and save.
+	 * @return this transaction
+	 * @throws IOException          if there was an IO error during encoding or the value cannot be encoded
+	 * @throws NullPointerException if the key or value is {@code null}
+	 * @see Configuration#setEncoded(String, Object)
+	 */
+	public ConfigurationTransaction setEncoded(String key, Object value) throws IOException, NullPointerException {
+		return set(key, Configuration.serialize(value));
+	}
+	
+	/**
+	 * Stage a {@link String} value. If the value is null, then the key will be removed.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link String} Value to save.
+	 * @return this transaction
+	 */
+	public ConfigurationTransaction setString(String key, String value) {
+		return set(key, value);
+	}
+	
+	/**
+	 * Stage an {@link Integer} value.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link Integer} Value to save.
+	 * @return this transaction
+	 */
+	public ConfigurationTransaction setInt(String key, int value) {
+		return set(key, value);
+	}
+	
+	/**
+	 * Stage a {@link Long} value.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link Long} Value to save.
+	 * @return this transaction
+	 */
+	public ConfigurationTransaction setLong(String key, long value) {
+		return set(key, value);
+	}
+	
+	/**
+	 * Stage a {@link Double} value.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link Double} Value to save.
+	 * @return this transaction
+	 * @throws JSONException If the value is non-finite number.
+	 */
+	public ConfigurationTransaction setDouble(String key, double value) throws JSONException {
+		return set(key, value);
+	}
+	
+	/**
+	 * Stage a {@link Float} value.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link Float} Value to save.
+	 * @return this transaction
+	 * @throws JSONException If the value is non-finite number.
+	 */
+	public ConfigurationTransaction setFloat(String key, float value) throws JSONException {
+		return set(key, value);
+	}
+	
+	/**
+	 * Stage a {@link Boolean} value.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link Boolean} Value to save.
+	 * @return this transaction
+	 */
+	public ConfigurationTransaction setBoolean(String key, boolean value) {
+		return set(key, value);
+	}
+	
+	/**
+	 * Stage a {@link Configuration} value. If the value is null, then the key will be removed.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link Configuration} Value to save.
+	 * @return this transaction
+	 */
+	public ConfigurationTransaction setConfiguration(String key, Configuration value) {
+		return set(key, value == null ? null : value.toJsonObject());
+	}
+	
+	/**
+	 * Stage a {@link JSONArray} value. If the value is null, then the key will be removed.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link JSONArray} Value to save.
+	 * @return this transaction
+	 */
+	public ConfigurationTransaction setJSONArray(String key, JSONArray value) {
+		return set(key, value);
+	}
+	
+	/**
+	 * Stage an {@link Enum} value. If the value is null, then the key will be removed.
+	 *
+	 * @param key   A key string.
+	 * @param value The {@link Enum} Value to save.
+	 * @param <E>   {@link Enum} Type
+	 * @return this transaction
+	 */
+	public <E extends Enum<E>> ConfigurationTransaction setEnum(String key, E value) {
+		return set(key, value);
+	}
+	
+	/**
+	 * Closes this transaction and hands out the staged modifications.
+	 */
+	Map<String, Object> commit() {
+		checkOpen();
+		closed = true;
+		return Collections.unmodifiableMap(staged);
+	}
+	
+	private void checkOpen() throws IllegalStateException {
+		if (closed)
+			throw new IllegalStateException("The transaction has already been committed!");
+	}
+	
+}
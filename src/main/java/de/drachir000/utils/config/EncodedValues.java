@@ -0,0 +1,222 @@
+package de.drachir000.utils.config;
+
+import java.io.*;
+import java.util.Base64;
+
+/**
+ * Writes and reads the Base64 encoded values of a {@link Configuration}.
+ * The object streams are wrapped directly around the Base64 streams, so neither the serialized bytes
+ * nor the decoded bytes of a value are ever buffered as a whole.
+ */
+final class EncodedValues {
+	
+	/**
+	 * Marks an encoded value written by a {@link ValueCodec}. Java serialization streams start with 0xACED instead.
+	 */
+	private static final byte[] CODEC_MAGIC = {(byte) 0xC0, (byte) 0xDE};
+	
+	private EncodedValues() {
+	}
+	
+	/**
+	 * Encodes a value into a new String.
+	 *
+	 * @param obj the value to encode
+	 * @return the Base64 encoded value
+	 * @throws IOException if the value cannot be encoded
+	 */
+	static String encode(Object obj) throws IOException, SecurityException, NullPointerException {
+		StringBuilder builder = new StringBuilder();
+		encodeTo(obj, builder);
+		return builder.toString();
+	}
+	
+	/**
+	 * Encodes a value and appends the Base64 characters to the given {@link Appendable}, for example a {@link Writer}.
+	 *
+	 * @param obj the value to encode
+	 * @param out the destination of the Base64 characters
+	 * @throws IOException if the value cannot be encoded or an I/O error occurs while appending
+	 */
+	static void encodeTo(Object obj, Appendable out) throws IOException, SecurityException, NullPointerException {
+		
+		if (obj == null)
+			throw new NullPointerException("null cannot be serialized!");
+		
+		ValueCodecRegistry.Entry entry = ValueCodecRegistry.forType(obj.getClass());
+		
+		if (entry == null && !(obj instanceof Serializable))
+			throw new NotSerializableException(obj.getClass().getName());
+		
+		ConfigurationEvents.Encode event = new ConfigurationEvents.Encode();
+		event.begin();
+		
+		AppendableOutputStream counter = new AppendableOutputStream(out);
+		OutputStream base64 = Base64.getEncoder().wrap(counter);
+		
+		if (entry != null) {
+			
+			DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(base64));
+			
+			dos.write(CODEC_MAGIC);
+			dos.writeUTF(entry.id);
+			entry.codec.encode(obj, dos);
+			dos.close();
+			
+		} else {
+			
+			ObjectOutputStream oos = new ObjectOutputStream(base64);
+			
+			oos.writeObject(obj);
+			oos.close();
+			
+		}
+		
+		if (event.shouldCommit()) {
+			event.valueClass = obj.getClass().getName();
+			event.codec = entry == null ? "" : entry.id;
+			event.bytes = counter.count;
+			event.commit();
+		}
+		
+	}
+	
+	/**
+	 * Decodes a value directly from its Base64 characters.
+	 *
+	 * @param s the Base64 encoded value
+	 * @return the decoded value
+	 * @throws IllegalArgumentException if the String contains characters outside the Base64 alphabet
+	 */
+	static Object decode(String s) throws IOException, ClassNotFoundException, IllegalArgumentException, SecurityException, NullPointerException {
+		
+		if (s == null || s.isBlank())
+			throw new NullPointerException("Cannot deserialize null or empty String!");
+		
+		checkAlphabet(s);
+		
+		ConfigurationEvents.Decode event = new ConfigurationEvents.Decode();
+		event.begin();
+		
+		PushbackInputStream in = new PushbackInputStream(Base64.getDecoder().wrap(new CharSequenceInputStream(s)), CODEC_MAGIC.length);
+		
+		byte[] head = new byte[CODEC_MAGIC.length];
+		int read = in.readNBytes(head, 0, head.length);
+		
+		if (read == CODEC_MAGIC.length && head[0] == CODEC_MAGIC[0] && head[1] == CODEC_MAGIC[1]) {
+			
+			DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+			
+			String id = dis.readUTF();
+			ValueCodecRegistry.Entry entry = ValueCodecRegistry.forId(id);
+			if (entry == null)
+				throw new ClassNotFoundException("No codec registered for the id \"" + id + "\"!");
+			
+			Object obj = entry.codec.decode(dis);
+			dis.close();
+			
+			commit(event, obj, id, s);
+			
+			return obj;
+			
+		}
+		
+		in.unread(head, 0, read);
+		
+		ObjectInputStream ois = new ObjectInputStream(in);
+		
+		Object obj = ois.readObject();
+		ois.close();
+		
+		commit(event, obj, "", s);
+		
+		return obj;
+		
+	}
+	
+	private static void commit(ConfigurationEvents.Decode event, Object obj, String codec, String s) {
+		if (event.shouldCommit()) {
+			event.valueClass = obj == null ? null : obj.getClass().getName();
+			event.codec = codec;
+			event.bytes = s.length();
+			event.commit();
+		}
+	}
+	
+	/**
+	 * Writes every byte as one character. Only used below the Base64 encoder, which produces ASCII only.
+	 */
+	private static final class AppendableOutputStream extends OutputStream {
+		
+		private final Appendable out;
+		private long count;
+		
+		private AppendableOutputStream(Appendable out) {
+			this.out = out;
+		}
+		
+		@Override
+		public void write(int b) throws IOException {
+			out.append((char) (b & 0xFF));
+			count++;
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			for (int i = off; i < off + len; i++) {
+				out.append((char) (b[i] & 0xFF));
+			}
+			count += len;
+		}
+		
+	}
+	
+	/**
+	 * Rejects Strings with characters outside the Base64 alphabet up front with an {@link IllegalArgumentException},
+	 * just like {@link Base64.Decoder#decode(String)} does, instead of failing halfway through reading the value.
+	 */
+	private static void checkAlphabet(String s) throws IllegalArgumentException {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '+' || c == '/' || c == '='))
+				throw new IllegalArgumentException("Illegal base64 character " + Integer.toString(c, 16));
+		}
+	}
+	
+	/**
+	 * Reads the characters of a Base64 String as bytes.
+	 */
+	private static final class CharSequenceInputStream extends InputStream {
+		
+		private final CharSequence source;
+		private int position;
+		
+		private CharSequenceInputStream(CharSequence source) {
+			this.source = source;
+		}
+		
+		@Override
+		public int read() {
+			return position < source.length() ? source.charAt(position++) & 0xFF : -1;
+		}
+		
+		@Override
+		public int read(byte[] b, int off, int len) {
+			
+			if (len == 0)
+				return 0;
+			if (position >= source.length())
+				return -1;
+			
+			int n = Math.min(len, source.length() - position);
+			for (int i = 0; i < n; i++) {
+				b[off + i] = (byte) source.charAt(position++);
+			}
+			
+			return n;
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,268 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Overrides keys of a {@link Configuration} with environment variables and system properties.
+ * The names are derived from the paths of the keys: the environment variable of {@code db.pool-size} is the prefix followed by
+ * {@code DB_POOL_SIZE}, the system property is the prefix followed by {@code db.pool-size}. Names of keys which are not present
+ * in the {@link Configuration} yet can be mapped explicitly. System properties take precedence over environment variables.
+ * <p>
+ * The mapping is computed once, when the overrides are built: each known path is looked up in the environment and the system properties
+ * instead of scanning them on every read. The overrides form the top layer of a {@link LayeredConfiguration}, so reads cost no more
+ * than reads of any other {@link Configuration}. Values are converted to the type of the value they override where possible,
+ * and the getters of the {@link Configuration} convert {@link String}s, e.g. {@link Configuration#getInt(String)} parses them.
+ *
+ * <pre>{@code
+ * Configuration configuration = EnvironmentOverlay.builder()
+ *         .environmentPrefix("APP_")
+ *         .propertyPrefix("app.")
+ *         .build()
+ *         .apply(SimpleConfigLib.load(file));
+ * }</pre>
+ *
+ * @see SimpleConfigLib#withEnvironmentOverrides(Configuration, String, String)
+ * @since 2.2
+ */
+public final class EnvironmentOverlay {
+	
+	private final String environmentPrefix;
+	private final String propertyPrefix;
+	private final Map<String, String> explicitMappings;
+	private final Map<String, String> environment;
+	private final Properties properties;
+	
+	private EnvironmentOverlay(Builder builder) {
+		this.environmentPrefix = builder.environmentPrefix;
+		this.propertyPrefix = builder.propertyPrefix;
+		this.explicitMappings = new LinkedHashMap<>(builder.explicitMappings);
+		this.environment = builder.environment != null ? builder.environment : System.getenv();
+		this.properties = builder.properties != null ? builder.properties : System.getProperties();
+	}
+	
+	/**
+	 * Creates a new {@link Builder} for an overlay.
+	 *
+	 * @return a new {@link Builder}
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+	
+	/**
+	 * Stacks the overrides for a {@link Configuration} on top of it.
+	 * Modifications of the returned {@link LayeredConfiguration} are rejected, since they would be written to the overrides;
+	 * modify the base {@link Configuration} instead.
+	 *
+	 * @param base the {@link Configuration} to override
+	 * @return a {@link LayeredConfiguration} of the base and its overrides
+	 */
+	public LayeredConfiguration apply(Configuration base) {
+		return SimpleConfigLib.layeredConfiguration(base, overrides(base));
+	}
+	
+	/**
+	 * Builds the overrides for the keys of a {@link Configuration}, to be used as a layer of a {@link LayeredConfiguration}.
+	 * Keys added to the base later are not overridden.
+	 *
+	 * @param base the {@link Configuration} whose keys are looked up
+	 * @return a read-only {@link Configuration} containing the overridden keys only
+	 */
+	public Configuration overrides(Configuration base) {
+		
+		// A ConcurrentConfiguration copies its tree for toJsonObject(), so it is taken once for all mappings
+		JSONObject tree = base.toJsonObject();
+		Map<String, String> mapping = mapping(tree);
+		JSONObject overrides = new JSONObject();
+		
+		for (Map.Entry<String, String> entry : mapping.entrySet()) {
+			
+			String name = entry.getKey();
+			String path = entry.getValue();
+			
+			String raw = properties.getProperty(name);
+			if (raw == null)
+				raw = environment.get(name);
+			if (raw != null)
+				putPath(overrides, path, convert(JsonTrees.valueAt(tree, path), raw));
+			
+		}
+		
+		return new ReadOnlyConfiguration(overrides);
+		
+	}
+	
+	/**
+	 * Computes the lookup table from environment variable and system property names to the paths they override.
+	 *
+	 * @param base the {@link Configuration} whose keys are mapped
+	 * @return the paths by name, explicit mappings first
+	 */
+	public Map<String, String> mapping(Configuration base) {
+		return mapping(base.toJsonObject());
+	}
+	
+	private Map<String, String> mapping(JSONObject tree) {
+		
+		Map<String, String> mapping = new LinkedHashMap<>(explicitMappings);
+		collectPaths(tree, "", mapping);
+		
+		return mapping;
+		
+	}
+	
+	private void collectPaths(JSONObject object, String prefix, Map<String, String> mapping) {
+		for (String key : object.keySet()) {
+			
+			String path = prefix + key;
+			Object value = object.opt(key);
+			
+			if (value instanceof JSONObject) {
+				collectPaths((JSONObject) value, path + ".", mapping);
+				continue;
+			}
+			
+			if (environmentPrefix != null)
+				mapping.putIfAbsent(environmentPrefix + environmentName(path), path);
+			if (propertyPrefix != null)
+				mapping.putIfAbsent(propertyPrefix + path, path);
+			
+		}
+	}
+	
+	/**
+	 * @return the path in upper case, every character other than a letter or digit replaced by an underscore
+	 */
+	static String environmentName(String path) {
+		char[] name = path.toUpperCase(Locale.ROOT).toCharArray();
+		for (int i = 0; i < name.length; i++) {
+			if ((name[i] < 'A' || name[i] > 'Z') && (name[i] < '0' || name[i] > '9'))
+				name[i] = '_';
+		}
+		return new String(name);
+	}
+	
+	/**
+	 * Converts an override to the type of the value it replaces. Strings stay strings, everything else is parsed like a JSON value.
+	 */
+	private static Object convert(Object current, String raw) {
+		
+		if (current == null || current instanceof String)
+			return raw;
+		
+		if (current instanceof JSONArray || Configuration.isPrimitiveArray(current)) {
+			try {
+				return new JSONArray(raw);
+			} catch (RuntimeException e) {
+				return raw;
+			}
+		}
+		
+		return JSONObject.stringToValue(raw);
+		
+	}
+	
+	private static void putPath(JSONObject object, String path, Object value) {
+		
+		int dot = path.indexOf('.');
+		if (dot < 0) {
+			object.put(path, value);
+			return;
+		}
+		
+		String key = path.substring(0, dot);
+		Object nested = object.opt(key);
+		if (!(nested instanceof JSONObject)) {
+			nested = new JSONObject();
+			object.put(key, nested);
+		}
+		putPath((JSONObject) nested, path.substring(dot + 1), value);
+		
+	}
+	
+	/**
+	 * Configures an {@link EnvironmentOverlay}.
+	 */
+	public static final class Builder {
+		
+		private String environmentPrefix;
+		private String propertyPrefix;
+		private final Map<String, String> explicitMappings = new LinkedHashMap<>();
+		private Map<String, String> environment;
+		private Properties properties;
+		
+		private Builder() {
+		}
+		
+		/**
+		 * Overrides keys with environment variables whose names start with a prefix, e.g. {@code APP_}.
+		 *
+		 * @param prefix the prefix, an empty {@link String} to use the plain names
+		 * @return this {@link Builder}
+		 */
+		public Builder environmentPrefix(String prefix) {
+			this.environmentPrefix = prefix;
+			return this;
+		}
+		
+		/**
+		 * Overrides keys with system properties whose names start with a prefix, e.g. {@code app.}.
+		 *
+		 * @param prefix the prefix, an empty {@link String} to use the plain paths
+		 * @return this {@link Builder}
+		 */
+		public Builder propertyPrefix(String prefix) {
+			this.propertyPrefix = prefix;
+			return this;
+		}
+		
+		/**
+		 * Maps an environment variable or system property to a path explicitly. The path does not need to be present in the {@link Configuration}.
+		 *
+		 * @param name the name of the environment variable or system property
+		 * @param path the dotted path of the key it overrides
+		 * @return this {@link Builder}
+		 */
+		public Builder map(String name, String path) {
+			explicitMappings.put(name, path);
+			return this;
+		}
+		
+		/**
+		 * Reads the environment variables from a map instead of {@link System#getenv()}.
+		 *
+		 * @param environment the environment variables
+		 * @return this {@link Builder}
+		 */
+		public Builder environment(Map<String, String> environment) {
+			this.environment = environment;
+			return this;
+		}
+		
+		/**
+		 * Reads the system properties from a {@link Properties} instead of {@link System#getProperties()}.
+		 *
+		 * @param properties the system properties
+		 * @return this {@link Builder}
+		 */
+		public Builder properties(Properties properties) {
+			this.properties = properties;
+			return this;
+		}
+		
+		/**
+		 * @return the {@link EnvironmentOverlay}
+		 */
+		public EnvironmentOverlay build() {
+			return new EnvironmentOverlay(this);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,95 @@
+package de.drachir000.utils.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the file locks taken by the locking methods of {@link SimpleConfigLib} and the time spent waiting for them,
+ * so contention on shared configuration files can be monitored.
+ *
+ * @see SimpleConfigLib#getFileLockStatistics()
+ * @since 2.2
+ */
+public final class FileLockStatistics {
+	
+	private final LongAdder acquisitions = new LongAdder();
+	private final LongAdder contended = new LongAdder();
+	private final LongAdder waitNanos = new LongAdder();
+	private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0L);
+	private final LongAdder retries = new LongAdder();
+	
+	FileLockStatistics() {
+	}
+	
+	void recordAcquisition(long waitedNanos, boolean wasContended) {
+		acquisitions.increment();
+		if (wasContended)
+			contended.increment();
+		waitNanos.add(waitedNanos);
+		maxWaitNanos.accumulate(waitedNanos);
+	}
+	
+	void recordRetry() {
+		retries.increment();
+	}
+	
+	/**
+	 * @return the number of locks acquired
+	 */
+	public long getAcquisitions() {
+		return acquisitions.sum();
+	}
+	
+	/**
+	 * @return the number of locks which were held by another thread or process when they were requested
+	 */
+	public long getContendedAcquisitions() {
+		return contended.sum();
+	}
+	
+	/**
+	 * @param unit the unit of the result
+	 * @return the total time spent waiting for locks
+	 */
+	public long getTotalWaitTime(TimeUnit unit) {
+		return unit.convert(waitNanos.sum(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @param unit the unit of the result
+	 * @return the longest time spent waiting for a single lock
+	 */
+	public long getMaxWaitTime(TimeUnit unit) {
+		return unit.convert(maxWaitNanos.get(), TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return the number of times {@link SimpleConfigLib#modify(java.io.File, java.util.function.Consumer)} had to start over,
+	 * because the file was changed by someone else in the meantime
+	 */
+	public long getRetries() {
+		return retries.sum();
+	}
+	
+	/**
+	 * Resets all counters to zero.
+	 */
+	public void reset() {
+		acquisitions.reset();
+		contended.reset();
+		waitNanos.reset();
+		maxWaitNanos.reset();
+		retries.reset();
+	}
+	
+	@Override
+	public String toString() {
+		return "FileLockStatistics{acquisitions=" + getAcquisitions() +
+				", contended=" + getContendedAcquisitions() +
+				", totalWaitMs=" + getTotalWaitTime(TimeUnit.MILLISECONDS) +
+				", maxWaitMs=" + getMaxWaitTime(TimeUnit.MILLISECONDS) +
+				", retries=" + getRetries() + "}";
+	}
+	
+}
@@ -0,0 +1,214 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A flattened view of a {@link Configuration}: a single hash table mapping the dotted path of every leaf value, e.g. {@code db.pool.size},
+ * to the value. A deep read is one lookup, without walking the nested {@link JSONObject}s or creating {@link Configuration}s for them.
+ * Arrays are leaves, nested objects are not indexed themselves.
+ * <p>
+ * The index is maintained incrementally: it listens synchronously to the changes of its {@link Configuration} and updates only the modified
+ * paths, including the leaves below a replaced or removed nested {@link Configuration}. Lookups may run concurrently with modifications.
+ * Keys containing dots cannot be told apart from nested keys; of two such leaves with the same path, the index holds one.
+ *
+ * @see Configuration#enableFlatIndex()
+ * @since 2.2
+ */
+public final class FlatIndex {
+	
+	private final Map<String, Object> leaves = new ConcurrentHashMap<>();
+	private final ConfigurationSubscription subscription;
+	
+	FlatIndex(Configuration configuration) {
+		synchronized (this) {
+			// Subscribe first, changes made while the index is built wait for the lock and are applied afterwards
+			this.subscription = configuration.subscribe("", this::update, Runnable::run);
+			addLeaves(configuration.toJsonObject(), "");
+		}
+	}
+	
+	void close() {
+		subscription.cancel();
+	}
+	
+	/**
+	 * @param path the dotted path of a leaf
+	 * @return the value of the leaf, null if there is none
+	 */
+	public Object get(String path) {
+		return leaves.get(path);
+	}
+	
+	/**
+	 * @param path the dotted path of a leaf
+	 * @return true if there is a leaf at the path
+	 */
+	public boolean containsPath(String path) {
+		return leaves.containsKey(path);
+	}
+	
+	/**
+	 * @param path the dotted path of a leaf
+	 * @return the {@link String} value of the leaf
+	 * @throws JSONException if there is no leaf at the path or its value is not a {@link String}
+	 */
+	public String getString(String path) throws JSONException {
+		Object value = require(path);
+		if (value instanceof String)
+			return (String) value;
+		throw wrongType(path, "string", value);
+	}
+	
+	/**
+	 * @param path the dotted path of a leaf
+	 * @return the int value of the leaf
+	 * @throws JSONException if there is no leaf at the path or its value cannot be converted to an int
+	 */
+	public int getInt(String path) throws JSONException {
+		Object value = require(path);
+		if (value instanceof Number)
+			return ((Number) value).intValue();
+		try {
+			return Integer.parseInt(value.toString());
+		} catch (NumberFormatException e) {
+			throw wrongType(path, "int", value);
+		}
+	}
+	
+	/**
+	 * @param path the dotted path of a leaf
+	 * @return the long value of the leaf
+	 * @throws JSONException if there is no leaf at the path or its value cannot be converted to a long
+	 */
+	public long getLong(String path) throws JSONException {
+		Object value = require(path);
+		if (value instanceof Number)
+			return ((Number) value).longValue();
+		try {
+			return Long.parseLong(value.toString());
+		} catch (NumberFormatException e) {
+			throw wrongType(path, "long", value);
+		}
+	}
+	
+	/**
+	 * @param path the dotted path of a leaf
+	 * @return the double value of the leaf
+	 * @throws JSONException if there is no leaf at the path or its value cannot be converted to a double
+	 */
+	public double getDouble(String path) throws JSONException {
+		Object value = require(path);
+		if (value instanceof Number)
+			return ((Number) value).doubleValue();
+		try {
+			return Double.parseDouble(value.toString());
+		} catch (NumberFormatException e) {
+			throw wrongType(path, "double", value);
+		}
+	}
+	
+	/**
+	 * @param path the dotted path of a leaf
+	 * @return the boolean value of the leaf
+	 * @throws JSONException if there is no leaf at the path or its value is not a {@link Boolean} or the {@link String} "true" or "false"
+	 */
+	public boolean getBoolean(String path) throws JSONException {
+		Object value = require(path);
+		if (value.equals(Boolean.TRUE) || (value instanceof String && ((String) value).equalsIgnoreCase("true")))
+			return true;
+		if (value.equals(Boolean.FALSE) || (value instanceof String && ((String) value).equalsIgnoreCase("false")))
+			return false;
+		throw wrongType(path, "Boolean", value);
+	}
+	
+	/**
+	 * @return the number of leaves
+	 */
+	public int size() {
+		return leaves.size();
+	}
+	
+	/**
+	 * @return an unmodifiable live view of the leaves by their dotted paths
+	 */
+	public Map<String, Object> asMap() {
+		return Collections.unmodifiableMap(leaves);
+	}
+	
+	/**
+	 * @return a copy of the leaves as {@link Properties}, with every value converted to its {@link String} representation
+	 */
+	public Properties toProperties() {
+		Properties properties = new Properties();
+		for (Map.Entry<String, Object> entry : leaves.entrySet()) {
+			properties.setProperty(entry.getKey(), String.valueOf(entry.getValue()));
+		}
+		return properties;
+	}
+	
+	@Override
+	public String toString() {
+		return "FlatIndex" + leaves.keySet();
+	}
+	
+	private synchronized void update(ConfigurationChange change) {
+		for (String path : change.getKeys()) {
+			
+			// Only the leaves below the old value have to be removed, not every path with the same prefix
+			Object oldValue = change.getOldValue(path);
+			if (oldValue instanceof JSONObject) {
+				removeLeaves((JSONObject) oldValue, path + ".");
+			} else {
+				leaves.remove(path);
+			}
+			
+			Object newValue = change.getNewValue(path);
+			if (newValue instanceof JSONObject) {
+				addLeaves((JSONObject) newValue, path + ".");
+			} else if (newValue != null) {
+				leaves.put(path, newValue);
+			}
+			
+		}
+	}
+	
+	private void addLeaves(JSONObject object, String prefix) {
+		for (String key : object.keySet()) {
+			Object value = object.opt(key);
+			if (value instanceof JSONObject) {
+				addLeaves((JSONObject) value, prefix + key + ".");
+			} else {
+				leaves.put(prefix + key, value);
+			}
+		}
+	}
+	
+	private void removeLeaves(JSONObject object, String prefix) {
+		for (String key : object.keySet()) {
+			Object value = object.opt(key);
+			if (value instanceof JSONObject) {
+				removeLeaves((JSONObject) value, prefix + key + ".");
+			} else {
+				leaves.remove(prefix + key);
+			}
+		}
+	}
+	
+	private Object require(String path) throws JSONException {
+		Object value = leaves.get(path);
+		if (value == null)
+			throw new JSONException("Path " + JSONObject.quote(path) + " not found.");
+		return value;
+	}
+	
+	private static JSONException wrongType(String path, String valueType, Object value) {
+		return new JSONException("Path " + JSONObject.quote(path) + " is not a " + valueType + " (" + value.getClass() + " : " + value + ").");
+	}
+	
+}
@@ -0,0 +1,341 @@
+package de.drachir000.utils.config;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash array mapped trie from {@link String} keys to values. Every level of the trie consumes five bits of the hash of a key;
+ * a node stores a bitmap of its occupied slots and a compact array holding only those slots, each either an entry or a child node.
+ * Keys with equal hashes share a collision node.
+ * <p>
+ * {@link #with(String, Object)} and {@link #without(String)} copy only the nodes on the path to the key, at most seven, and share all other
+ * nodes with the original trie, so both run in O(log n) and old versions stay valid.
+ */
+final class HashTrie {
+	
+	static final HashTrie EMPTY = new HashTrie(BitmapNode.EMPTY, 0);
+	
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+	
+	private final BitmapNode root;
+	private final int size;
+	
+	private HashTrie(BitmapNode root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+	
+	/**
+	 * @return the value stored at the key, null if there is none
+	 */
+	Object get(String key) {
+		return root.get(key, hash(key), 0);
+	}
+	
+	/**
+	 * @param value the value to store, not null
+	 * @return a trie holding the value at the key, this trie if a value {@link Object#equals(Object) equal} to it is already stored.
+	 * Tries and arrays do not override equals, for them this holds only if the same instance is stored.
+	 */
+	HashTrie with(String key, Object value) {
+		boolean[] added = new boolean[1];
+		Node node = root.with(key, hash(key), value, 0, added);
+		return node == root ? this : new HashTrie((BitmapNode) node, added[0] ? size + 1 : size);
+	}
+	
+	/**
+	 * @return a trie without the key, this trie if the key is not set
+	 */
+	HashTrie without(String key) {
+		Node node = root.without(key, hash(key), 0);
+		if (node == root)
+			return this;
+		return node == null ? EMPTY : new HashTrie((BitmapNode) node, size - 1);
+	}
+	
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Hand every entry to a consumer, in the order of the hashes of the keys.
+	 */
+	void forEach(BiConsumer<String, Object> consumer) {
+		root.forEach(consumer);
+	}
+	
+	private static int hash(String key) {
+		int h = key.hashCode();
+		return h ^ (h >>> 16);
+	}
+	
+	private static int bit(int hash, int shift) {
+		return 1 << ((hash >>> shift) & MASK);
+	}
+	
+	private abstract static class Node {
+		
+		abstract Object get(String key, int hash, int shift);
+		
+		/**
+		 * @param added set to true if the key was not set before
+		 * @return the modified node, this node if nothing changed
+		 */
+		abstract Node with(String key, int hash, Object value, int shift, boolean[] added);
+		
+		/**
+		 * @return the modified node, this node if the key is not set, null if the node became empty
+		 */
+		abstract Node without(String key, int hash, int shift);
+		
+		abstract void forEach(BiConsumer<String, Object> consumer);
+		
+	}
+	
+	/**
+	 * A node holding the occupied slots of its level. The array holds two elements per slot: the key and the value of an entry,
+	 * or null and the child {@link Node}.
+	 */
+	private static final class BitmapNode extends Node {
+		
+		static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+		
+		private final int bitmap;
+		private final Object[] array;
+		
+		BitmapNode(int bitmap, Object[] array) {
+			this.bitmap = bitmap;
+			this.array = array;
+		}
+		
+		private int index(int bit) {
+			return 2 * Integer.bitCount(bitmap & (bit - 1));
+		}
+		
+		@Override
+		Object get(String key, int hash, int shift) {
+			
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0)
+				return null;
+			
+			int index = index(bit);
+			Object k = array[index];
+			if (k == null)
+				return ((Node) array[index + 1]).get(key, hash, shift + BITS);
+			return key.equals(k) ? array[index + 1] : null;
+			
+		}
+		
+		@Override
+		Node with(String key, int hash, Object value, int shift, boolean[] added) {
+			
+			int bit = bit(hash, shift);
+			int index = index(bit);
+			
+			if ((bitmap & bit) == 0) {
+				Object[] copy = new Object[array.length + 2];
+				System.arraycopy(array, 0, copy, 0, index);
+				copy[index] = KeyPool.intern(key);
+				copy[index + 1] = value;
+				System.arraycopy(array, index, copy, index + 2, array.length - index);
+				added[0] = true;
+				return new BitmapNode(bitmap | bit, copy);
+			}
+			
+			Object k = array[index];
+			Object v = array[index + 1];
+			
+			if (k == null) {
+				Node child = ((Node) v).with(key, hash, value, shift + BITS, added);
+				return child == v ? this : replace(index, null, child);
+			}
+			
+			if (key.equals(k))
+				return v.equals(value) ? this : replace(index, k, value);
+			
+			added[0] = true;
+			return replace(index, null, split((String) k, v, key, hash, value, shift + BITS));
+			
+		}
+		
+		@Override
+		Node without(String key, int hash, int shift) {
+			
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0)
+				return this;
+			
+			int index = index(bit);
+			Object k = array[index];
+			Object v = array[index + 1];
+			
+			if (k == null) {
+				
+				Node child = ((Node) v).without(key, hash, shift + BITS);
+				if (child == v)
+					return this;
+				if (child == null)
+					return remove(bit, index);
+				
+				// Pull a single remaining entry up, so the trie stays as shallow as if it had never been split
+				if (child instanceof BitmapNode) {
+					BitmapNode node = (BitmapNode) child;
+					if (node.array.length == 2 && node.array[0] != null)
+						return replace(index, node.array[0], node.array[1]);
+				}
+				
+				return replace(index, null, child);
+				
+			}
+			
+			return key.equals(k) ? remove(bit, index) : this;
+			
+		}
+		
+		@Override
+		void forEach(BiConsumer<String, Object> consumer) {
+			for (int i = 0; i < array.length; i += 2) {
+				if (array[i] == null) {
+					((Node) array[i + 1]).forEach(consumer);
+				} else {
+					consumer.accept((String) array[i], array[i + 1]);
+				}
+			}
+		}
+		
+		private BitmapNode replace(int index, Object key, Object value) {
+			Object[] copy = array.clone();
+			copy[index] = key;
+			copy[index + 1] = value;
+			return new BitmapNode(bitmap, copy);
+		}
+		
+		private BitmapNode remove(int bit, int index) {
+			
+			if (array.length == 2)
+				return null;
+			
+			Object[] copy = new Object[array.length - 2];
+			System.arraycopy(array, 0, copy, 0, index);
+			System.arraycopy(array, index + 2, copy, index, array.length - index - 2);
+			
+			return new BitmapNode(bitmap ^ bit, copy);
+			
+		}
+		
+		/**
+		 * Creates the node holding two entries whose hashes are equal up to the given shift.
+		 */
+		private static Node split(String key1, Object value1, String key2, int hash2, Object value2, int shift) {
+			
+			int hash1 = hash(key1);
+			if (hash1 == hash2)
+				return new CollisionNode(hash1, new String[]{key1, KeyPool.intern(key2)}, new Object[]{value1, value2});
+			
+			int bit1 = bit(hash1, shift);
+			int bit2 = bit(hash2, shift);
+			if (bit1 == bit2)
+				return new BitmapNode(bit1, new Object[]{null, split(key1, value1, key2, hash2, value2, shift + BITS)});
+			
+			key2 = KeyPool.intern(key2);
+			return Integer.compareUnsigned(bit1, bit2) < 0
+					? new BitmapNode(bit1 | bit2, new Object[]{key1, value1, key2, value2})
+					: new BitmapNode(bit1 | bit2, new Object[]{key2, value2, key1, value1});
+			
+		}
+		
+	}
+	
+	/**
+	 * A node holding the entries of several keys with the same hash.
+	 */
+	private static final class CollisionNode extends Node {
+		
+		private final int hash;
+		private final String[] keys;
+		private final Object[] values;
+		
+		CollisionNode(int hash, String[] keys, Object[] values) {
+			this.hash = hash;
+			this.keys = keys;
+			this.values = values;
+		}
+		
+		private int indexOf(String key) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i].equals(key))
+					return i;
+			}
+			return -1;
+		}
+		
+		@Override
+		Object get(String key, int hash, int shift) {
+			if (hash != this.hash)
+				return null;
+			int index = indexOf(key);
+			return index < 0 ? null : values[index];
+		}
+		
+		@Override
+		Node with(String key, int hash, Object value, int shift, boolean[] added) {
+			
+			if (hash != this.hash) {
+				// A key with a different hash ends here, so the colliding keys move one level down next to it
+				return new BitmapNode(bit(this.hash, shift), new Object[]{null, this}).with(key, hash, value, shift, added);
+			}
+			
+			int index = indexOf(key);
+			if (index >= 0) {
+				if (values[index].equals(value))
+					return this;
+				Object[] copy = values.clone();
+				copy[index] = value;
+				return new CollisionNode(hash, keys, copy);
+			}
+			
+			String[] keyCopy = Arrays.copyOf(keys, keys.length + 1);
+			Object[] valueCopy = Arrays.copyOf(values, values.length + 1);
+			keyCopy[keys.length] = KeyPool.intern(key);
+			valueCopy[values.length] = value;
+			added[0] = true;
+			
+			return new CollisionNode(hash, keyCopy, valueCopy);
+			
+		}
+		
+		@Override
+		Node without(String key, int hash, int shift) {
+			
+			int index = hash == this.hash ? indexOf(key) : -1;
+			if (index < 0)
+				return this;
+			
+			if (keys.length == 2) {
+				int other = 1 - index;
+				return new BitmapNode(bit(hash, shift), new Object[]{keys[other], values[other]});
+			}
+			
+			String[] keyCopy = new String[keys.length - 1];
+			Object[] valueCopy = new Object[values.length - 1];
+			System.arraycopy(keys, 0, keyCopy, 0, index);
+			System.arraycopy(keys, index + 1, keyCopy, index, keys.length - index - 1);
+			System.arraycopy(values, 0, valueCopy, 0, index);
+			System.arraycopy(values, index + 1, valueCopy, index, values.length - index - 1);
+			
+			return new CollisionNode(hash, keyCopy, valueCopy);
+			
+		}
+		
+		@Override
+		void forEach(BiConsumer<String, Object> consumer) {
+			for (int i = 0; i < keys.length; i++) {
+				consumer.accept(keys[i], values[i]);
+			}
+		}
+		
+	}
+	
+}
@@ -0,0 +1,446 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves {@code "$include"} directives of loaded files. The value of the directive is the path of a fragment, or an array of paths,
+ * relative to the including file. The keys of the fragments are added to the object containing the directive; later fragments and the keys
+ * of the object itself replace keys of earlier fragments. An object consisting of a single include is replaced by the fragment itself.
+ * <p>
+ * Fragments are parsed once into a shared cache keyed by their path and validated by their fingerprint (size and modification time),
+ * so a fragment included by many files is read and parsed only once. The parsed fragments are frozen {@link SharedJSONObject}s which are
+ * referenced, not copied, by every including {@link Configuration}; a {@link Configuration} copies a shared object the first time it modifies it.
+ * The {@link JSONArray}s of a fragment are frozen {@link SharedJSONArray}s, so no tenant can modify what the others see.
+ */
+final class Includes {
+	
+	static final String DIRECTIVE = "$include";
+	
+	private static final ConcurrentMap<Path, Fragment> CACHE = new ConcurrentHashMap<>();
+	
+	private Includes() {
+	}
+	
+	/**
+	 * Resolves the includes of a loaded file.
+	 *
+	 * @param object the parsed content of the file, which is modified
+	 * @param file   the file the content was loaded from
+	 * @return the resolved content, which is a shared fragment if the whole file consists of a single include
+	 * @throws IOException   if a fragment cannot be read
+	 * @throws JSONException if a fragment is not valid JSON, or the includes are circular
+	 */
+	static JSONObject resolve(JSONObject object, Path file) throws IOException, JSONException {
+		Deque<Path> including = new ArrayDeque<>();
+		including.push(file.toAbsolutePath().normalize());
+		return resolve(object, including, new ArrayList<>());
+	}
+	
+	static void clearCache() {
+		CACHE.clear();
+	}
+	
+	static int cacheSize() {
+		return CACHE.size();
+	}
+	
+	private static JSONObject resolve(JSONObject object, Deque<Path> including, List<Fragment> used) throws IOException, JSONException {
+		
+		for (String key : object.keySet()) {
+			Object value = object.opt(key);
+			if (value instanceof JSONObject && !(value instanceof SharedJSONObject)) {
+				JSONObject resolved = resolve((JSONObject) value, including, used);
+				if (resolved != value)
+					object.put(key, resolved);
+			}
+		}
+		
+		Object directive = object.remove(DIRECTIVE);
+		if (directive == null)
+			return object;
+		
+		List<String> paths = new ArrayList<>();
+		if (directive instanceof JSONArray) {
+			for (Object path : (JSONArray) directive) {
+				paths.add(path.toString());
+			}
+		} else {
+			paths.add(directive.toString());
+		}
+		
+		Path directory = including.peek().getParent();
+		List<SharedJSONObject> fragments = new ArrayList<>(paths.size());
+		for (String path : paths) {
+			Fragment fragment = fragment(directory.resolve(path).normalize(), including);
+			used.add(fragment);
+			fragments.add(fragment.content);
+		}
+		
+		if (fragments.size() == 1 && object.isEmpty())
+			return fragments.get(0);
+		
+		JSONObject merged = new JSONObject();
+		for (JSONObject fragment : fragments) {
+			for (String key : fragment.keySet()) {
+				merged.put(key, fragment.opt(key));
+			}
+		}
+		for (String key : object.keySet()) {
+			merged.put(key, object.opt(key));
+		}
+		
+		return merged;
+		
+	}
+	
+	private static Fragment fragment(Path file, Deque<Path> including) throws IOException, JSONException {
+		
+		if (including.contains(file))
+			throw new JSONException("Circular include of " + file + " by " + including.peek());
+		
+		Fragment cached = CACHE.get(file);
+		if (cached != null && cached.isCurrent())
+			return cached;
+		
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		
+		including.push(file);
+		List<Fragment> used = new ArrayList<>();
+		JSONObject content;
+		try {
+			content = resolve(KeyPool.parse(source), including, used);
+		} finally {
+			including.pop();
+		}
+		
+		Fragment fragment = new Fragment(file, attributes.size(), attributes.lastModifiedTime().toMillis(), SharedJSONObject.freeze(content), used);
+		CACHE.put(file, fragment);
+		
+		return fragment;
+		
+	}
+	
+	/**
+	 * A parsed fragment, with the fingerprint of its file and the fragments it includes itself.
+	 */
+	private static final class Fragment {
+		
+		private final Path file;
+		private final long size;
+		private final long modified;
+		private final SharedJSONObject content;
+		private final List<Fragment> includes;
+		
+		Fragment(Path file, long size, long modified, SharedJSONObject content, List<Fragment> includes) {
+			this.file = file;
+			this.size = size;
+			this.modified = modified;
+			this.content = content;
+			this.includes = includes;
+		}
+		
+		boolean isCurrent() {
+			
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+				if (attributes.size() != size || attributes.lastModifiedTime().toMillis() != modified)
+					return false;
+			} catch (IOException e) {
+				return false;
+			}
+			
+			for (Fragment include : includes) {
+				if (include.isCurrent() && CACHE.get(include.file) == include)
+					continue;
+				return false;
+			}
+			
+			return true;
+			
+		}
+		
+	}
+	
+	/**
+	 * A {@link JSONObject} of an included fragment, which is shared by all including {@link Configuration}s and rejects modifications.
+	 * Nested {@link JSONObject}s and {@link JSONArray}s are shared and frozen as well.
+	 */
+	static final class SharedJSONObject extends JSONObject {
+		
+		private boolean frozen;
+		
+		private SharedJSONObject(int size) {
+			super(size);
+		}
+		
+		static SharedJSONObject freeze(JSONObject source) {
+			
+			if (source instanceof SharedJSONObject)
+				return (SharedJSONObject) source;
+			
+			SharedJSONObject shared = new SharedJSONObject(source.length());
+			for (String key : source.keySet()) {
+				Object value = source.opt(key);
+				shared.put(key, freezeValue(value));
+			}
+			shared.frozen = true;
+			
+			return shared;
+			
+		}
+		
+		static Object freezeValue(Object value) {
+			if (value instanceof JSONObject)
+				return freeze((JSONObject) value);
+			if (value instanceof JSONArray)
+				return SharedJSONArray.freeze((JSONArray) value);
+			return value;
+		}
+		
+		/**
+		 * @return a modifiable copy, whose nested {@link JSONObject}s and {@link JSONArray}s are still shared
+		 */
+		JSONObject copy() {
+			JSONObject copy = new JSONObject();
+			for (String key : keySet()) {
+				copy.put(key, opt(key));
+			}
+			return copy;
+		}
+		
+		@Override
+		public JSONObject put(String key, Object value) throws JSONException {
+			checkModifiable();
+			return super.put(key, value);
+		}
+		
+		@Override
+		public Object remove(String key) {
+			checkModifiable();
+			return super.remove(key);
+		}
+		
+		@Override
+		public void clear() {
+			checkModifiable();
+			super.clear();
+		}
+		
+		@Override
+		public Set<String> keySet() {
+			return frozen ? Collections.unmodifiableSet(super.keySet()) : super.keySet();
+		}
+		
+		private void checkModifiable() {
+			if (frozen)
+				throw new UnsupportedOperationException("Included fragments are shared and cannot be modified!");
+		}
+		
+	}
+	
+	/**
+	 * A {@link JSONArray} of an included fragment, which is shared by all including {@link Configuration}s and rejects modifications.
+	 */
+	static final class SharedJSONArray extends JSONArray {
+		
+		private boolean frozen;
+		
+		private SharedJSONArray(int size) {
+			super(size);
+		}
+		
+		static SharedJSONArray freeze(JSONArray source) {
+			
+			if (source instanceof SharedJSONArray)
+				return (SharedJSONArray) source;
+			
+			SharedJSONArray shared = new SharedJSONArray(source.length());
+			for (Object element : source) {
+				shared.put(SharedJSONObject.freezeValue(element));
+			}
+			shared.frozen = true;
+			
+			return shared;
+			
+		}
+		
+		@Override
+		public JSONArray put(Object value) {
+			checkModifiable();
+			return super.put(value);
+		}
+		
+		@Override
+		public JSONArray put(boolean value) {
+			checkModifiable();
+			return super.put(value);
+		}
+		
+		@Override
+		public JSONArray put(Collection<?> value) {
+			checkModifiable();
+			return super.put(value);
+		}
+		
+		@Override
+		public JSONArray put(double value) throws JSONException {
+			checkModifiable();
+			return super.put(value);
+		}
+		
+		@Override
+		public JSONArray put(float value) throws JSONException {
+			checkModifiable();
+			return super.put(value);
+		}
+		
+		@Override
+		public JSONArray put(int value) {
+			checkModifiable();
+			return super.put(value);
+		}
+		
+		@Override
+		public JSONArray put(long value) {
+			checkModifiable();
+			return super.put(value);
+		}
+		
+		@Override
+		public JSONArray put(Map<?, ?> value) {
+			checkModifiable();
+			return super.put(value);
+		}
+		
+		@Override
+		public JSONArray put(int index, Object value) throws JSONException {
+			checkModifiable();
+			return super.put(index, value);
+		}
+		
+		@Override
+		public JSONArray put(int index, boolean value) throws JSONException {
+			checkModifiable();
+			return super.put(index, value);
+		}
+		
+		@Override
+		public JSONArray put(int index, Collection<?> value) throws JSONException {
+			checkModifiable();
+			return super.put(index, value);
+		}
+		
+		@Override
+		public JSONArray put(int index, double value) throws JSONException {
+			checkModifiable();
+			return super.put(index, value);
+		}
+		
+		@Override
+		public JSONArray put(int index, float value) throws JSONException {
+			checkModifiable();
+			return super.put(index, value);
+		}
+		
+		@Override
+		public JSONArray put(int index, int value) throws JSONException {
+			checkModifiable();
+			return super.put(index, value);
+		}
+		
+		@Override
+		public JSONArray put(int index, long value) throws JSONException {
+			checkModifiable();
+			return super.put(index, value);
+		}
+		
+		@Override
+		public JSONArray put(int index, Map<?, ?> value) throws JSONException {
+			checkModifiable();
+			return super.put(index, value);
+		}
+		
+		@Override
+		public JSONArray putAll(Collection<?> collection) {
+			checkModifiable();
+			return super.putAll(collection);
+		}
+		
+		@Override
+		public JSONArray putAll(Iterable<?> iter) {
+			checkModifiable();
+			return super.putAll(iter);
+		}
+		
+		@Override
+		public JSONArray putAll(JSONArray array) {
+			checkModifiable();
+			return super.putAll(array);
+		}
+		
+		@Override
+		public JSONArray putAll(Object array) throws JSONException {
+			checkModifiable();
+			return super.putAll(array);
+		}
+		
+		@Override
+		public Object remove(int index) {
+			checkModifiable();
+			return super.remove(index);
+		}
+		
+		@Override
+		public void clear() {
+			checkModifiable();
+			super.clear();
+		}
+		
+		@Override
+		public Iterator<Object> iterator() {
+			Iterator<Object> iterator = super.iterator();
+			if (!frozen)
+				return iterator;
+			return new Iterator<>() {
+				
+				@Override
+				public boolean hasNext() {
+					return iterator.hasNext();
+				}
+				
+				@Override
+				public Object next() {
+					return iterator.next();
+				}
+				
+			};
+		}
+		
+		private void checkModifiable() {
+			if (frozen)
+				throw new UnsupportedOperationException("Included fragments are shared and cannot be modified!");
+		}
+		
+	}
+	
+}
@@ -0,0 +1,338 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves {@code ${...}} references in the {@link String} values of a {@link Configuration}, see {@link Configuration#enableInterpolation()}.
+ * A value is compiled into a {@link Template} of literal and reference segments once, and its resolved text is memoized
+ * under the path of its key together with the value it was resolved from. The paths each resolved value depends on are recorded in maps sorted
+ * by path, so a modification finds the memoized values at, below and above the modified path, and the values depending on them directly
+ * or through other references, without scanning all memoized values.
+ */
+final class Interpolation {
+	
+	private static final String ENVIRONMENT = "env:";
+	private static final String DEFAULT_SEPARATOR = ":-";
+	
+	private final Configuration root;
+	private final ConfigurationSubscription subscription;
+	
+	private static final int MAX_TEMPLATES = 4096;
+	
+	private final Map<String, Memo> resolved = new ConcurrentHashMap<>();
+	
+	/**
+	 * The compiled templates by the value they were compiled from. They do not depend on other values, so they survive invalidations.
+	 */
+	private final Map<String, Template> templates = new ConcurrentHashMap<>();
+	
+	/**
+	 * The dependency graph: the memoized paths by the path they reference, and the referenced paths by memoized path,
+	 * and the memoized paths sorted for prefix searches. Guarded by this.
+	 */
+	private final NavigableMap<String, Set<String>> dependents = new TreeMap<>();
+	private final Map<String, Set<String>> dependencies = new HashMap<>();
+	private final NavigableMap<String, Boolean> memoized = new TreeMap<>();
+	
+	/**
+	 * Incremented by every invalidation, so a value resolved concurrently with a modification is not memoized.
+	 */
+	private volatile long version;
+	
+	Interpolation(Configuration root) {
+		this.root = root;
+		this.subscription = root.subscribe("", this::invalidate, Runnable::run);
+	}
+	
+	Configuration getRoot() {
+		return root;
+	}
+	
+	void close() {
+		subscription.cancel();
+	}
+	
+	/**
+	 * @param path the path of the key the value is stored at, relative to the root {@link Configuration}
+	 * @param raw  the value as it is stored
+	 * @return the value with all references replaced
+	 * @throws JSONException if a referenced key is not set and has no default, or the references are circular
+	 */
+	String resolve(String path, String raw) throws JSONException {
+		
+		if (raw.indexOf('$') < 0)
+			return raw;
+		
+		// A detached nested Configuration may store a different value under the same path, so the value must match as well
+		Memo memo = resolved.get(path);
+		if (memo != null && (memo.raw == raw || memo.raw.equals(raw)))
+			return memo.value;
+		
+		return resolve(path, raw, new LinkedHashSet<>());
+		
+	}
+	
+	private String resolve(String path, String raw, Set<String> resolving) throws JSONException {
+		
+		if (!resolving.add(path))
+			throw new JSONException("Circular reference: " + String.join(" -> ", resolving) + " -> " + path);
+		
+		long startVersion = version;
+		Template template = template(raw);
+		Set<String> references = new HashSet<>();
+		
+		StringBuilder builder = new StringBuilder(raw.length());
+		for (int i = 0; i < template.literals.length; i++) {
+			builder.append(template.literals[i]);
+			if (i < template.references.length)
+				builder.append(reference(template.references[i], template.defaults[i], references, resolving));
+		}
+		
+		resolving.remove(path);
+		String value = builder.toString();
+		
+		synchronized (this) {
+			if (version == startVersion) {
+				forget(path);
+				resolved.put(path, new Memo(raw, value));
+				memoized.put(path, Boolean.TRUE);
+				dependencies.put(path, references);
+				for (String reference : references) {
+					dependents.computeIfAbsent(reference, r -> new HashSet<>()).add(path);
+				}
+			}
+		}
+		
+		return value;
+		
+	}
+	
+	private String reference(String reference, String defaultValue, Set<String> references, Set<String> resolving) throws JSONException {
+		
+		if (reference.startsWith(ENVIRONMENT)) {
+			String value = System.getenv(reference.substring(ENVIRONMENT.length()));
+			if (value != null)
+				return value;
+		} else {
+			
+			references.add(reference);
+			Object value = lookup(reference);
+			
+			if (value instanceof String) {
+				String raw = (String) value;
+				if (raw.indexOf('$') < 0)
+					return raw;
+				Memo memo = resolved.get(reference);
+				return memo != null && memo.raw.equals(raw) ? memo.value : resolve(reference, raw, resolving);
+			}
+			if (value != null && value != JSONObject.NULL)
+				return value.toString();
+			
+		}
+		
+		if (defaultValue != null)
+			return defaultValue;
+		throw new JSONException("Unresolved reference ${" + reference + "}" + (resolving.isEmpty() ? "" : " in " + String.join(" -> ", resolving)));
+		
+	}
+	
+	/**
+	 * Finds the value at a dotted path of the root {@link Configuration}.
+	 */
+	private Object lookup(String path) {
+		
+		Object value = root.peek(path);
+		if (value != null)
+			return value;
+		
+		for (int dot = path.indexOf('.'); dot >= 0; dot = path.indexOf('.', dot + 1)) {
+			Object nested = root.peek(path.substring(0, dot));
+			if (nested instanceof JSONObject) {
+				value = JsonTrees.valueAt((JSONObject) nested, path.substring(dot + 1));
+				if (value != null)
+					return value;
+			}
+		}
+		
+		return null;
+		
+	}
+	
+	private Template template(String raw) throws JSONException {
+		
+		Template template = templates.get(raw);
+		if (template != null)
+			return template;
+		
+		template = Template.compile(raw);
+		if (templates.size() >= MAX_TEMPLATES)
+			templates.clear();
+		templates.put(raw, template);
+		
+		return template;
+		
+	}
+	
+	private synchronized void invalidate(ConfigurationChange change) {
+		
+		version++;
+		
+		Deque<String> queue = new ArrayDeque<>();
+		for (String changed : change.getKeys()) {
+			
+			// Replacing a parent changes the paths below it, modifying a nested key changes the paths above it
+			queue.addAll(related(memoized, changed).keySet());
+			for (Set<String> users : related(dependents, changed).values()) {
+				queue.addAll(users);
+			}
+			
+		}
+		
+		while (!queue.isEmpty()) {
+			
+			String path = queue.poll();
+			if (resolved.remove(path) == null)
+				continue;
+			
+			memoized.remove(path);
+			removeDependencies(path);
+			
+			Set<String> users = dependents.get(path);
+			if (users != null)
+				queue.addAll(users);
+			
+		}
+		
+	}
+	
+	/**
+	 * Removes a memoized path which is about to be replaced from the dependency graph.
+	 */
+	private void forget(String path) {
+		if (memoized.remove(path) != null)
+			removeDependencies(path);
+	}
+	
+	private void removeDependencies(String path) {
+		Set<String> references = dependencies.remove(path);
+		if (references != null) {
+			for (String reference : references) {
+				Set<String> users = dependents.get(reference);
+				if (users != null && users.remove(path) && users.isEmpty())
+					dependents.remove(reference);
+			}
+		}
+	}
+	
+	/**
+	 * @return the entries whose path equals the changed path, lies below it or above it
+	 */
+	private static <V> Map<String, V> related(NavigableMap<String, V> map, String changed) {
+		
+		Map<String, V> related = new HashMap<>(map.subMap(changed + ".", true, changed + "/", false));
+		
+		V value = map.get(changed);
+		if (value != null)
+			related.put(changed, value);
+		
+		for (int dot = changed.indexOf('.'); dot >= 0; dot = changed.indexOf('.', dot + 1)) {
+			String parent = changed.substring(0, dot);
+			value = map.get(parent);
+			if (value != null)
+				related.put(parent, value);
+		}
+		
+		return related;
+		
+	}
+	
+	/**
+	 * A resolved value and the stored value it was resolved from.
+	 */
+	private static final class Memo {
+		
+		final String raw;
+		final String value;
+		
+		Memo(String raw, String value) {
+			this.raw = raw;
+			this.value = value;
+		}
+		
+	}
+	
+	/**
+	 * A compiled value: literal segments alternating with references, starting and ending with a (possibly empty) literal.
+	 * <code>$${</code> escapes a literal <code>${</code>, {@code ${name:-fallback}} falls back to a default if {@code name} is not set.
+	 */
+	static final class Template {
+		
+		final String[] literals;
+		final String[] references;
+		final String[] defaults;
+		
+		private Template(String[] literals, String[] references, String[] defaults) {
+			this.literals = literals;
+			this.references = references;
+			this.defaults = defaults;
+		}
+		
+		static Template compile(String raw) throws JSONException {
+			
+			List<String> literals = new ArrayList<>();
+			List<String> references = new ArrayList<>();
+			List<String> defaults = new ArrayList<>();
+			
+			StringBuilder literal = new StringBuilder();
+			int i = 0;
+			while (i < raw.length()) {
+				
+				if (raw.startsWith("$${", i)) {
+					literal.append("${");
+					i += 3;
+					continue;
+				}
+				
+				if (!raw.startsWith("${", i)) {
+					literal.append(raw.charAt(i++));
+					continue;
+				}
+				
+				int end = raw.indexOf('}', i + 2);
+				if (end < 0)
+					throw new JSONException("Unterminated reference at " + i + " in \"" + raw + "\"");
+				
+				String reference = raw.substring(i + 2, end);
+				int separator = reference.indexOf(DEFAULT_SEPARATOR);
+				
+				literals.add(literal.toString());
+				literal.setLength(0);
+				references.add((separator < 0 ? reference : reference.substring(0, separator)).trim());
+				defaults.add(separator < 0 ? null : reference.substring(separator + DEFAULT_SEPARATOR.length()));
+				
+				i = end + 1;
+				
+			}
+			literals.add(literal.toString());
+			
+			return new Template(literals.toArray(new String[0]), references.toArray(new String[0]), defaults.toArray(new String[0]));
+			
+		}
+		
+	}
+	
+}
@@ -0,0 +1,85 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Utility methods for working with trees of {@link JSONObject}s and {@link JSONArray}s.
+ */
+final class JsonTrees {
+	
+	private JsonTrees() {
+	}
+	
+	/**
+	 * Copies a {@link JSONObject} and all {@link JSONObject}s and {@link JSONArray}s nested in it.
+	 * Primitive arrays are cloned, other values are immutable or opaque to the {@link Configuration} and are not copied.
+	 *
+	 * @param source the {@link JSONObject} to copy
+	 * @return the copy
+	 */
+	static JSONObject deepCopy(JSONObject source) {
+		JSONObject copy = new JSONObject();
+		for (String key : source.keySet()) {
+			copy.put(key, deepCopyValue(source.opt(key)));
+		}
+		return copy;
+	}
+	
+	/**
+	 * Copies a {@link JSONArray} and all {@link JSONObject}s and {@link JSONArray}s nested in it.
+	 *
+	 * @param source the {@link JSONArray} to copy
+	 * @return the copy
+	 */
+	static JSONArray deepCopy(JSONArray source) {
+		JSONArray copy = new JSONArray(source.length());
+		for (int i = 0; i < source.length(); i++) {
+			copy.put(deepCopyValue(source.opt(i)));
+		}
+		return copy;
+	}
+	
+	static Object deepCopyValue(Object value) {
+		if (value instanceof JSONObject)
+			return deepCopy((JSONObject) value);
+		if (value instanceof JSONArray)
+			return deepCopy((JSONArray) value);
+		if (value instanceof int[])
+			return ((int[]) value).clone();
+		if (value instanceof long[])
+			return ((long[]) value).clone();
+		if (value instanceof double[])
+			return ((double[]) value).clone();
+		return value;
+	}
+	
+	/**
+	 * Finds the value at a dotted path. A key containing dots itself is preferred over a nested {@link JSONObject} of the same path.
+	 *
+	 * @param object the {@link JSONObject} to search
+	 * @param path   the dotted path
+	 * @return the value, null if there is none
+	 */
+	static Object valueAt(JSONObject object, String path) {
+		
+		Object value = object.opt(path);
+		if (value != null)
+			return value;
+		
+		int dot = path.indexOf('.');
+		while (dot >= 0) {
+			Object nested = object.opt(path.substring(0, dot));
+			if (nested instanceof JSONObject) {
+				value = valueAt((JSONObject) nested, path.substring(dot + 1));
+				if (value != null)
+					return value;
+			}
+			dot = path.indexOf('.', dot + 1);
+		}
+		
+		return null;
+		
+	}
+	
+}
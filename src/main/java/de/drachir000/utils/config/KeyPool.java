@@ -0,0 +1,107 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.Reader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A shared table of key strings, so equal keys of many {@link Configuration} instances share one {@link String} instance.
+ * The pool is disabled by default, see {@link SimpleConfigLib#setKeyInterning(boolean)}.
+ * To stay bounded if keys are generated dynamically, no more keys are added once {@link #MAX_SIZE} keys are pooled.
+ */
+final class KeyPool {
+	
+	static final int MAX_SIZE = 1 << 16;
+	
+	private static final ConcurrentMap<String, String> KEYS = new ConcurrentHashMap<>();
+	private static volatile boolean enabled = false;
+	
+	private KeyPool() {
+	}
+	
+	static void setEnabled(boolean enabled) {
+		KeyPool.enabled = enabled;
+		if (!enabled)
+			KEYS.clear();
+	}
+	
+	static boolean isEnabled() {
+		return enabled;
+	}
+	
+	static int size() {
+		return KEYS.size();
+	}
+	
+	/**
+	 * @return the pooled instance of the key, or the key itself if the pool is disabled or full
+	 */
+	static String intern(String key) {
+		
+		if (!enabled || key == null)
+			return key;
+		
+		String pooled = KEYS.get(key);
+		if (pooled != null)
+			return pooled;
+		
+		if (KEYS.size() >= MAX_SIZE)
+			return key;
+		
+		pooled = KEYS.putIfAbsent(key, key);
+		return pooled == null ? key : pooled;
+		
+	}
+	
+	/**
+	 * Parses a JSON object, pooling all keys of it and its nested objects while they are read.
+	 */
+	static JSONObject parse(String source) throws JSONException {
+		
+		if (!enabled)
+			return new JSONObject(source);
+		
+		return new JSONObject(new InterningTokener(source));
+		
+	}
+	
+	/**
+	 * @return a tokener reading from the reader, which pools all keys if the pool is enabled
+	 */
+	static JSONTokener tokener(Reader reader) {
+		return enabled ? new InterningTokener(reader) : new JSONTokener(reader);
+	}
+	
+	/**
+	 * A {@link JSONTokener} pooling every string followed by a colon, i.e. every key.
+	 * Nested objects and arrays are parsed by the same tokener, so their keys are pooled as well.
+	 */
+	private static final class InterningTokener extends JSONTokener {
+		
+		InterningTokener(String source) {
+			super(source);
+		}
+		
+		InterningTokener(Reader reader) {
+			super(reader);
+		}
+		
+		@Override
+		public String nextString(char quote) throws JSONException {
+			
+			String string = super.nextString(quote);
+			
+			char next = nextClean();
+			back();
+			
+			return next == ':' ? intern(string) : string;
+			
+		}
+		
+	}
+	
+}
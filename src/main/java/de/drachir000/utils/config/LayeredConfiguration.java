@@ -0,0 +1,250 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Configuration} stacking several {@link Configuration}s, e.g. built-in defaults, a site file and a per-instance file.
+ * A key resolves to its value in the layer with the highest precedence defining it; nested {@link Configuration}s defined
+ * by several layers are merged key by key with the same rule.
+ * <p>
+ * The resolved values are kept in the content of this {@link Configuration}, so a read is a single lookup instead of a probe
+ * of every layer. The layers are subscribed to synchronously: a modification of a layer re-resolves only the changed keys,
+ * and change listeners of this {@link Configuration} are notified about the resolved changes, not about changes hidden by a layer above.
+ * <p>
+ * Modifications of a {@link LayeredConfiguration} are written to the layer with the highest precedence. Nested {@link Configuration}s
+ * returned by {@link Configuration#getConfiguration(String)} are read-only, modify the nested {@link Configuration}s of a layer instead.
+ * Like a plain {@link Configuration}, a {@link LayeredConfiguration} must not be read while one of its layers is modified by another thread.
+ *
+ * @see SimpleConfigLib#layeredConfiguration(Configuration...)
+ * @since 2.2
+ */
+public class LayeredConfiguration extends Configuration {
+	
+	private final List<Configuration> layers;
+	private final List<ConfigurationSubscription> subscriptions = new ArrayList<>();
+	private final Object resolveLock = new Object();
+	
+	/**
+	 * Create a {@link LayeredConfiguration} of several layers.
+	 *
+	 * @param layers The layers, lowest precedence first.
+	 * @throws IllegalArgumentException if no layer is given
+	 * @see SimpleConfigLib#layeredConfiguration(Configuration...)
+	 */
+	protected LayeredConfiguration(List<Configuration> layers) throws IllegalArgumentException {
+		
+		super(new JSONObject());
+		
+		if (layers.isEmpty())
+			throw new IllegalArgumentException("A LayeredConfiguration needs at least one layer!");
+		this.layers = List.copyOf(layers);
+		
+		synchronized (resolveLock) {
+			
+			Set<String> keys = new LinkedHashSet<>();
+			for (Configuration layer : this.layers) {
+				keys.addAll(layer.getKeys());
+			}
+			for (String key : keys) {
+				resolve(key);
+			}
+			
+			for (Configuration layer : this.layers) {
+				subscriptions.add(layer.subscribe("", this::layerChanged, Runnable::run));
+			}
+			
+		}
+		
+	}
+	
+	/**
+	 * @return the layers, lowest precedence first
+	 */
+	public List<Configuration> getLayers() {
+		return layers;
+	}
+	
+	/**
+	 * Find the layer a key is resolved from.
+	 *
+	 * @param key A key string.
+	 * @return the layer with the highest precedence defining the key, null if no layer defines it
+	 */
+	public Configuration getSourceLayer(String key) {
+		for (int i = layers.size() - 1; i >= 0; i--) {
+			if (layers.get(i).peek(key) != null)
+				return layers.get(i);
+		}
+		return null;
+	}
+	
+	/**
+	 * Stop following the modifications of the layers. The resolved values stay as they are, and modifications of this
+	 * {@link Configuration} are still written to the top layer, but no longer re-resolved.
+	 * Detach a {@link LayeredConfiguration} which is no longer used, since the subscriptions keep it reachable from its layers.
+	 */
+	public void detach() {
+		synchronized (resolveLock) {
+			for (ConfigurationSubscription subscription : subscriptions) {
+				subscription.cancel();
+			}
+			subscriptions.clear();
+		}
+	}
+	
+	/**
+	 * Writes the value to the layer with the highest precedence, which re-resolves the key.
+	 */
+	@Override
+	protected Object put(String key, Object value) {
+		Object prevValue = content.opt(key);
+		topLayer().set(key, value);
+		return prevValue;
+	}
+	
+	/**
+	 * Writes the values to the layer with the highest precedence as a single modification.
+	 */
+	@Override
+	protected Map<String, Object> putAll(Map<String, Object> values) {
+		
+		Map<String, Object> prevValues = new LinkedHashMap<>();
+		for (String key : values.keySet()) {
+			prevValues.put(key, content.opt(key));
+		}
+		
+		topLayer().update(tx -> values.forEach(tx::set));
+		
+		return prevValues;
+		
+	}
+	
+	/**
+	 * Merges into the layer with the highest precedence, which re-resolves the modified keys.
+	 *
+	 * @return the changes of the top layer
+	 */
+	@Override
+	protected ConfigurationChange mergeContent(JSONObject source, MergePolicy policy) {
+		return topLayer().merge(new Configuration(source), policy);
+	}
+	
+	/**
+	 * Does nothing: listeners are notified once the modified layer has been re-resolved.
+	 */
+	@Override
+	protected void fireChange(ConfigurationChange change) {
+	}
+	
+	@Override
+	protected Configuration createChild(JSONObject jsonObject) {
+		return new ReadOnlyConfiguration(jsonObject);
+	}
+	
+	private Configuration topLayer() {
+		return layers.get(layers.size() - 1);
+	}
+	
+	private void layerChanged(ConfigurationChange change) {
+		
+		ConfigurationChange resolved;
+		synchronized (resolveLock) {
+			
+			Map<String, Object> oldValues = new LinkedHashMap<>();
+			Set<String> keys = new LinkedHashSet<>();
+			
+			// A changed path "a.b.c" is either nested in the key "a", or a key containing dots itself
+			for (String path : change.getKeys()) {
+				oldValues.put(path, JsonTrees.valueAt(content, path));
+				for (int dot = path.indexOf('.'); dot >= 0; dot = path.indexOf('.', dot + 1)) {
+					keys.add(path.substring(0, dot));
+				}
+				keys.add(path);
+			}
+			
+			for (String key : keys) {
+				resolve(key);
+			}
+			
+			Map<String, Object> newValues = new LinkedHashMap<>();
+			for (String path : change.getKeys()) {
+				newValues.put(path, JsonTrees.valueAt(content, path));
+			}
+			
+			resolved = ConfigurationChange.of(oldValues, newValues);
+			
+		}
+		
+		super.fireChange(resolved);
+		
+	}
+	
+	/**
+	 * Update the resolved value of a key from the layers.
+	 */
+	private void resolve(String key) {
+		
+		Object resolved = null;
+		boolean merged = false;
+		for (int i = layers.size() - 1; i >= 0; i--) {
+			
+			Object value = layers.get(i).peek(key);
+			if (value == null)
+				continue;
+			
+			if (resolved == null) {
+				resolved = value;
+			} else if (value instanceof JSONObject && resolved instanceof JSONObject) {
+				resolved = merge((JSONObject) value, (JSONObject) resolved);
+				merged = true;
+			} else {
+				// A value which is not a JSONObject hides everything below it
+				break;
+			}
+			
+			if (!(resolved instanceof JSONObject))
+				break;
+			
+		}
+		
+		if (resolved == null) {
+			content.remove(key);
+		} else {
+			// The resolved tree must not share objects with a layer, or a nested modification of the layer would change it before it is compared
+			content.put(KeyPool.intern(key), merged ? resolved : JsonTrees.deepCopyValue(resolved));
+		}
+		
+	}
+	
+	/**
+	 * Merges two {@link JSONObject}s into a new one, the values of the higher one win. Neither of them is modified,
+	 * and the result shares no objects or arrays with them.
+	 */
+	private static JSONObject merge(JSONObject lower, JSONObject higher) {
+		
+		JSONObject merged = new JSONObject();
+		for (String key : lower.keySet()) {
+			if (!higher.has(key))
+				merged.put(key, JsonTrees.deepCopyValue(lower.opt(key)));
+		}
+		
+		for (String key : higher.keySet()) {
+			Object value = higher.opt(key);
+			Object below = lower.opt(key);
+			merged.put(key, value instanceof JSONObject && below instanceof JSONObject
+					? merge((JSONObject) below, (JSONObject) value)
+					: JsonTrees.deepCopyValue(value));
+		}
+		
+		return merged;
+		
+	}
+	
+}
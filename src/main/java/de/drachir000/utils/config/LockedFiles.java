@@ -0,0 +1,199 @@
+package de.drachir000.utils.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Reads and writes files while holding a {@link FileLock}, to coordinate with other processes using the same file.
+ * A {@link FileLock} is held on behalf of the whole JVM and the same region cannot be locked twice within one JVM,
+ * so threads of this JVM are serialized per file by an additional {@link ReentrantLock}.
+ * Locks are only held while the bytes are read or written; parsing and serializing happen outside.
+ */
+final class LockedFiles {
+	
+	static final FileLockStatistics STATISTICS = new FileLockStatistics();
+	
+	private static final Map<Path, LocalLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+	
+	private LockedFiles() {
+	}
+	
+	static int localLockCount() {
+		return LOCAL_LOCKS.size();
+	}
+	
+	/**
+	 * Reads a file while holding a shared lock.
+	 *
+	 * @return the content of the file, null if it does not exist
+	 */
+	static byte[] read(File file) throws IOException {
+		
+		Path path = path(file);
+		long start = System.nanoTime();
+		LocalLock local = acquireLocal(path);
+		try {
+			
+			FileChannel channel;
+			try {
+				channel = FileChannel.open(path, StandardOpenOption.READ);
+			} catch (NoSuchFileException e) {
+				return null;
+			}
+			
+			try (channel) {
+				FileLock lock = lock(channel, true, start, local.contended);
+				try {
+					return readFully(channel);
+				} finally {
+					lock.release();
+				}
+			}
+			
+		} finally {
+			releaseLocal(path, local);
+		}
+		
+	}
+	
+	/**
+	 * Replaces the content of a file while holding an exclusive lock.
+	 */
+	static void write(File file, byte[] content) throws IOException {
+		compareAndWrite(file, null, content, false);
+	}
+	
+	/**
+	 * Replaces the content of a file while holding an exclusive lock, but only if the file still has the expected content.
+	 *
+	 * @param expected the expected content, null if the file is expected to be missing or empty
+	 * @return true if the content was replaced
+	 */
+	static boolean compareAndWrite(File file, byte[] expected, byte[] content) throws IOException {
+		return compareAndWrite(file, expected, content, true);
+	}
+	
+	private static boolean compareAndWrite(File file, byte[] expected, byte[] content, boolean compare) throws IOException {
+		
+		Path path = path(file);
+		long start = System.nanoTime();
+		LocalLock local = acquireLocal(path);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+			
+			FileLock lock = lock(channel, false, start, local.contended);
+			try {
+				
+				if (compare) {
+					byte[] current = readFully(channel);
+					if (!Arrays.equals(current, expected == null ? new byte[0] : expected))
+						return false;
+				}
+				
+				channel.truncate(0);
+				channel.position(0);
+				
+				ByteBuffer buffer = ByteBuffer.wrap(content);
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(false);
+				
+				return true;
+				
+			} finally {
+				lock.release();
+			}
+			
+		} finally {
+			releaseLocal(path, local);
+		}
+		
+	}
+	
+	private static byte[] readFully(FileChannel channel) throws IOException {
+		
+		long size = channel.size();
+		if (size > Integer.MAX_VALUE - 8)
+			throw new IOException("The file is too large (" + size + " bytes)!");
+		
+		ByteBuffer buffer = ByteBuffer.allocate((int) size);
+		channel.position(0);
+		while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+		}
+		
+		return buffer.position() == buffer.capacity() ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+		
+	}
+	
+	/**
+	 * Locks the lock of this JVM for a file, creating it if no other thread uses it.
+	 */
+	private static LocalLock acquireLocal(Path path) {
+		
+		LocalLock local = LOCAL_LOCKS.compute(path, (p, existing) -> {
+			LocalLock l = existing == null ? new LocalLock() : existing;
+			l.users++;
+			return l;
+		});
+		
+		boolean contended = !local.lock.tryLock();
+		if (contended)
+			local.lock.lock();
+		local.contended = contended;
+		
+		return local;
+		
+	}
+	
+	/**
+	 * Unlocks the lock of this JVM for a file and removes it once no thread uses it anymore, so the map does not grow with every path ever used.
+	 */
+	private static void releaseLocal(Path path, LocalLock local) {
+		local.lock.unlock();
+		LOCAL_LOCKS.computeIfPresent(path, (p, l) -> --l.users == 0 ? null : l);
+	}
+	
+	private static FileLock lock(FileChannel channel, boolean shared, long start, boolean contended) throws IOException {
+		
+		FileLock lock = channel.tryLock(0L, Long.MAX_VALUE, shared);
+		if (lock == null) {
+			contended = true;
+			lock = channel.lock(0L, Long.MAX_VALUE, shared);
+		}
+		
+		STATISTICS.recordAcquisition(contended ? System.nanoTime() - start : 0L, contended);
+		
+		return lock;
+		
+	}
+	
+	private static Path path(File file) {
+		return file.toPath().toAbsolutePath().normalize();
+	}
+	
+	/**
+	 * The lock of this JVM for a file, with the number of threads holding or waiting for it. The count is guarded by {@link #LOCAL_LOCKS}.
+	 */
+	private static final class LocalLock {
+		
+		final ReentrantLock lock = new ReentrantLock();
+		int users;
+		
+		/**
+		 * Whether the current holder had to wait for another thread, only accessed while holding the lock.
+		 */
+		boolean contended;
+		
+	}
+	
+}
@@ -0,0 +1,309 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Describes how {@link Configuration#merge(Configuration, MergePolicy)} combines two {@link Configuration}s:
+ * whether nested {@link Configuration}s are merged or replaced, how arrays are combined, how conflicting values are resolved
+ * and whether null values remove keys. A policy is immutable and can be shared.
+ *
+ * <pre>{@code
+ * MergePolicy policy = MergePolicy.builder()
+ *         .arrays(MergePolicy.ArrayStrategy.APPEND_DISTINCT)
+ *         .onConflict((path, current, incoming) -> path.startsWith("security.") ? current : incoming)
+ *         .build();
+ * }</pre>
+ *
+ * @since 2.2
+ */
+public final class MergePolicy {
+	
+	/**
+	 * Merges nested {@link Configuration}s key by key, replaces arrays and lets the incoming values win.
+	 */
+	public static final MergePolicy DEFAULT = builder().build();
+	
+	private final ObjectStrategy objects;
+	private final ArrayStrategy arrays;
+	private final ConflictResolver conflictResolver;
+	private final boolean nullRemoves;
+	
+	private MergePolicy(Builder builder) {
+		this.objects = builder.objects;
+		this.arrays = builder.arrays;
+		this.conflictResolver = builder.conflictResolver;
+		this.nullRemoves = builder.nullRemoves;
+	}
+	
+	/**
+	 * Creates a new {@link Builder} for a policy.
+	 *
+	 * @return a new {@link Builder}
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+	
+	/**
+	 * Merges a {@link JSONObject} into another one in place. Values taken from the source are copied, so the trees share no mutable objects afterwards.
+	 * Shared fragments of included files are copied before they are modified.
+	 *
+	 * @param target    the {@link JSONObject} to modify
+	 * @param source    the {@link JSONObject} to merge into the target
+	 * @param prefix    the path of the target, an empty {@link String} for the root
+	 * @param oldValues receives the previous values of the modified paths
+	 * @param newValues receives the new values of the modified paths
+	 */
+	void merge(JSONObject target, JSONObject source, String prefix, Map<String, Object> oldValues, Map<String, Object> newValues) {
+		for (String key : source.keySet()) {
+			
+			Object incoming = source.opt(key);
+			Object current = target.opt(key);
+			String path = prefix.isEmpty() ? key : prefix + "." + key;
+			
+			if (incoming == JSONObject.NULL && nullRemoves) {
+				if (current != null) {
+					target.remove(key);
+					record(path, current, null, oldValues, newValues);
+				}
+				continue;
+			}
+			
+			if (current == null) {
+				Object value = JsonTrees.deepCopyValue(incoming);
+				target.put(KeyPool.intern(key), value);
+				record(path, null, value, oldValues, newValues);
+				continue;
+			}
+			
+			if (objects == ObjectStrategy.MERGE && current instanceof JSONObject && incoming instanceof JSONObject) {
+				JSONObject nested = (JSONObject) current;
+				if (nested instanceof Includes.SharedJSONObject) {
+					nested = ((Includes.SharedJSONObject) nested).copy();
+					target.put(key, nested);
+				}
+				merge(nested, (JSONObject) incoming, path, oldValues, newValues);
+				continue;
+			}
+			
+			if (arrays != ArrayStrategy.REPLACE && isArray(current) && isArray(incoming)) {
+				JSONArray merged = mergeArrays(path, toJSONArray(current), toJSONArray(incoming));
+				if (!merged.similar(toJSONArray(current))) {
+					target.put(key, merged);
+					record(path, current, merged, oldValues, newValues);
+				}
+				continue;
+			}
+			
+			if (equal(current, incoming))
+				continue;
+			
+			Object value = conflictResolver == null ? incoming : conflictResolver.resolve(path, current, incoming);
+			if (value == current)
+				continue;
+			
+			value = JsonTrees.deepCopyValue(value);
+			if (value == null) {
+				target.remove(key);
+			} else {
+				target.put(key, value);
+			}
+			record(path, current, value, oldValues, newValues);
+			
+		}
+	}
+	
+	/**
+	 * @param path the path of the array, the conflicts within merged elements are resolved with paths like {@code servers[0].host}
+	 */
+	private JSONArray mergeArrays(String path, JSONArray current, JSONArray incoming) {
+		
+		JSONArray merged = new JSONArray(current.length() + incoming.length());
+		for (Object element : current) {
+			merged.put(element);
+		}
+		
+		switch (arrays) {
+			case APPEND:
+				for (Object element : incoming) {
+					merged.put(JsonTrees.deepCopyValue(element));
+				}
+				break;
+			case APPEND_DISTINCT:
+				for (Object element : incoming) {
+					if (!contains(merged, element))
+						merged.put(JsonTrees.deepCopyValue(element));
+				}
+				break;
+			case MERGE_BY_INDEX:
+				for (int i = 0; i < incoming.length(); i++) {
+					Object element = incoming.opt(i);
+					Object existing = merged.opt(i);
+					if (existing instanceof JSONObject && element instanceof JSONObject) {
+						JSONObject copy = JsonTrees.deepCopy((JSONObject) existing);
+						// The changes of the elements are recorded as a change of the whole array
+						merge(copy, (JSONObject) element, path + "[" + i + "]", new HashMap<>(), new HashMap<>());
+						merged.put(i, copy);
+					} else {
+						merged.put(i, JsonTrees.deepCopyValue(element));
+					}
+				}
+				break;
+			default:
+				throw new IllegalStateException("Unexpected array strategy " + arrays);
+		}
+		
+		return merged;
+		
+	}
+	
+	private static void record(String path, Object oldValue, Object newValue, Map<String, Object> oldValues, Map<String, Object> newValues) {
+		oldValues.put(path, oldValue);
+		newValues.put(path, newValue);
+	}
+	
+	private static boolean isArray(Object value) {
+		return value instanceof JSONArray || Configuration.isPrimitiveArray(value);
+	}
+	
+	private static JSONArray toJSONArray(Object value) {
+		return value instanceof JSONArray ? (JSONArray) value : new JSONArray(value);
+	}
+	
+	private static boolean contains(JSONArray array, Object element) {
+		for (Object existing : array) {
+			if (equal(existing, element))
+				return true;
+		}
+		return false;
+	}
+	
+	private static boolean equal(Object a, Object b) {
+		if (a instanceof JSONObject && b instanceof JSONObject)
+			return ((JSONObject) a).similar(b);
+		if (a instanceof JSONArray && b instanceof JSONArray)
+			return ((JSONArray) a).similar(b);
+		if (a instanceof Number && b instanceof Number)
+			return JSONObject.numberToString((Number) a).equals(JSONObject.numberToString((Number) b));
+		return a.equals(b);
+	}
+	
+	/**
+	 * How nested {@link Configuration}s present on both sides are combined.
+	 */
+	public enum ObjectStrategy {
+		/**
+		 * Merge them key by key, recursively.
+		 */
+		MERGE,
+		/**
+		 * Treat them as a conflict, by default the incoming one replaces the current one.
+		 */
+		REPLACE
+	}
+	
+	/**
+	 * How arrays present on both sides are combined.
+	 */
+	public enum ArrayStrategy {
+		/**
+		 * Treat them as a conflict, by default the incoming array replaces the current one.
+		 */
+		REPLACE,
+		/**
+		 * Append the incoming elements to the current ones.
+		 */
+		APPEND,
+		/**
+		 * Append the incoming elements which are not contained in the current array yet.
+		 */
+		APPEND_DISTINCT,
+		/**
+		 * Merge the elements at the same index: nested {@link Configuration}s are merged, other elements are replaced,
+		 * additional incoming elements are appended.
+		 */
+		MERGE_BY_INDEX
+	}
+	
+	/**
+	 * Decides the value of a key whose current and incoming values differ and cannot be merged.
+	 * The resolver is called while the target {@link Configuration} is being modified; for a {@link ConcurrentConfiguration} its write lock is held,
+	 * so the resolver must not access the target {@link Configuration} and should only decide between the given values.
+	 */
+	@FunctionalInterface
+	public interface ConflictResolver {
+		
+		/**
+		 * @param path     the dotted path of the key
+		 * @param current  the current value
+		 * @param incoming the incoming value
+		 * @return the value to store, null to remove the key
+		 */
+		Object resolve(String path, Object current, Object incoming);
+		
+	}
+	
+	/**
+	 * Configures a {@link MergePolicy}.
+	 */
+	public static final class Builder {
+		
+		private ObjectStrategy objects = ObjectStrategy.MERGE;
+		private ArrayStrategy arrays = ArrayStrategy.REPLACE;
+		private ConflictResolver conflictResolver;
+		private boolean nullRemoves;
+		
+		private Builder() {
+		}
+		
+		/**
+		 * @param strategy how nested {@link Configuration}s are combined, {@link ObjectStrategy#MERGE} by default
+		 * @return this {@link Builder}
+		 */
+		public Builder objects(ObjectStrategy strategy) {
+			this.objects = strategy;
+			return this;
+		}
+		
+		/**
+		 * @param strategy how arrays are combined, {@link ArrayStrategy#REPLACE} by default
+		 * @return this {@link Builder}
+		 */
+		public Builder arrays(ArrayStrategy strategy) {
+			this.arrays = strategy;
+			return this;
+		}
+		
+		/**
+		 * @param resolver decides conflicting values, by default the incoming value wins
+		 * @return this {@link Builder}
+		 */
+		public Builder onConflict(ConflictResolver resolver) {
+			this.conflictResolver = resolver;
+			return this;
+		}
+		
+		/**
+		 * Remove keys whose incoming value is {@link JSONObject#NULL}, like a JSON merge patch.
+		 *
+		 * @return this {@link Builder}
+		 */
+		public Builder nullRemoves() {
+			this.nullRemoves = true;
+			return this;
+		}
+		
+		/**
+		 * @return the {@link MergePolicy}
+		 */
+		public MergePolicy build() {
+			return new MergePolicy(this);
+		}
+		
+	}
+	
+}
@@ -0,0 +1,875 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * A read-only {@link Configuration} whose values live outside the Java heap, in a direct {@link ByteBuffer}.
+ * The whole tree is stored in one compact binary layout: every object is a section holding an open-addressing hash index
+ * of its keys, followed by the entries. Nested objects are stored inline, so {@link #getConfiguration(String)} returns a view
+ * of the same buffer, and the typed getters read numbers, booleans and strings directly without building any {@link JSONObject}.
+ * Other values, e.g. {@link JSONArray}s, are decoded onto the heap when they are requested.
+ * <p>
+ * As the buffer holds no references, the garbage collector does not have to trace the configuration,
+ * so GC pauses do not grow with its size. The buffer is released when the configuration becomes unreachable.
+ * A single buffer is limited to 2 GB. All reads are absolute, so an {@link OffHeapConfiguration} is thread-safe.
+ * All modifications throw an {@link UnsupportedOperationException}.
+ *
+ * @see SimpleConfigLib#offHeapConfiguration(Configuration)
+ * @since 2.2
+ */
+public class OffHeapConfiguration extends Configuration {
+	
+	private static final byte NULL = 0;
+	private static final byte FALSE = 1;
+	private static final byte TRUE = 2;
+	private static final byte INT = 3;
+	private static final byte LONG = 4;
+	private static final byte DOUBLE = 5;
+	private static final byte BIG_INTEGER = 6;
+	private static final byte BIG_DECIMAL = 7;
+	private static final byte STRING = 8;
+	private static final byte OBJECT = 9;
+	private static final byte ARRAY = 10;
+	private static final byte INT_ARRAY = 11;
+	private static final byte LONG_ARRAY = 12;
+	private static final byte DOUBLE_ARRAY = 13;
+	
+	/*
+	 * Section:  int length | int count | int tableSize | int[tableSize] entry offsets (0 = empty) | entries
+	 * Entry:    int hash | int keyLength | char[keyLength] key | value
+	 * Value:    byte type | payload
+	 * Payloads: INT int, LONG long, DOUBLE double, STRING/BIG_* int byteLength + UTF-8 bytes, OBJECT section,
+	 *           ARRAY int length + int count + values, *_ARRAY int count + elements
+	 */
+	private static final int SECTION_HEADER = 12;
+	
+	private final ByteBuffer buffer;
+	private final int section;
+	
+	OffHeapConfiguration(ByteBuffer buffer, int section) {
+		super(new JSONObject());
+		this.buffer = buffer;
+		this.section = section;
+	}
+	
+	/**
+	 * Copies the content of a {@link JSONObject} into a new direct buffer.
+	 *
+	 * @throws IllegalArgumentException if the content does not fit into a single buffer
+	 */
+	static OffHeapConfiguration of(JSONObject content) throws IllegalArgumentException {
+		
+		long size = sectionSize(content);
+		if (size > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("The configuration is too large for an off-heap buffer (" + size + " bytes)!");
+		
+		ByteBuffer buffer = ByteBuffer.allocateDirect((int) size).order(ByteOrder.nativeOrder());
+		writeSection(buffer, 0, content);
+		
+		return new OffHeapConfiguration(buffer, 0);
+		
+	}
+	
+	/**
+	 * @return the number of bytes occupied outside the heap by this {@link Configuration} and everything nested in it
+	 */
+	public long getOffHeapSize() {
+		return buffer.getInt(section);
+	}
+	
+	/**
+	 * Returns the number of bytes occupied outside the heap, as {@link #getOffHeapSize()}.
+	 * The heap retained by the view itself is a few objects and not counted.
+	 *
+	 * @return the size of the buffer section of this {@link Configuration} in bytes
+	 */
+	@Override
+	public long estimateRetainedSize() {
+		return getOffHeapSize();
+	}
+	
+	/**
+	 * Breaks down the bytes occupied outside the heap: the section headers, hash indexes and entry headers are counted as
+	 * {@link ConfigurationFootprint.Category#STRUCTURE}, the key characters as {@link ConfigurationFootprint.Category#KEY}
+	 * and every value with its type byte in its category. The subtree sizes are the lengths of the nested sections.
+	 *
+	 * @return the exact layout of the buffer section of this {@link Configuration}
+	 */
+	@Override
+	public ConfigurationFootprint footprint() {
+		ConfigurationFootprint footprint = ConfigurationFootprint.empty();
+		footprint.putSubtree("", 0L);
+		footprint.putSubtree("", sectionFootprint(section, "", footprint));
+		return footprint;
+	}
+	
+	@Override
+	public Object get(String key) throws JSONException {
+		return readValue(find(key, false));
+	}
+	
+	@Override
+	public String getString(String key) throws JSONException {
+		int position = find(key, true);
+		if (buffer.get(position) == STRING) {
+			recordAccess(key, true);
+			return interpolate(key, readString(position + 1));
+		}
+		return super.getString(key);
+	}
+	
+	@Override
+	public int getInt(String key) throws JSONException {
+		int position = find(key, true);
+		if (buffer.get(position) == INT) {
+			recordAccess(key, true);
+			return buffer.getInt(position + 1);
+		}
+		return super.getInt(key);
+	}
+	
+	@Override
+	public long getLong(String key) throws JSONException {
+		int position = find(key, true);
+		switch (buffer.get(position)) {
+			case INT:
+				recordAccess(key, true);
+				return buffer.getInt(position + 1);
+			case LONG:
+				recordAccess(key, true);
+				return buffer.getLong(position + 1);
+			default:
+				return super.getLong(key);
+		}
+	}
+	
+	@Override
+	public double getDouble(String key) throws JSONException {
+		int position = find(key, true);
+		switch (buffer.get(position)) {
+			case INT:
+				recordAccess(key, true);
+				return buffer.getInt(position + 1);
+			case LONG:
+				recordAccess(key, true);
+				return buffer.getLong(position + 1);
+			case DOUBLE:
+				recordAccess(key, true);
+				return buffer.getDouble(position + 1);
+			default:
+				return super.getDouble(key);
+		}
+	}
+	
+	@Override
+	public boolean getBoolean(String key) throws JSONException {
+		int position = find(key, true);
+		switch (buffer.get(position)) {
+			case TRUE:
+				recordAccess(key, true);
+				return true;
+			case FALSE:
+				recordAccess(key, true);
+				return false;
+			default:
+				return super.getBoolean(key);
+		}
+	}
+	
+	/**
+	 * Get the {@link Configuration} value associated with a key. Nested objects are returned as an {@link OffHeapConfiguration}
+	 * sharing the buffer of this {@link Configuration}.
+	 *
+	 * @param key A key string.
+	 * @return A {@link Configuration} of the object stored at the key.
+	 * @throws JSONException if the key is not found or if the value is not an object.
+	 */
+	@Override
+	public Configuration getConfiguration(String key) throws JSONException {
+		int position = find(key, true);
+		if (buffer.get(position) == OBJECT) {
+			recordAccess(key, true);
+			Configuration child = new OffHeapConfiguration(buffer, position + 1);
+			inherit(child, key);
+			return child;
+		}
+		return super.getConfiguration(key);
+	}
+	
+	/**
+	 * Get the int array associated with a key. The array is always copied onto the heap.
+	 *
+	 * @param key A key string.
+	 * @return The int array.
+	 * @throws JSONException if the key is not found or if the value is not an array of numbers.
+	 */
+	@Override
+	public int[] getIntArray(String key) throws JSONException {
+		int position = find(key, true);
+		if (buffer.get(position) == INT_ARRAY) {
+			recordAccess(key, true);
+			int[] array = new int[buffer.getInt(position + 1)];
+			buffer.slice(position + 5, array.length * 4).order(buffer.order()).asIntBuffer().get(array);
+			return array;
+		}
+		return super.getIntArray(key);
+	}
+	
+	/**
+	 * Get the long array associated with a key. The array is always copied onto the heap.
+	 *
+	 * @param key A key string.
+	 * @return The long array.
+	 * @throws JSONException if the key is not found or if the value is not an array of numbers.
+	 */
+	@Override
+	public long[] getLongArray(String key) throws JSONException {
+		int position = find(key, true);
+		if (buffer.get(position) == LONG_ARRAY) {
+			recordAccess(key, true);
+			long[] array = new long[buffer.getInt(position + 1)];
+			buffer.slice(position + 5, array.length * 8).order(buffer.order()).asLongBuffer().get(array);
+			return array;
+		}
+		return super.getLongArray(key);
+	}
+	
+	/**
+	 * Get the double array associated with a key. The array is always copied onto the heap.
+	 *
+	 * @param key A key string.
+	 * @return The double array.
+	 * @throws JSONException if the key is not found or if the value is not an array of numbers.
+	 */
+	@Override
+	public double[] getDoubleArray(String key) throws JSONException {
+		int position = find(key, true);
+		if (buffer.get(position) == DOUBLE_ARRAY) {
+			recordAccess(key, true);
+			double[] array = new double[buffer.getInt(position + 1)];
+			buffer.slice(position + 5, array.length * 8).order(buffer.order()).asDoubleBuffer().get(array);
+			return array;
+		}
+		return super.getDoubleArray(key);
+	}
+	
+	@Override
+	public Set<String> getKeys() {
+		
+		String[] keys = new String[buffer.getInt(section + 4)];
+		
+		int position = entries();
+		for (int i = 0; i < keys.length; i++) {
+			int length = buffer.getInt(position + 4);
+			keys[i] = readKey(position + 8, length);
+			position = skipValue(position + 8 + 2 * length);
+		}
+		
+		return Set.of(keys);
+		
+	}
+	
+	@Override
+	public boolean hasKey(String key) {
+		return key != null && lookup(key) >= 0;
+	}
+	
+	@Override
+	public String toString() {
+		StringWriter writer = new StringWriter();
+		try {
+			writeSectionJson(writer, section);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return writer.toString();
+	}
+	
+	/**
+	 * Write the JSON text of this {@link Configuration} directly from the buffer. An {@link OffHeapConfiguration}
+	 * does not contain unknown objects, so the output does not depend on {@code encodeUnknownObjects}.
+	 *
+	 * @param writer               the {@link Writer} to write the JSON text to
+	 * @param encodeUnknownObjects ignored
+	 * @throws IOException if an I/O error occurs
+	 */
+	@Override
+	public void write(Writer writer, boolean encodeUnknownObjects) throws IOException {
+		writeSectionJson(writer, section);
+	}
+	
+	/**
+	 * @return a new {@link JSONObject} holding a copy of the whole tree
+	 */
+	@Override
+	protected JSONObject toJsonObject() {
+		return readSection(section);
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	protected Object put(String key, Object value) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("This Configuration is read-only!");
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	protected ConfigurationChange mergeContent(JSONObject source, MergePolicy policy) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("This Configuration is read-only!");
+	}
+	
+	@Override
+	protected Configuration createChild(JSONObject jsonObject) {
+		return new ReadOnlyConfiguration(jsonObject);
+	}
+	
+	/* Lookup */
+	
+	/**
+	 * @param count whether a miss is counted by the access metrics, which is left to {@link Configuration} for reads through {@link #get(String)}
+	 */
+	private int find(String key, boolean count) throws JSONException {
+		int position = lookup(key);
+		if (position < 0) {
+			if (count)
+				recordAccess(key, false);
+			throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] not found.");
+		}
+		return position;
+	}
+	
+	/**
+	 * @return the position of the value of the key, -1 if the key is not set
+	 */
+	private int lookup(String key) {
+		
+		if (key == null)
+			throw new NullPointerException("Null key.");
+		
+		int hash = key.hashCode();
+		int mask = buffer.getInt(section + 8) - 1;
+		int table = section + SECTION_HEADER;
+		
+		for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+			
+			int entry = buffer.getInt(table + 4 * slot);
+			if (entry == 0)
+				return -1;
+			
+			if (buffer.getInt(entry) == hash) {
+				int length = buffer.getInt(entry + 4);
+				if (keyEquals(entry + 8, length, key))
+					return entry + 8 + 2 * length;
+			}
+			
+		}
+		
+	}
+	
+	private boolean keyEquals(int position, int length, String key) {
+		if (length != key.length())
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (buffer.getChar(position + 2 * i) != key.charAt(i))
+				return false;
+		}
+		return true;
+	}
+	
+	private int entries() {
+		return section + SECTION_HEADER + 4 * buffer.getInt(section + 8);
+	}
+	
+	/* Reading */
+	
+	private String readKey(int position, int length) {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = buffer.getChar(position + 2 * i);
+		}
+		return KeyPool.intern(new String(chars));
+	}
+	
+	private String readString(int position) {
+		byte[] bytes = new byte[buffer.getInt(position)];
+		buffer.get(position + 4, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	private Object readValue(int position) {
+		switch (buffer.get(position)) {
+			case NULL:
+				return JSONObject.NULL;
+			case FALSE:
+				return Boolean.FALSE;
+			case TRUE:
+				return Boolean.TRUE;
+			case INT:
+				return buffer.getInt(position + 1);
+			case LONG:
+				return buffer.getLong(position + 1);
+			case DOUBLE:
+				return buffer.getDouble(position + 1);
+			case BIG_INTEGER:
+				return new BigInteger(readString(position + 1));
+			case BIG_DECIMAL:
+				return new BigDecimal(readString(position + 1));
+			case STRING:
+				return readString(position + 1);
+			case OBJECT:
+				return readSection(position + 1);
+			case ARRAY:
+				return readArray(position + 1);
+			case INT_ARRAY:
+			case LONG_ARRAY:
+			case DOUBLE_ARRAY:
+				return readPrimitiveArray(position);
+			default:
+				throw new IllegalStateException("Corrupted off-heap configuration at " + position + "!");
+		}
+	}
+	
+	private JSONObject readSection(int position) {
+		
+		int count = buffer.getInt(position + 4);
+		JSONObject object = new JSONObject();
+		
+		int entry = position + SECTION_HEADER + 4 * buffer.getInt(position + 8);
+		for (int i = 0; i < count; i++) {
+			int length = buffer.getInt(entry + 4);
+			int value = entry + 8 + 2 * length;
+			object.put(readKey(entry + 8, length), readValue(value));
+			entry = skipValue(value);
+		}
+		
+		return object;
+		
+	}
+	
+	private JSONArray readArray(int position) {
+		
+		int count = buffer.getInt(position + 4);
+		JSONArray array = new JSONArray(count);
+		
+		int element = position + 8;
+		for (int i = 0; i < count; i++) {
+			array.put(readValue(element));
+			element = skipValue(element);
+		}
+		
+		return array;
+		
+	}
+	
+	private Object readPrimitiveArray(int position) {
+		int count = buffer.getInt(position + 1);
+		ByteBuffer slice = buffer.slice(position + 5, count * (buffer.get(position) == INT_ARRAY ? 4 : 8)).order(buffer.order());
+		switch (buffer.get(position)) {
+			case INT_ARRAY: {
+				int[] array = new int[count];
+				slice.asIntBuffer().get(array);
+				return array;
+			}
+			case LONG_ARRAY: {
+				long[] array = new long[count];
+				slice.asLongBuffer().get(array);
+				return array;
+			}
+			default: {
+				double[] array = new double[count];
+				slice.asDoubleBuffer().get(array);
+				return array;
+			}
+		}
+	}
+	
+	/**
+	 * @return the position after the value
+	 */
+	private int skipValue(int position) {
+		switch (buffer.get(position)) {
+			case NULL:
+			case FALSE:
+			case TRUE:
+				return position + 1;
+			case INT:
+				return position + 5;
+			case LONG:
+			case DOUBLE:
+				return position + 9;
+			case BIG_INTEGER:
+			case BIG_DECIMAL:
+			case STRING:
+				return position + 5 + buffer.getInt(position + 1);
+			case OBJECT:
+			case ARRAY:
+				return position + 1 + buffer.getInt(position + 1);
+			case INT_ARRAY:
+				return position + 5 + 4 * buffer.getInt(position + 1);
+			case LONG_ARRAY:
+			case DOUBLE_ARRAY:
+				return position + 5 + 8 * buffer.getInt(position + 1);
+			default:
+				throw new IllegalStateException("Corrupted off-heap configuration at " + position + "!");
+		}
+	}
+	
+	/* Footprint */
+	
+	/**
+	 * @param path the path of the section to record the sizes of nested sections under, or null to not record them
+	 * @return the length of the section
+	 */
+	private int sectionFootprint(int position, String path, ConfigurationFootprint footprint) {
+		
+		int count = buffer.getInt(position + 4);
+		int tableSize = buffer.getInt(position + 8);
+		footprint.add(ConfigurationFootprint.Category.STRUCTURE, SECTION_HEADER + 4L * tableSize);
+		
+		int entry = position + SECTION_HEADER + 4 * tableSize;
+		for (int i = 0; i < count; i++) {
+			
+			int length = buffer.getInt(entry + 4);
+			footprint.add(ConfigurationFootprint.Category.STRUCTURE, 8);
+			footprint.add(ConfigurationFootprint.Category.KEY, 2L * length);
+			
+			int value = entry + 8 + 2 * length;
+			if (buffer.get(value) == OBJECT && path != null) {
+				String key = readKey(entry + 8, length);
+				String childPath = path.isEmpty() ? key : path + "." + key;
+				footprint.add(ConfigurationFootprint.Category.STRUCTURE, 1);
+				footprint.putSubtree(childPath, 0L);
+				footprint.putSubtree(childPath, (long) sectionFootprint(value + 1, childPath, footprint));
+			} else {
+				valueFootprint(value, footprint);
+			}
+			
+			entry = skipValue(value);
+			
+		}
+		
+		return buffer.getInt(position);
+		
+	}
+	
+	private void valueFootprint(int position, ConfigurationFootprint footprint) {
+		switch (buffer.get(position)) {
+			case OBJECT:
+				footprint.add(ConfigurationFootprint.Category.STRUCTURE, 1);
+				sectionFootprint(position + 1, null, footprint);
+				break;
+			case ARRAY: {
+				footprint.add(ConfigurationFootprint.Category.ARRAY, 9);
+				int count = buffer.getInt(position + 5);
+				int element = position + 9;
+				for (int i = 0; i < count; i++) {
+					valueFootprint(element, footprint);
+					element = skipValue(element);
+				}
+				break;
+			}
+			case STRING: {
+				boolean encoded = ConfigurationFootprint.isEncoded(readString(position + 1));
+				footprint.add(encoded ? ConfigurationFootprint.Category.ENCODED : ConfigurationFootprint.Category.STRING, skipValue(position) - position);
+				break;
+			}
+			case INT:
+			case LONG:
+			case DOUBLE:
+			case BIG_INTEGER:
+			case BIG_DECIMAL:
+				footprint.add(ConfigurationFootprint.Category.NUMBER, skipValue(position) - position);
+				break;
+			case INT_ARRAY:
+			case LONG_ARRAY:
+			case DOUBLE_ARRAY:
+				footprint.add(ConfigurationFootprint.Category.PRIMITIVE_ARRAY, skipValue(position) - position);
+				break;
+			default:
+				footprint.add(ConfigurationFootprint.Category.OTHER, skipValue(position) - position);
+		}
+	}
+	
+	/* JSON output */
+	
+	private void writeSectionJson(Writer writer, int position) throws IOException {
+		
+		int count = buffer.getInt(position + 4);
+		int entry = position + SECTION_HEADER + 4 * buffer.getInt(position + 8);
+		
+		writer.write('{');
+		for (int i = 0; i < count; i++) {
+			
+			if (i > 0)
+				writer.write(',');
+			
+			int length = buffer.getInt(entry + 4);
+			JSONObject.quote(readKey(entry + 8, length), writer);
+			writer.write(':');
+			
+			int value = entry + 8 + 2 * length;
+			writeValueJson(writer, value);
+			entry = skipValue(value);
+			
+		}
+		writer.write('}');
+		
+	}
+	
+	private void writeValueJson(Writer writer, int position) throws IOException {
+		switch (buffer.get(position)) {
+			case STRING:
+				JSONObject.quote(readString(position + 1), writer);
+				break;
+			case OBJECT:
+				writeSectionJson(writer, position + 1);
+				break;
+			case ARRAY: {
+				int count = buffer.getInt(position + 5);
+				int element = position + 9;
+				writer.write('[');
+				for (int i = 0; i < count; i++) {
+					if (i > 0)
+						writer.write(',');
+					writeValueJson(writer, element);
+					element = skipValue(element);
+				}
+				writer.write(']');
+				break;
+			}
+			case INT_ARRAY:
+			case LONG_ARRAY:
+			case DOUBLE_ARRAY:
+				new JSONArray(readPrimitiveArray(position)).write(writer);
+				break;
+			default:
+				writer.write(JSONObject.valueToString(readValue(position)));
+		}
+	}
+	
+	/* Building */
+	
+	private static long sectionSize(JSONObject object) {
+		long size = SECTION_HEADER + 4L * tableSize(object.length());
+		for (String key : object.keySet()) {
+			size += 8 + 2L * key.length() + valueSize(object.opt(key));
+		}
+		return size;
+	}
+	
+	private static long valueSize(Object value) {
+		
+		value = normalize(value);
+		
+		if (value == JSONObject.NULL || value instanceof Boolean)
+			return 1;
+		if (value instanceof Integer)
+			return 5;
+		if (value instanceof Long || value instanceof Double)
+			return 9;
+		if (value instanceof String || value instanceof BigInteger || value instanceof BigDecimal)
+			return 5 + utf8Length(value.toString());
+		if (value instanceof JSONObject)
+			return 1 + sectionSize((JSONObject) value);
+		if (value instanceof int[])
+			return 5 + 4L * ((int[]) value).length;
+		if (value instanceof long[])
+			return 5 + 8L * ((long[]) value).length;
+		if (value instanceof double[])
+			return 5 + 8L * ((double[]) value).length;
+		
+		JSONArray array = (JSONArray) value;
+		long size = 9;
+		for (int i = 0; i < array.length(); i++) {
+			size += valueSize(array.opt(i));
+		}
+		return size;
+		
+	}
+	
+	/**
+	 * Maps every value to one of the types of the binary layout.
+	 */
+	private static Object normalize(Object value) {
+		
+		if (value == null || value == JSONObject.NULL)
+			return JSONObject.NULL;
+		if (value instanceof Byte || value instanceof Short)
+			return ((Number) value).intValue();
+		if (value instanceof Float)
+			return ((Float) value).doubleValue();
+		if (value instanceof Character || value instanceof Enum)
+			return value.toString();
+		if (value instanceof Boolean || value instanceof Number || value instanceof String || value instanceof JSONObject
+				|| value instanceof JSONArray || Configuration.isPrimitiveArray(value))
+			return value;
+		
+		Object wrapped = JSONObject.wrap(value);
+		if (wrapped instanceof JSONObject || wrapped instanceof JSONArray)
+			return wrapped;
+		
+		return value.toString();
+		
+	}
+	
+	/**
+	 * @return the position after the section
+	 */
+	private static int writeSection(ByteBuffer buffer, int position, JSONObject object) {
+		
+		int count = object.length();
+		int tableSize = tableSize(count);
+		int mask = tableSize - 1;
+		int table = position + SECTION_HEADER;
+		
+		buffer.putInt(position + 4, count);
+		buffer.putInt(position + 8, tableSize);
+		
+		int entry = table + 4 * tableSize;
+		for (String key : object.keySet()) {
+			
+			int hash = key.hashCode();
+			int slot = spread(hash) & mask;
+			while (buffer.getInt(table + 4 * slot) != 0) {
+				slot = (slot + 1) & mask;
+			}
+			buffer.putInt(table + 4 * slot, entry);
+			
+			buffer.putInt(entry, hash);
+			buffer.putInt(entry + 4, key.length());
+			for (int i = 0; i < key.length(); i++) {
+				buffer.putChar(entry + 8 + 2 * i, key.charAt(i));
+			}
+			
+			entry = writeValue(buffer, entry + 8 + 2 * key.length(), object.opt(key));
+			
+		}
+		
+		buffer.putInt(position, entry - position);
+		
+		return entry;
+		
+	}
+	
+	/**
+	 * @return the position after the value
+	 */
+	private static int writeValue(ByteBuffer buffer, int position, Object value) {
+		
+		value = normalize(value);
+		
+		if (value == JSONObject.NULL) {
+			buffer.put(position, NULL);
+			return position + 1;
+		}
+		if (value instanceof Boolean) {
+			buffer.put(position, (Boolean) value ? TRUE : FALSE);
+			return position + 1;
+		}
+		if (value instanceof Integer) {
+			buffer.put(position, INT);
+			buffer.putInt(position + 1, (Integer) value);
+			return position + 5;
+		}
+		if (value instanceof Long) {
+			buffer.put(position, LONG);
+			buffer.putLong(position + 1, (Long) value);
+			return position + 9;
+		}
+		if (value instanceof Double) {
+			buffer.put(position, DOUBLE);
+			buffer.putDouble(position + 1, (Double) value);
+			return position + 9;
+		}
+		if (value instanceof String || value instanceof BigInteger || value instanceof BigDecimal) {
+			byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+			buffer.put(position, value instanceof String ? STRING : value instanceof BigInteger ? BIG_INTEGER : BIG_DECIMAL);
+			buffer.putInt(position + 1, bytes.length);
+			buffer.put(position + 5, bytes);
+			return position + 5 + bytes.length;
+		}
+		if (value instanceof JSONObject) {
+			buffer.put(position, OBJECT);
+			return writeSection(buffer, position + 1, (JSONObject) value);
+		}
+		if (value instanceof int[]) {
+			int[] array = (int[]) value;
+			buffer.put(position, INT_ARRAY);
+			buffer.putInt(position + 1, array.length);
+			buffer.slice(position + 5, array.length * 4).order(buffer.order()).asIntBuffer().put(array);
+			return position + 5 + array.length * 4;
+		}
+		if (value instanceof long[]) {
+			long[] array = (long[]) value;
+			buffer.put(position, LONG_ARRAY);
+			buffer.putInt(position + 1, array.length);
+			buffer.slice(position + 5, array.length * 8).order(buffer.order()).asLongBuffer().put(array);
+			return position + 5 + array.length * 8;
+		}
+		if (value instanceof double[]) {
+			double[] array = (double[]) value;
+			buffer.put(position, DOUBLE_ARRAY);
+			buffer.putInt(position + 1, array.length);
+			buffer.slice(position + 5, array.length * 8).order(buffer.order()).asDoubleBuffer().put(array);
+			return position + 5 + array.length * 8;
+		}
+		
+		JSONArray array = (JSONArray) value;
+		buffer.put(position, ARRAY);
+		buffer.putInt(position + 5, array.length());
+		
+		int element = position + 9;
+		for (int i = 0; i < array.length(); i++) {
+			element = writeValue(buffer, element, array.opt(i));
+		}
+		
+		buffer.putInt(position + 1, element - (position + 1));
+		
+		return element;
+		
+	}
+	
+	private static int tableSize(int count) {
+		return Integer.highestOneBit(Math.max(1, count * 2 - 1)) << 1;
+	}
+	
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+	
+	private static int utf8Length(String string) {
+		int length = 0;
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (c < 0x80) {
+				length++;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < string.length() && Character.isLowSurrogate(string.charAt(i + 1))) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+	
+}
@@ -0,0 +1,247 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable {@link Configuration} backed by a hash array mapped trie. Instead of being modified, it produces new versions:
+ * {@link #with(String, Object)} returns a new {@link PersistentConfiguration} holding the value, in O(log n), sharing every untouched
+ * part of the tree with this one. Taking a copy to change a few keys therefore costs a few small arrays instead of a deep copy,
+ * and any number of versions can be retained and read concurrently.
+ * <p>
+ * Nested objects are stored as tries themselves, so {@link #getConfiguration(String)} returns a {@link PersistentConfiguration} without copying,
+ * and {@link #withPath(String, Object)} copies only the path to a nested key. Arrays are copied when they are stored and when they are read,
+ * {@link #get(String)} returns nested objects as a new {@link JSONObject}. The setters of {@link Configuration} throw an {@link UnsupportedOperationException}.
+ *
+ * <pre>{@code
+ * PersistentConfiguration defaults = SimpleConfigLib.persistentConfiguration(configuration);
+ * PersistentConfiguration request = defaults.with("locale", "de").withPath("db.timeout", 5);
+ * }</pre>
+ *
+ * @see SimpleConfigLib#persistentConfiguration(Configuration)
+ * @since 2.2
+ */
+public final class PersistentConfiguration extends Configuration {
+	
+	/**
+	 * The content of {@link Configuration} is never used, all versions share a single frozen placeholder.
+	 */
+	private static final JSONObject NO_CONTENT = Includes.SharedJSONObject.freeze(new JSONObject());
+	
+	private final HashTrie trie;
+	
+	private PersistentConfiguration(HashTrie trie) {
+		super(NO_CONTENT);
+		this.trie = trie;
+	}
+	
+	/**
+	 * Copies the content of a {@link JSONObject} into a new trie.
+	 */
+	static PersistentConfiguration of(JSONObject content) {
+		return new PersistentConfiguration(toTrie(content));
+	}
+	
+	/**
+	 * Returns a version of this {@link Configuration} with a value stored at a key. This {@link Configuration} is not modified.
+	 * Storing an equal string, number or boolean, or the nested {@link PersistentConfiguration} already stored at the key, returns this {@link Configuration};
+	 * other objects and arrays are copied when they are stored, so they always produce a new version.
+	 *
+	 * @param key   A key string.
+	 * @param value The value to store, null removes the key. {@link Configuration}s and {@link JSONObject}s are stored as nested {@link Configuration}s.
+	 * @return the new version, this {@link Configuration} if the value is already stored as described above
+	 */
+	public PersistentConfiguration with(String key, Object value) {
+		HashTrie modified = value == null ? trie.without(key) : trie.with(key, store(value));
+		return modified == trie ? this : new PersistentConfiguration(modified);
+	}
+	
+	/**
+	 * Returns a version of this {@link Configuration} without a key. This {@link Configuration} is not modified.
+	 *
+	 * @param key A key string.
+	 * @return the new version, this {@link Configuration} if the key is not set
+	 */
+	public PersistentConfiguration without(String key) {
+		return with(key, null);
+	}
+	
+	/**
+	 * Returns a version of this {@link Configuration} with a value stored at a dotted path, e.g. {@code db.pool.size}.
+	 * Only the nested {@link Configuration}s on the path are copied; missing ones are created, other values on the path are replaced.
+	 *
+	 * @param path  the dotted path of the key
+	 * @param value The value to store, null removes the key.
+	 * @return the new version, this {@link Configuration} if the value is already stored, see {@link #with(String, Object)}
+	 */
+	public PersistentConfiguration withPath(String path, Object value) {
+		HashTrie modified = withPath(trie, path, 0, value);
+		return modified == trie ? this : new PersistentConfiguration(modified);
+	}
+	
+	/**
+	 * @return the number of keys of this {@link Configuration}, not counting the keys of nested {@link Configuration}s
+	 */
+	public int size() {
+		return trie.size();
+	}
+	
+	@Override
+	public Object get(String key) throws JSONException {
+		Object value = key == null ? null : trie.get(key);
+		if (value == null)
+			throw new JSONException("JSONObject[" + JSONObject.quote(key) + "] not found.");
+		return load(value);
+	}
+	
+	/**
+	 * Get the {@link Configuration} value associated with a key. Nested objects are returned as the {@link PersistentConfiguration}
+	 * stored at the key, without copying.
+	 *
+	 * @param key A key string.
+	 * @return A {@link Configuration} of the object stored at the key.
+	 * @throws JSONException if the key is not found or if the value is not an object.
+	 */
+	@Override
+	public PersistentConfiguration getConfiguration(String key) throws JSONException {
+		Object value = key == null ? null : trie.get(key);
+		if (value instanceof HashTrie) {
+			recordAccess(key, true);
+			PersistentConfiguration child = new PersistentConfiguration((HashTrie) value);
+			inherit(child, key);
+			return child;
+		}
+		return (PersistentConfiguration) super.getConfiguration(key);
+	}
+	
+	@Override
+	public Set<String> getKeys() {
+		List<String> keys = new ArrayList<>(trie.size());
+		trie.forEach((key, value) -> keys.add(key));
+		return Set.copyOf(keys);
+	}
+	
+	@Override
+	public boolean hasKey(String key) {
+		return key != null && trie.get(key) != null;
+	}
+	
+	/**
+	 * Estimate the number of bytes of heap a copy of this {@link Configuration} as {@link JSONObject}s would retain.
+	 * Structure shared with other versions is counted as well.
+	 *
+	 * @return the estimated retained size in bytes
+	 */
+	@Override
+	public long estimateRetainedSize() {
+		return ConfigurationFootprint.estimate(toJsonObject());
+	}
+	
+	@Override
+	public ConfigurationFootprint footprint() {
+		return ConfigurationFootprint.of(toJsonObject());
+	}
+	
+	@Override
+	public String toString() {
+		return toJsonObject().toString();
+	}
+	
+	@Override
+	public void write(Writer writer, boolean encodeUnknownObjects) throws IOException, SecurityException {
+		new Configuration(toJsonObject()).write(writer, encodeUnknownObjects);
+	}
+	
+	/**
+	 * @return a new {@link JSONObject} holding a copy of the whole tree
+	 */
+	@Override
+	protected JSONObject toJsonObject() {
+		return toJsonObject(trie);
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException always, use {@link #with(String, Object)}
+	 */
+	@Override
+	protected Object put(String key, Object value) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("This Configuration is persistent, use with(key, value)!");
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	protected ConfigurationChange mergeContent(JSONObject source, MergePolicy policy) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("This Configuration is persistent, use with(key, value)!");
+	}
+	
+	@Override
+	protected Configuration createChild(JSONObject jsonObject) {
+		return of(jsonObject);
+	}
+	
+	private static HashTrie withPath(HashTrie trie, String path, int from, Object value) {
+		
+		int dot = path.indexOf('.', from);
+		if (dot < 0) {
+			String key = path.substring(from);
+			return value == null ? trie.without(key) : trie.with(key, store(value));
+		}
+		
+		String key = path.substring(from, dot);
+		Object nested = trie.get(key);
+		if (!(nested instanceof HashTrie)) {
+			if (value == null)
+				return trie;
+			nested = HashTrie.EMPTY;
+		}
+		
+		HashTrie modified = withPath((HashTrie) nested, path, dot + 1, value);
+		return modified == nested ? trie : trie.with(key, modified);
+		
+	}
+	
+	/**
+	 * Converts a value into its stored form: objects become tries, arrays are copied.
+	 */
+	private static Object store(Object value) {
+		if (value instanceof PersistentConfiguration)
+			return ((PersistentConfiguration) value).trie;
+		if (value instanceof Configuration)
+			return toTrie(((Configuration) value).toJsonObject());
+		if (value instanceof JSONObject)
+			return toTrie((JSONObject) value);
+		return JsonTrees.deepCopyValue(value);
+	}
+	
+	/**
+	 * Converts a stored value into a value which can be handed out: tries become {@link JSONObject}s, arrays are copied.
+	 */
+	private static Object load(Object value) {
+		if (value instanceof HashTrie)
+			return toJsonObject((HashTrie) value);
+		return JsonTrees.deepCopyValue(value);
+	}
+	
+	private static HashTrie toTrie(JSONObject object) {
+		HashTrie trie = HashTrie.EMPTY;
+		for (String key : object.keySet()) {
+			trie = trie.with(key, store(object.opt(key)));
+		}
+		return trie;
+	}
+	
+	private static JSONObject toJsonObject(HashTrie trie) {
+		JSONObject object = new JSONObject();
+		trie.forEach((key, value) -> object.put(key, load(value)));
+		return object;
+	}
+	
+}
@@ -0,0 +1,74 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A {@link Configuration} rejecting all modifications. Nested {@link Configuration}s are read-only as well.
+ * Values which could be modified in place - nested {@link JSONObject}s, {@link JSONArray}s and primitive arrays - are returned as copies,
+ * so no reader can change what the other readers see.
+ *
+ * @see SimpleConfigLib#immutableConfiguration(Configuration)
+ */
+class ReadOnlyConfiguration extends Configuration {
+	
+	ReadOnlyConfiguration(JSONObject jsonObject) {
+		super(jsonObject);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * Nested {@link JSONObject}s, {@link JSONArray}s and primitive arrays are copied.
+	 */
+	@Override
+	public Object get(String key) throws JSONException {
+		return JsonTrees.deepCopyValue(super.get(key));
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * The nested {@link Configuration} is a read-only view of the stored object, which is not copied.
+	 */
+	@Override
+	public Configuration getConfiguration(String key) throws JSONException {
+		Object object = key == null ? null : content.opt(key);
+		if (object instanceof JSONObject) {
+			recordAccess(key, true);
+			Configuration child = createChild((JSONObject) object);
+			inherit(child, key);
+			return child;
+		}
+		return super.getConfiguration(key);
+	}
+	
+	/**
+	 * @return a deep copy of the content, so a {@link Configuration} built from it cannot modify this one
+	 */
+	@Override
+	protected JSONObject toJsonObject() {
+		return JsonTrees.deepCopy(super.toJsonObject());
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	protected Object put(String key, Object value) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("This Configuration is read-only!");
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException always
+	 */
+	@Override
+	protected ConfigurationChange mergeContent(JSONObject source, MergePolicy policy) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("This Configuration is read-only!");
+	}
+	
+	@Override
+	protected Configuration createChild(JSONObject jsonObject) {
+		return new ReadOnlyConfiguration(jsonObject);
+	}
+	
+}
@@ -0,0 +1,267 @@
+package de.drachir000.utils.config;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link ValueCodec} generated for a record class. The accessors and the canonical constructor are resolved once
+ * into {@link MethodHandle}s, every component gets a small writer/reader pair chosen by its type.
+ *
+ * @param <R> the record type
+ */
+final class RecordCodec<R extends Record> implements ValueCodec<R> {
+	
+	private final Class<R> recordClass;
+	private final MethodHandle[] accessors;
+	private final ComponentCodec[] components;
+	private final MethodHandle constructor;
+	
+	private RecordCodec(Class<R> recordClass, MethodHandle[] accessors, ComponentCodec[] components, MethodHandle constructor) {
+		this.recordClass = recordClass;
+		this.accessors = accessors;
+		this.components = components;
+		this.constructor = constructor;
+	}
+	
+	static <R extends Record> RecordCodec<R> of(Class<R> recordClass) throws IllegalArgumentException {
+		return of(recordClass, new HashMap<>());
+	}
+	
+	/**
+	 * @param resolving the codecs of the records whose components are being resolved, so self-referential records,
+	 *                  e.g. {@code record Node(String value, Node next)}, reuse their codec instead of recursing forever
+	 */
+	@SuppressWarnings("unchecked")
+	private static <R extends Record> RecordCodec<R> of(Class<R> recordClass, Map<Class<?>, RecordCodec<?>> resolving) throws IllegalArgumentException {
+		
+		if (recordClass == null || !recordClass.isRecord())
+			throw new IllegalArgumentException(recordClass + " is not a record class!");
+		
+		RecordCodec<?> pending = resolving.get(recordClass);
+		if (pending != null)
+			return (RecordCodec<R>) pending;
+		
+		RecordComponent[] recordComponents = recordClass.getRecordComponents();
+		MethodHandle[] accessors = new MethodHandle[recordComponents.length];
+		ComponentCodec[] components = new ComponentCodec[recordComponents.length];
+		Class<?>[] types = new Class<?>[recordComponents.length];
+		
+		RecordCodec<R> codec;
+		try {
+			
+			MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(recordClass, MethodHandles.lookup());
+			
+			for (int i = 0; i < recordComponents.length; i++) {
+				RecordComponent component = recordComponents[i];
+				types[i] = component.getType();
+				accessors[i] = lookup.unreflect(component.getAccessor())
+						.asType(MethodType.methodType(Object.class, Object.class));
+			}
+			
+			MethodHandle constructor = lookup.findConstructor(recordClass, MethodType.methodType(void.class, types))
+					.asSpreader(Object[].class, types.length)
+					.asType(MethodType.methodType(Object.class, Object[].class));
+			
+			codec = new RecordCodec<>(recordClass, accessors, components, constructor);
+			
+		} catch (ReflectiveOperationException | SecurityException e) {
+			throw new IllegalArgumentException("Cannot access the record " + recordClass.getName() + "!", e);
+		}
+		
+		// Registered before its components are resolved, so components of the same type refer back to it
+		resolving.put(recordClass, codec);
+		for (int i = 0; i < recordComponents.length; i++) {
+			components[i] = componentCodec(recordClass, recordComponents[i].getName(), types[i], resolving);
+		}
+		
+		return codec;
+		
+	}
+	
+	@Override
+	public void encode(R value, DataOutput out) throws IOException {
+		for (int i = 0; i < components.length; i++) {
+			components[i].write(invokeAccessor(i, value), out);
+		}
+	}
+	
+	@Override
+	public R decode(DataInput in) throws IOException {
+		
+		Object[] arguments = new Object[components.length];
+		for (int i = 0; i < components.length; i++) {
+			arguments[i] = components[i].read(in);
+		}
+		
+		try {
+			return recordClass.cast((Object) constructor.invokeExact(arguments));
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IOException("Cannot construct " + recordClass.getName() + "!", t);
+		}
+		
+	}
+	
+	private Object invokeAccessor(int index, R value) throws IOException {
+		try {
+			return (Object) accessors[index].invokeExact((Object) value);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new IOException("Cannot read a component of " + recordClass.getName() + "!", t);
+		}
+	}
+	
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static ComponentCodec componentCodec(Class<?> owner, String name, Class<?> type, Map<Class<?>, RecordCodec<?>> resolving) throws IllegalArgumentException {
+		
+		if (type == int.class)
+			return ComponentCodec.of((v, out) -> out.writeInt((Integer) v), DataInput::readInt);
+		if (type == long.class)
+			return ComponentCodec.of((v, out) -> out.writeLong((Long) v), DataInput::readLong);
+		if (type == double.class)
+			return ComponentCodec.of((v, out) -> out.writeDouble((Double) v), DataInput::readDouble);
+		if (type == float.class)
+			return ComponentCodec.of((v, out) -> out.writeFloat((Float) v), DataInput::readFloat);
+		if (type == boolean.class)
+			return ComponentCodec.of((v, out) -> out.writeBoolean((Boolean) v), DataInput::readBoolean);
+		if (type == byte.class)
+			return ComponentCodec.of((v, out) -> out.writeByte((Byte) v), DataInput::readByte);
+		if (type == short.class)
+			return ComponentCodec.of((v, out) -> out.writeShort((Short) v), DataInput::readShort);
+		if (type == char.class)
+			return ComponentCodec.of((v, out) -> out.writeChar((Character) v), DataInput::readChar);
+		
+		if (type.isPrimitive())
+			throw new IllegalArgumentException("Unsupported component " + owner.getName() + "." + name + " of type " + type + "!");
+		
+		// Reference types are nullable, they get a presence flag in front of the value.
+		if (type == Integer.class)
+			return ComponentCodec.nullable(componentCodec(owner, name, int.class, resolving));
+		if (type == Long.class)
+			return ComponentCodec.nullable(componentCodec(owner, name, long.class, resolving));
+		if (type == Double.class)
+			return ComponentCodec.nullable(componentCodec(owner, name, double.class, resolving));
+		if (type == Float.class)
+			return ComponentCodec.nullable(componentCodec(owner, name, float.class, resolving));
+		if (type == Boolean.class)
+			return ComponentCodec.nullable(componentCodec(owner, name, boolean.class, resolving));
+		if (type == Byte.class)
+			return ComponentCodec.nullable(componentCodec(owner, name, byte.class, resolving));
+		if (type == Short.class)
+			return ComponentCodec.nullable(componentCodec(owner, name, short.class, resolving));
+		if (type == Character.class)
+			return ComponentCodec.nullable(componentCodec(owner, name, char.class, resolving));
+		if (type == String.class)
+			return ComponentCodec.nullable(ComponentCodec.of((v, out) -> writeString((String) v, out), RecordCodec::readString));
+		
+		if (type.isEnum()) {
+			Class<? extends Enum> enumClass = (Class<? extends Enum>) type;
+			return ComponentCodec.nullable(ComponentCodec.of(
+					(v, out) -> writeString(((Enum<?>) v).name(), out),
+					in -> {
+						String constant = readString(in);
+						try {
+							return Enum.valueOf(enumClass, constant);
+						} catch (IllegalArgumentException e) {
+							throw new StreamCorruptedException("Unknown constant " + constant + " of " + enumClass.getName() + "!");
+						}
+					}
+			));
+		}
+		
+		// Registered codecs take precedence over the generated ones, they are resolved lazily.
+		if (type.isRecord() && ValueCodecRegistry.forType(type) == null) {
+			RecordCodec nested = of((Class<Record>) type, resolving);
+			return ComponentCodec.nullable(ComponentCodec.of((v, out) -> nested.encode((Record) v, out), nested::decode));
+		}
+		
+		return ComponentCodec.nullable(ComponentCodec.of(
+				(v, out) -> registered(owner, name, type).codec.encode(v, out),
+				in -> registered(owner, name, type).codec.decode(in)
+		));
+		
+	}
+	
+	private static ValueCodecRegistry.Entry registered(Class<?> owner, String name, Class<?> type) throws IOException {
+		
+		ValueCodecRegistry.Entry entry = ValueCodecRegistry.forType(type);
+		if (entry == null)
+			throw new IOException("No codec registered for the component " + owner.getName() + "." + name + " of type " + type.getName() + "!");
+		
+		return entry;
+		
+	}
+	
+	static void writeString(String value, DataOutput out) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	static String readString(DataInput in) throws IOException {
+		
+		int length = in.readInt();
+		if (length < 0)
+			throw new StreamCorruptedException("Negative string length " + length + "!");
+		
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+		
+	}
+	
+	private interface Writer {
+		void write(Object value, DataOutput out) throws IOException;
+	}
+	
+	private interface Reader {
+		Object read(DataInput in) throws IOException;
+	}
+	
+	private static final class ComponentCodec {
+		
+		private final Writer writer;
+		private final Reader reader;
+		
+		private ComponentCodec(Writer writer, Reader reader) {
+			this.writer = writer;
+			this.reader = reader;
+		}
+		
+		static ComponentCodec of(Writer writer, Reader reader) {
+			return new ComponentCodec(writer, reader);
+		}
+		
+		static ComponentCodec nullable(ComponentCodec codec) {
+			return new ComponentCodec(
+					(v, out) -> {
+						out.writeBoolean(v != null);
+						if (v != null)
+							codec.write(v, out);
+					},
+					in -> in.readBoolean() ? codec.read(in) : null
+			);
+		}
+		
+		void write(Object value, DataOutput out) throws IOException {
+			writer.write(value, out);
+		}
+		
+		Object read(DataInput in) throws IOException {
+			return reader.read(in);
+		}
+		
+	}
+	
+}
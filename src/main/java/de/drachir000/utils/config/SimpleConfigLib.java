@@ -4,12 +4,18 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * SimpleConfigLib is a class that provides static utility methods for working with configurations.
  */
 public class SimpleConfigLib {
 	
+	private static final int MAX_MODIFY_ATTEMPTS = 16;
+	
 	/**
 	 * Creates an empty configuration.
 	 *
@@ -32,6 +38,105 @@ public class SimpleConfigLib {
 		return new Configuration(jsonObject);
 	}
 	
+	/**
+	 * Constructs a thread-safe {@link ConcurrentConfiguration} from the content of a {@link Configuration}.
+	 * The content is not copied: the passed {@link Configuration} and its {@link JSONObject} must not be used afterwards.
+	 *
+	 * @param configuration the {@link Configuration} whose content the {@link ConcurrentConfiguration} takes over
+	 * @return a {@link ConcurrentConfiguration} based on the content of the {@link Configuration}
+	 * @since 2.2
+	 */
+	public static ConcurrentConfiguration concurrentConfiguration(Configuration configuration) {
+		return new ConcurrentConfiguration(configuration.toJsonObject());
+	}
+	
+	/**
+	 * Constructs a read-only copy of a {@link Configuration}. Modifying the copy, including its nested {@link Configuration}s,
+	 * throws an {@link UnsupportedOperationException}; modifying the original does not affect the copy.
+	 *
+	 * @param configuration the {@link Configuration} to copy
+	 * @return a read-only copy of the {@link Configuration}
+	 * @since 2.2
+	 */
+	public static Configuration immutableConfiguration(Configuration configuration) {
+		return new ReadOnlyConfiguration(JsonTrees.deepCopy(configuration.toJsonObject()));
+	}
+	
+	/**
+	 * Constructs a {@link LayeredConfiguration} stacking several {@link Configuration}s, e.g. built-in defaults, a site file and a per-instance file.
+	 * The layers are not copied: modifications of a layer are reflected by the {@link LayeredConfiguration}.
+	 *
+	 * @param layers the layers, lowest precedence first
+	 * @return a {@link LayeredConfiguration} resolving each key from the layer with the highest precedence defining it
+	 * @throws IllegalArgumentException if no layer is given
+	 * @since 2.2
+	 */
+	public static LayeredConfiguration layeredConfiguration(Configuration... layers) throws IllegalArgumentException {
+		return new LayeredConfiguration(Arrays.asList(layers));
+	}
+	
+	/**
+	 * Overrides the keys of a {@link Configuration} with environment variables and system properties, see {@link EnvironmentOverlay}.
+	 * The environment variable overriding {@code db.pool-size} is {@code envPrefix + "DB_POOL_SIZE"},
+	 * the system property is {@code propertyPrefix + "db.pool-size"}.
+	 *
+	 * @param configuration  the {@link Configuration} to override
+	 * @param envPrefix      the prefix of the environment variables, null to ignore the environment
+	 * @param propertyPrefix the prefix of the system properties, null to ignore the system properties
+	 * @return a {@link LayeredConfiguration} of the {@link Configuration} and its overrides
+	 * @since 2.2
+	 */
+	public static LayeredConfiguration withEnvironmentOverrides(Configuration configuration, String envPrefix, String propertyPrefix) {
+		return EnvironmentOverlay.builder()
+				.environmentPrefix(envPrefix)
+				.propertyPrefix(propertyPrefix)
+				.build()
+				.apply(configuration);
+	}
+	
+	/**
+	 * Deep-merges two {@link Configuration}s into a new one. Neither of them is modified.
+	 *
+	 * @param base    the {@link Configuration} to start from
+	 * @param overlay the {@link Configuration} to merge into a copy of the base
+	 * @param policy  how objects, arrays and conflicting values are combined, e.g. {@link MergePolicy#DEFAULT}
+	 * @return a new {@link Configuration} holding the merged content
+	 * @see Configuration#merge(Configuration, MergePolicy)
+	 * @since 2.2
+	 */
+	public static Configuration merge(Configuration base, Configuration overlay, MergePolicy policy) {
+		Configuration merged = new Configuration(JsonTrees.deepCopy(base.toJsonObject()));
+		merged.merge(overlay, policy);
+		return merged;
+	}
+	
+	/**
+	 * Copies the content of a {@link Configuration} into a read-only {@link OffHeapConfiguration}, which stores it outside the Java heap.
+	 * Use this for very large configurations which are rarely or never modified, to keep them out of the garbage collector's work.
+	 *
+	 * @param configuration the {@link Configuration} to copy
+	 * @return an {@link OffHeapConfiguration} holding a copy of the content
+	 * @throws IllegalArgumentException if the content does not fit into a single buffer of 2 GB
+	 * @since 2.2
+	 */
+	public static OffHeapConfiguration offHeapConfiguration(Configuration configuration) throws IllegalArgumentException {
+		return OffHeapConfiguration.of(configuration.toJsonObject());
+	}
+	
+	/**
+	 * Copies the content of a {@link Configuration} into an immutable {@link PersistentConfiguration}, whose modified versions share
+	 * all untouched structure with it. Use this to derive many slightly different copies of a {@link Configuration}, e.g. one per request.
+	 *
+	 * @param configuration the {@link Configuration} to copy
+	 * @return a {@link PersistentConfiguration} holding a copy of the content, the {@link Configuration} itself if it is persistent already
+	 * @since 2.2
+	 */
+	public static PersistentConfiguration persistentConfiguration(Configuration configuration) {
+		if (configuration instanceof PersistentConfiguration)
+			return (PersistentConfiguration) configuration;
+		return PersistentConfiguration.of(configuration.toJsonObject());
+	}
+	
 	/**
 	 * Constructs a {@link Configuration} object from a JSON string.
 	 *
@@ -41,11 +146,24 @@ public class SimpleConfigLib {
 	 * @since 1.1
 	 */
 	public static Configuration buildConfiguration(String source) throws JSONException {
-		return buildConfiguration(new JSONObject(source));
+		
+		ConfigurationEvents.Parse event = new ConfigurationEvents.Parse();
+		event.begin();
+		
+		Configuration configuration = buildConfiguration(KeyPool.parse(source));
+		
+		if (event.shouldCommit()) {
+			event.bytes = source.length();
+			event.keys = configuration.getKeys().size();
+			event.commit();
+		}
+		
+		return configuration;
+		
 	}
 	
 	/**
-	 * Saves a {@link Configuration} to a {@link File}.
+	 * Saves a {@link Configuration} to a {@link File}, encoded as UTF-8 like {@link SimpleConfigLib#saveLocked(Configuration, File)}.
 	 *
 	 * @param configuration the {@link Configuration} to be saved
 	 * @param file          the {@link File} to save the {@link Configuration} to
@@ -57,7 +175,7 @@ public class SimpleConfigLib {
 	}
 	
 	/**
-	 * Saves a {@link Configuration} to a {@link File}.
+	 * Saves a {@link Configuration} to a {@link File}, encoded as UTF-8 like {@link SimpleConfigLib#saveLocked(Configuration, File)}.
 	 *
 	 * @param configuration        the {@link Configuration} to be saved
 	 * @param file                 the {@link File} to save the {@link Configuration} to
@@ -70,29 +188,69 @@ public class SimpleConfigLib {
 	 */
 	public static void save(Configuration configuration, File file, boolean encodeUnknownObjects) throws IOException {
 		
-		BufferedWriter writer = new BufferedWriter(new FileWriter(file));
-		writer.write(configuration.toString(encodeUnknownObjects));
+		ConfigurationEvents.Save event = new ConfigurationEvents.Save();
+		event.begin();
+		
+		BufferedWriter writer = new BufferedWriter(new FileWriter(file, StandardCharsets.UTF_8));
+		configuration.write(writer, encodeUnknownObjects);
 		
 		writer.flush();
 		writer.close();
 		
+		if (event.shouldCommit()) {
+			event.path = file.getPath();
+			event.bytes = file.length();
+			event.keys = configuration.getKeys().size();
+			event.commit();
+		}
+		
+	}
+	
+	/**
+	 * Applies several modifications to a {@link Configuration} as one, see {@link Configuration#update(java.util.function.Consumer)},
+	 * and saves it to a {@link File} once if anything changed.
+	 *
+	 * @param configuration the {@link Configuration} to modify
+	 * @param file          the {@link File} to save the {@link Configuration} to
+	 * @param transaction   the function staging the modifications
+	 * @return the applied changes
+	 * @throws IOException if an I/O error occurs while writing to the file
+	 * @since 2.2
+	 */
+	public static ConfigurationChange update(Configuration configuration, File file, Consumer<ConfigurationTransaction> transaction) throws IOException {
+		
+		ConfigurationChange change = configuration.update(transaction);
+		
+		if (!change.isEmpty())
+			save(configuration, file);
+		
+		return change;
+		
 	}
 	
 	/**
-	 * Reads a JSON string from a {@link File} and constructs a {@link Configuration} object from it.
+	 * Reads a UTF-8 encoded JSON string from a {@link File} and constructs a {@link Configuration} object from it.
+	 * <p>
+	 * Objects may include fragments from other files with the key {@code "$include"}, whose value is a path relative to the file
+	 * or an array of such paths, e.g. {@code {"$include": "shared/database.json", "name": "tenant-1"}}. The keys of the fragments are added
+	 * to the object; later fragments and the keys of the object itself replace keys of earlier fragments. Fragments are parsed once and
+	 * shared by all {@link Configuration}s including them, until their file changes; a {@link Configuration} copies the shared part it modifies.
 	 *
 	 * @param file the {@link File} to read the JSON string from
 	 * @return a {@link Configuration} object constructed from the JSON string
-	 * @throws IOException   if an I/O error occurs while reading the file
-	 * @throws JSONException if there is a syntax error in the JSON string or a duplicated key
+	 * @throws IOException   if an I/O error occurs while reading the file or an included fragment
+	 * @throws JSONException if there is a syntax error in the JSON string or a duplicated key, or the includes are circular
 	 * @since 1.3
 	 */
 	public static Configuration load(File file) throws IOException, JSONException {
 		
+		ConfigurationEvents.Load event = new ConfigurationEvents.Load();
+		event.begin();
+		
 		StringBuilder builder = new StringBuilder();
 		
 		try {
-			BufferedReader reader = new BufferedReader(new FileReader(file));
+			BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8));
 			
 			String line;
 			while ((line = reader.readLine()) != null) {
@@ -103,11 +261,279 @@ public class SimpleConfigLib {
 		} catch (FileNotFoundException ignored) {
 		}
 		
-		if (builder.toString().isBlank())
+		Configuration configuration = builder.toString().isBlank() ? emptyConfiguration() : buildConfiguration(builder.toString());
+		configuration = resolveIncludes(configuration, file, builder);
+		
+		if (event.shouldCommit()) {
+			event.path = file.getPath();
+			event.bytes = builder.length();
+			event.keys = configuration.getKeys().size();
+			event.commit();
+		}
+		
+		return configuration;
+		
+	}
+	
+	/**
+	 * Reads a {@link Configuration} from a {@link File} like {@link SimpleConfigLib#load(File)}, but holds a shared lock on the file while reading.
+	 * Use this together with {@link SimpleConfigLib#saveLocked(Configuration, File)} if several processes access the same file.
+	 * The lock is only held while the bytes are read, the JSON is parsed afterwards.
+	 *
+	 * @param file the {@link File} to read the JSON string from
+	 * @return a {@link Configuration} object constructed from the JSON string
+	 * @throws IOException   if an I/O error occurs while reading the file
+	 * @throws JSONException if there is a syntax error in the JSON string or a duplicated key
+	 * @since 2.2
+	 */
+	public static Configuration loadLocked(File file) throws IOException, JSONException {
+		
+		ConfigurationEvents.Load event = new ConfigurationEvents.Load();
+		event.begin();
+		
+		byte[] content = LockedFiles.read(file);
+		Configuration configuration = parse(content);
+		if (content != null)
+			configuration = resolveIncludes(configuration, file, new String(content, StandardCharsets.UTF_8));
+		
+		if (event.shouldCommit()) {
+			event.path = file.getPath();
+			event.bytes = content == null ? 0 : content.length;
+			event.keys = configuration.getKeys().size();
+			event.locked = true;
+			event.commit();
+		}
+		
+		return configuration;
+		
+	}
+	
+	/**
+	 * Saves a {@link Configuration} to a {@link File} like {@link SimpleConfigLib#save(Configuration, File)}, but holds an exclusive lock on the file while writing.
+	 *
+	 * @param configuration the {@link Configuration} to be saved
+	 * @param file          the {@link File} to save the {@link Configuration} to
+	 * @throws IOException if an I/O error occurs while writing to the file
+	 * @since 2.2
+	 */
+	public static void saveLocked(Configuration configuration, File file) throws IOException {
+		saveLocked(configuration, file, false);
+	}
+	
+	/**
+	 * Saves a {@link Configuration} to a {@link File} like {@link SimpleConfigLib#save(Configuration, File, boolean)}, but holds an exclusive lock on the file while writing.
+	 * The JSON is generated before the lock is taken.
+	 *
+	 * @param configuration        the {@link Configuration} to be saved
+	 * @param file                 the {@link File} to save the {@link Configuration} to
+	 * @param encodeUnknownObjects if true, unknown objects will be encoded (serialized) before being saved
+	 * @throws IOException if an I/O error occurs while writing to the file
+	 * @since 2.2
+	 */
+	public static void saveLocked(Configuration configuration, File file, boolean encodeUnknownObjects) throws IOException {
+		
+		ConfigurationEvents.Save event = new ConfigurationEvents.Save();
+		event.begin();
+		
+		byte[] content = configuration.toString(encodeUnknownObjects).getBytes(StandardCharsets.UTF_8);
+		LockedFiles.write(file, content);
+		
+		if (event.shouldCommit()) {
+			event.path = file.getPath();
+			event.bytes = content.length;
+			event.keys = configuration.getKeys().size();
+			event.locked = true;
+			event.commit();
+		}
+		
+	}
+	
+	/**
+	 * Modifies the {@link Configuration} stored in a {@link File} without holding a lock while the modifications are applied.
+	 * The file is read under a shared lock, the transaction is applied in memory and the result is written under an exclusive lock,
+	 * but only if the file was not changed in the meantime. Otherwise, the whole cycle is repeated,
+	 * so the transaction may be called more than once and should not have side effects.
+	 * Nothing is written if the transaction does not change anything.
+	 *
+	 * @param file        the {@link File} to modify
+	 * @param transaction the function staging the modifications
+	 * @return the applied changes
+	 * @throws IOException   if an I/O error occurs, or the file kept changing for {@value #MAX_MODIFY_ATTEMPTS} attempts
+	 * @throws JSONException if there is a syntax error in the JSON string or a duplicated key
+	 * @since 2.2
+	 */
+	public static ConfigurationChange modify(File file, Consumer<ConfigurationTransaction> transaction) throws IOException, JSONException {
+		
+		for (int attempt = 0; attempt < MAX_MODIFY_ATTEMPTS; attempt++) {
+			
+			byte[] original = LockedFiles.read(file);
+			
+			Configuration configuration = parse(original);
+			ConfigurationChange change = configuration.update(transaction);
+			
+			if (change.isEmpty())
+				return change;
+			
+			byte[] modified = configuration.toString().getBytes(StandardCharsets.UTF_8);
+			if (LockedFiles.compareAndWrite(file, original, modified))
+				return change;
+			
+			LockedFiles.STATISTICS.recordRetry();
+			
+		}
+		
+		throw new IOException("The file " + file + " was modified concurrently " + MAX_MODIFY_ATTEMPTS + " times in a row!");
+		
+	}
+	
+	/**
+	 * Returns the statistics of the file locks taken by {@link SimpleConfigLib#loadLocked(File)},
+	 * {@link SimpleConfigLib#saveLocked(Configuration, File)} and {@link SimpleConfigLib#modify(File, Consumer)}.
+	 *
+	 * @return the statistics shared by all files
+	 * @since 2.2
+	 */
+	public static FileLockStatistics getFileLockStatistics() {
+		return LockedFiles.STATISTICS;
+	}
+	
+	/**
+	 * Discards the fragments parsed for {@code "$include"} directives, see {@link SimpleConfigLib#load(File)}.
+	 * Changed fragments are detected and parsed again anyway, this only releases the memory of fragments which are no longer included.
+	 *
+	 * @since 2.2
+	 */
+	public static void clearIncludeCache() {
+		Includes.clearCache();
+	}
+	
+	private static Configuration resolveIncludes(Configuration configuration, File file, CharSequence source) throws IOException, JSONException {
+		
+		if (source.toString().indexOf(Includes.DIRECTIVE) < 0)
+			return configuration;
+		
+		JSONObject content = configuration.toJsonObject();
+		JSONObject resolved = Includes.resolve(content, file.toPath());
+		
+		return resolved == content ? configuration : buildConfiguration(resolved);
+		
+	}
+	
+	private static Configuration parse(byte[] content) throws JSONException {
+		
+		if (content == null)
 			return emptyConfiguration();
 		
-		return buildConfiguration(builder.toString());
+		String source = new String(content, StandardCharsets.UTF_8);
+		if (source.isBlank())
+			return emptyConfiguration();
+		
+		return buildConfiguration(source);
 		
 	}
 	
+	/**
+	 * Opens a {@link File} to iterate over the elements of a (possibly huge) array in it one at a time, with constant memory.
+	 * The rest of the document is available as a {@link Configuration} through {@link StreamingArrayReader#getConfiguration()}.
+	 *
+	 * @param file the {@link File} to read
+	 * @param path the dotted path of the array, e.g. {@code "data.points"}
+	 * @return a reader positioned at the first element, which must be closed
+	 * @throws IOException   if the file cannot be opened
+	 * @throws JSONException if there is a syntax error before the array, or the value at the path is not an array
+	 * @since 2.2
+	 */
+	public static StreamingArrayReader streamArray(File file, String path) throws IOException, JSONException {
+		return streamArray(new BufferedReader(new FileReader(file, StandardCharsets.UTF_8)), path);
+	}
+	
+	/**
+	 * Reads a JSON document from a {@link Reader} to iterate over the elements of an array in it one at a time, see {@link SimpleConfigLib#streamArray(File, String)}.
+	 * Closing the returned reader closes the passed {@link Reader}.
+	 *
+	 * @param reader the {@link Reader} to read the JSON document from
+	 * @param path   the dotted path of the array, e.g. {@code "data.points"}
+	 * @return a reader positioned at the first element, which must be closed
+	 * @throws JSONException if there is a syntax error before the array, or the value at the path is not an array
+	 * @since 2.2
+	 */
+	public static StreamingArrayReader streamArray(Reader reader, String path) throws JSONException {
+		try {
+			return new StreamingArrayReader(reader, path);
+		} catch (JSONException e) {
+			try {
+				reader.close();
+			} catch (IOException suppressed) {
+				e.addSuppressed(suppressed);
+			}
+			throw e;
+		}
+	}
+	
+	/**
+	 * Registers a {@link ValueCodec} for a class. Values of exactly this class are then encoded by the codec
+	 * instead of the Java serialization, see {@link Configuration#setEncoded(String, Object)}.
+	 * The id is stored with every encoded value and is used to find the codec again while decoding, so it must stay stable.
+	 * Registering a codec for an already registered class replaces the previous codec.
+	 *
+	 * @param type  the class of the values handled by the codec
+	 * @param id    a stable, unique id of the codec
+	 * @param codec the codec
+	 * @param <T>   the type of the values
+	 * @throws IllegalArgumentException if the id is empty or already used by a codec for another class
+	 * @throws NullPointerException     if any argument is null
+	 * @since 2.2
+	 */
+	public static <T> void registerCodec(Class<T> type, String id, ValueCodec<T> codec) throws IllegalArgumentException, NullPointerException {
+		ValueCodecRegistry.register(type, id, codec);
+	}
+	
+	/**
+	 * Registers a codec generated by {@link ValueCodec#forRecord(Class)} for a record class, using the class name as id.
+	 *
+	 * @param recordClass the record class
+	 * @param <R>         the record type
+	 * @throws IllegalArgumentException if a component type of the record is not supported or the id is already used
+	 * @throws NullPointerException     if the record class is null
+	 * @see SimpleConfigLib#registerCodec(Class, String, ValueCodec)
+	 * @since 2.2
+	 */
+	public static <R extends Record> void registerRecordCodec(Class<R> recordClass) throws IllegalArgumentException, NullPointerException {
+		registerCodec(recordClass, recordClass.getName(), ValueCodec.forRecord(recordClass));
+	}
+	
+	/**
+	 * Removes the {@link ValueCodec} registered for a class. Values already encoded by that codec can no longer be decoded.
+	 *
+	 * @param type the class to remove the codec of
+	 * @return true if a codec was registered for the class
+	 * @since 2.2
+	 */
+	public static boolean unregisterCodec(Class<?> type) {
+		return ValueCodecRegistry.unregister(type);
+	}
+	
+	/**
+	 * Enables or disables the shared key pool. While it is enabled, the keys of parsed or loaded configurations and of set values
+	 * are looked up in a table shared by all {@link Configuration} instances, so equal keys share one {@link String} instance.
+	 * This reduces the heap used by many configurations with the same keys. Disabling the pool clears it.
+	 *
+	 * @param enabled whether keys should be pooled
+	 * @since 2.2
+	 */
+	public static void setKeyInterning(boolean enabled) {
+		KeyPool.setEnabled(enabled);
+	}
+	
+	/**
+	 * Sets the executor delivering the notifications of {@link Configuration#subscribe(String, java.util.function.Consumer)}.
+	 * By default, a virtual thread is started per notification on Java 21 and newer, and a pool of daemon threads is used on older versions.
+	 *
+	 * @param executor the executor, or null to restore the default
+	 * @since 2.2
+	 */
+	public static void setDefaultChangeExecutor(Executor executor) {
+		ChangeDispatcher.setDefaultExecutor(executor);
+	}
+	
 }
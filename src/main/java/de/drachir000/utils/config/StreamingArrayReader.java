@@ -0,0 +1,277 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a JSON document and iterates over the elements of one array in it without holding the array in memory.
+ * The document is parsed up to the array when the reader is opened, each element is parsed when it is requested,
+ * and the rest of the document is parsed once all elements were read. Everything except the array
+ * is then available as a normal {@link Configuration}, see {@link #getConfiguration()}.
+ * <p>
+ * Elements are returned like the values of a {@link org.json.JSONArray}: as {@link JSONObject}, {@link org.json.JSONArray},
+ * {@link String}, {@link Number}, {@link Boolean} or {@link JSONObject#NULL}.
+ * A reader is not thread-safe and must be closed.
+ *
+ * @see SimpleConfigLib#streamArray(java.io.File, String)
+ * @since 2.2
+ */
+public final class StreamingArrayReader implements Iterator<Object>, Closeable {
+	
+	private final Reader reader;
+	private final JSONTokener tokener;
+	private final JSONObject root = new JSONObject();
+	
+	/**
+	 * The objects enclosing the array, innermost first. Their members after the array are not read yet.
+	 */
+	private final Deque<JSONObject> open = new ArrayDeque<>();
+	
+	private boolean found;
+	private boolean first = true;
+	private boolean arrayDone;
+	private boolean hasPending;
+	private Object pending;
+	
+	StreamingArrayReader(Reader reader, String path) throws JSONException {
+		
+		this.reader = reader;
+		this.tokener = KeyPool.tokener(reader);
+		
+		String[] segments = path.split("\\.");
+		
+		if (tokener.nextClean() != '{')
+			throw tokener.syntaxError("A JSONObject text must begin with '{'");
+		
+		open.push(root);
+		descend(segments);
+		
+		if (!found)
+			arrayDone = true;
+		
+	}
+	
+	/**
+	 * @return true if the document contains the array
+	 */
+	public boolean isFound() {
+		return found;
+	}
+	
+	/**
+	 * @return true if the array has more elements
+	 * @throws JSONException if the document cannot be parsed
+	 */
+	@Override
+	public boolean hasNext() throws JSONException {
+		return hasPending || advance();
+	}
+	
+	/**
+	 * @return the next element of the array
+	 * @throws NoSuchElementException if all elements were read
+	 * @throws JSONException          if the document cannot be parsed
+	 */
+	@Override
+	public Object next() throws NoSuchElementException, JSONException {
+		
+		if (!hasNext())
+			throw new NoSuchElementException();
+		
+		Object element = pending;
+		pending = null;
+		hasPending = false;
+		
+		return element;
+		
+	}
+	
+	/**
+	 * Returns a sequential stream over the remaining elements. Closing the stream closes this reader.
+	 *
+	 * @return the stream
+	 */
+	public Stream<Object> stream() {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						close();
+					} catch (IOException ignored) {
+					}
+				});
+	}
+	
+	/**
+	 * Returns the document without the streamed array. Elements which were not read yet are skipped.
+	 *
+	 * @return the rest of the document
+	 * @throws JSONException if the document cannot be parsed
+	 */
+	public Configuration getConfiguration() throws JSONException {
+		
+		while (hasNext()) {
+			next();
+		}
+		
+		finish();
+		
+		return SimpleConfigLib.buildConfiguration(root);
+		
+	}
+	
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+	
+	/**
+	 * Parses the enclosing objects up to the array, descending into every object named by the path.
+	 */
+	private void descend(String[] segments) throws JSONException {
+		
+		while (!open.isEmpty()) {
+			
+			JSONObject object = open.peek();
+			int depth = open.size() - 1;
+			
+			String key = nextKey();
+			if (key == null) {
+				open.pop();
+				if (!open.isEmpty())
+					nextSeparator();
+				continue;
+			}
+			
+			if (depth < segments.length && key.equals(segments[depth])) {
+				
+				char c = tokener.nextClean();
+				
+				if (depth == segments.length - 1) {
+					if (c != '[')
+						throw tokener.syntaxError("JSONObject[" + JSONObject.quote(key) + "] is not a JSONArray");
+					found = true;
+					return;
+				}
+				
+				if (c == '{') {
+					JSONObject child = new JSONObject();
+					object.put(key, child);
+					open.push(child);
+					continue;
+				}
+				
+				tokener.back();
+				
+			}
+			
+			object.put(key, tokener.nextValue());
+			nextSeparator();
+			
+		}
+		
+	}
+	
+	private boolean advance() throws JSONException {
+		
+		if (arrayDone)
+			return false;
+		
+		char c = tokener.nextClean();
+		
+		if (!first) {
+			if (c == ',') {
+				c = tokener.nextClean();
+			} else if (c != ']') {
+				throw tokener.syntaxError("Expected a ',' or ']'");
+			}
+		}
+		first = false;
+		
+		if (c == ']') {
+			arrayDone = true;
+			nextSeparator();
+			return false;
+		}
+		if (c == 0)
+			throw tokener.syntaxError("A JSONArray text must end with ']'");
+		
+		tokener.back();
+		pending = tokener.nextValue();
+		hasPending = true;
+		
+		return true;
+		
+	}
+	
+	/**
+	 * Parses the members after the array of all enclosing objects.
+	 */
+	private void finish() throws JSONException {
+		
+		while (!open.isEmpty()) {
+			
+			JSONObject object = open.peek();
+			
+			String key;
+			while ((key = nextKey()) != null) {
+				object.put(key, tokener.nextValue());
+				nextSeparator();
+			}
+			
+			open.pop();
+			if (!open.isEmpty())
+				nextSeparator();
+			
+		}
+		
+	}
+	
+	/**
+	 * @return the key of the next member of the current object, null if the object ends
+	 */
+	private String nextKey() throws JSONException {
+		
+		char c = tokener.nextClean();
+		if (c == '}')
+			return null;
+		if (c == 0)
+			throw tokener.syntaxError("A JSONObject text must end with '}'");
+		
+		tokener.back();
+		String key = KeyPool.intern(tokener.nextValue().toString());
+		
+		if (tokener.nextClean() != ':')
+			throw tokener.syntaxError("Expected a ':' after a key");
+		
+		return key;
+		
+	}
+	
+	/**
+	 * Reads the separator after a member, leaving a closing brace to {@link #nextKey()}.
+	 */
+	private void nextSeparator() throws JSONException {
+		
+		char c = tokener.nextClean();
+		if (c == '}') {
+			tokener.back();
+		} else if (c != ',' && c != ';') {
+			throw tokener.syntaxError("Expected a ',' or '}'");
+		}
+		
+	}
+	
+}
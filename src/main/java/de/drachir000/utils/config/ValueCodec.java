@@ -0,0 +1,49 @@
+package de.drachir000.utils.config;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A ValueCodec writes and reads values of one type in a compact binary form. Codecs registered with
+ * {@link SimpleConfigLib#registerCodec(Class, String, ValueCodec)} are used by {@link Configuration#setEncoded(String, Object)},
+ * {@link Configuration#getEncoded(String)} and {@link Configuration#toString(boolean)} instead of the Java serialization.
+ *
+ * @param <T> the type of the values handled by this codec
+ * @since 2.2
+ */
+public interface ValueCodec<T> {
+	
+	/**
+	 * Writes a value to the given output.
+	 *
+	 * @param value the value to write, never null
+	 * @param out   the output to write the value to
+	 * @throws IOException if an I/O error occurs while writing
+	 */
+	void encode(T value, DataOutput out) throws IOException;
+	
+	/**
+	 * Reads a value previously written by {@link ValueCodec#encode(Object, DataOutput)}.
+	 *
+	 * @param in the input to read the value from
+	 * @return the decoded value
+	 * @throws IOException if an I/O error occurs while reading or the data is malformed
+	 */
+	T decode(DataInput in) throws IOException;
+	
+	/**
+	 * Creates a codec for a record class. The codec writes the record components in declaration order.
+	 * Supported component types are primitives and their wrappers, {@link String}, {@link Enum}s, nested records
+	 * and types with a registered codec.
+	 *
+	 * @param recordClass the record class
+	 * @param <R>         the record type
+	 * @return a codec for the record class
+	 * @throws IllegalArgumentException if a component type is not supported or the record cannot be accessed
+	 */
+	static <R extends Record> ValueCodec<R> forRecord(Class<R> recordClass) throws IllegalArgumentException {
+		return RecordCodec.of(recordClass);
+	}
+	
+}
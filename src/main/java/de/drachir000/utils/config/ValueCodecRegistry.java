@@ -0,0 +1,74 @@
+package de.drachir000.utils.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link ValueCodec}s registered through {@link SimpleConfigLib#registerCodec(Class, String, ValueCodec)}.
+ * Codecs are looked up by the exact class of a value while encoding and by their id while decoding.
+ */
+final class ValueCodecRegistry {
+	
+	private static final Map<Class<?>, Entry> BY_TYPE = new ConcurrentHashMap<>();
+	private static final Map<String, Entry> BY_ID = new ConcurrentHashMap<>();
+	
+	private ValueCodecRegistry() {
+	}
+	
+	static synchronized <T> void register(Class<T> type, String id, ValueCodec<T> codec) throws IllegalArgumentException, NullPointerException {
+		
+		if (type == null || id == null || codec == null)
+			throw new NullPointerException("type, id and codec must not be null!");
+		
+		if (id.isEmpty())
+			throw new IllegalArgumentException("The codec id must not be empty!");
+		
+		Entry existing = BY_ID.get(id);
+		if (existing != null && existing.type != type)
+			throw new IllegalArgumentException("The codec id \"" + id + "\" is already used for " + existing.type.getName() + "!");
+		
+		Entry previous = BY_TYPE.get(type);
+		if (previous != null)
+			BY_ID.remove(previous.id);
+		
+		Entry entry = new Entry(type, id, codec);
+		BY_TYPE.put(type, entry);
+		BY_ID.put(id, entry);
+		
+	}
+	
+	static synchronized boolean unregister(Class<?> type) {
+		
+		Entry entry = BY_TYPE.remove(type);
+		if (entry == null)
+			return false;
+		
+		BY_ID.remove(entry.id);
+		return true;
+		
+	}
+	
+	static Entry forType(Class<?> type) {
+		return BY_TYPE.get(type);
+	}
+	
+	static Entry forId(String id) {
+		return BY_ID.get(id);
+	}
+	
+	static final class Entry {
+		
+		final Class<?> type;
+		final String id;
+		final ValueCodec<Object> codec;
+		
+		@SuppressWarnings("unchecked")
+		private Entry(Class<?> type, String id, ValueCodec<?> codec) {
+			this.type = type;
+			this.id = id;
+			this.codec = (ValueCodec<Object>) codec;
+		}
+		
+	}
+	
+}
@@ -0,0 +1,106 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class AccessMetricsTest {
+	
+	private static final String SOURCE = "{\"host\":\"localhost\",\"port\":8080,\"debug\":\"maybe\",\"unused\":1,\"database\":{\"user\":\"admin\",\"timeout\":30}}";
+	
+	@Test
+	public void testDisabled() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration(SOURCE);
+		
+		assertNull(configuration.getAccessMetrics());
+		configuration.getString("host");
+		assertNull(configuration.getConfiguration("database").getAccessMetrics());
+		
+	}
+	
+	@Test
+	public void testCounters() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration(SOURCE);
+		AccessMetrics metrics = configuration.enableAccessMetrics();
+		assertSame(metrics, configuration.enableAccessMetrics());
+		
+		for (int i = 0; i < 3; i++) {
+			configuration.getString("host");
+		}
+		configuration.getInt("port");
+		assertEquals(10, configuration.getOrDefault("missing", 10));
+		assertThrows(JSONException.class, () -> configuration.getString("other"));
+		assertThrows(JSONException.class, () -> configuration.getBoolean("debug"));
+		assertFalse(configuration.getOrDefault("debug", false));
+		
+		Configuration database = configuration.getConfiguration("database");
+		assertSame(metrics, database.getAccessMetrics());
+		database.getString("user");
+		
+		Map<String, AccessMetrics.KeyStatistics> snapshot = metrics.snapshot();
+		
+		assertEquals(3, snapshot.get("host").getHits());
+		assertEquals(1, snapshot.get("port").getHits());
+		assertEquals(1, snapshot.get("missing").getMisses());
+		assertEquals(1, snapshot.get("missing").getDefaultsUsed());
+		assertEquals(1, snapshot.get("other").getMisses());
+		assertEquals(0, snapshot.get("other").getDefaultsUsed());
+		assertEquals(2, snapshot.get("debug").getConversionFailures());
+		assertEquals(1, snapshot.get("debug").getDefaultsUsed());
+		assertEquals(1, snapshot.get("database.user").getHits());
+		
+		assertEquals("host", metrics.getHottestKeys(1).get(0).getKey());
+		assertEquals(Set.of("unused", "database.timeout"), metrics.getUnreadKeys(configuration));
+		assertTrue(metrics.toString().contains("database.user"));
+		
+		metrics.reset();
+		assertTrue(metrics.snapshot().isEmpty());
+		
+		configuration.disableAccessMetrics();
+		configuration.getString("host");
+		assertNull(configuration.getAccessMetrics());
+		assertTrue(metrics.snapshot().isEmpty());
+		
+	}
+	
+	@Test
+	public void testWritesAreNotCounted() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration(SOURCE);
+		AccessMetrics metrics = configuration.enableAccessMetrics();
+		
+		configuration.setInt("port", 9090);
+		configuration.putIfAbsent("new", 1);
+		configuration.update(tx -> tx.setInt("port", (Integer) tx.get("port") + 1));
+		
+		assertTrue(metrics.snapshot().isEmpty());
+		
+	}
+	
+	@Test
+	public void testOffHeap() {
+		
+		OffHeapConfiguration configuration = SimpleConfigLib.offHeapConfiguration(SimpleConfigLib.buildConfiguration(SOURCE));
+		AccessMetrics metrics = configuration.enableAccessMetrics();
+		
+		configuration.getInt("port");
+		configuration.getString("host");
+		configuration.getConfiguration("database").getInt("timeout");
+		assertEquals(0, configuration.getOrDefault("missing", 0));
+		
+		Map<String, AccessMetrics.KeyStatistics> snapshot = metrics.snapshot();
+		assertEquals(1, snapshot.get("port").getHits());
+		assertEquals(1, snapshot.get("host").getHits());
+		assertEquals(1, snapshot.get("database.timeout").getHits());
+		assertEquals(1, snapshot.get("missing").getMisses());
+		assertEquals(1, snapshot.get("missing").getDefaultsUsed());
+		
+	}
+	
+}
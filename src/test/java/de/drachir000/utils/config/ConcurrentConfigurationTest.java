@@ -0,0 +1,89 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentConfigurationTest {
+	
+	@Test
+	public void testGetAndSet() {
+		
+		ConcurrentConfiguration configuration = SimpleConfigLib.concurrentConfiguration(
+				SimpleConfigLib.buildConfiguration("{\"key\":\"value\",\"int\":\"12\",\"nested\":{\"inner\":true}}")
+		);
+		
+		assertEquals("value", configuration.getString("key"));
+		assertEquals(12, configuration.getInt("int"));
+		assertTrue(configuration.getConfiguration("nested").getBoolean("inner"));
+		assertTrue(configuration.getConfiguration("nested") instanceof ConcurrentConfiguration);
+		assertThrows(JSONException.class, () -> configuration.get("missing"));
+		assertFalse(configuration.hasKey("missing"));
+		
+		assertEquals("value", configuration.setString("key", "other"));
+		assertEquals("other", configuration.getOrDefault("key", "default"));
+		
+	}
+	
+	@Test
+	public void testAtomicOperations() {
+		
+		ConcurrentConfiguration configuration = SimpleConfigLib.concurrentConfiguration(SimpleConfigLib.emptyConfiguration());
+		
+		assertNull(configuration.putIfAbsent("key", "first"));
+		assertEquals("first", configuration.putIfAbsent("key", "second"));
+		assertEquals("first", configuration.getString("key"));
+		
+		assertEquals(1, configuration.compute("counter", (k, v) -> v == null ? 1 : (int) v + 1));
+		assertNull(configuration.compute("counter", (k, v) -> null));
+		assertFalse(configuration.hasKey("counter"));
+		
+	}
+	
+	@Test
+	public void testConcurrentAccess() throws InterruptedException, ExecutionException {
+		
+		ConcurrentConfiguration configuration = SimpleConfigLib.concurrentConfiguration(SimpleConfigLib.emptyConfiguration());
+		configuration.setInt("counter", 0);
+		
+		int threads = 8;
+		int iterations = 5_000;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger wrongReads = new AtomicInteger();
+		
+		List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			int thread = t;
+			futures.add(executor.submit(() -> {
+				start.await();
+				for (int i = 0; i < iterations; i++) {
+					configuration.compute("counter", (k, v) -> (int) v + 1);
+					// Every thread writes many distinct keys, forcing the underlying map to resize
+					configuration.setInt("key-" + thread + "-" + i, i);
+					if (configuration.getInt("key-" + thread + "-" + i) != i)
+						wrongReads.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+		
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		
+		assertEquals(0, wrongReads.get());
+		assertEquals(threads * iterations, configuration.getInt("counter"));
+		assertEquals(threads * iterations + 1, configuration.getKeys().size());
+		
+	}
+	
+}
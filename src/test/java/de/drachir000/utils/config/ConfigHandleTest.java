@@ -0,0 +1,126 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConfigHandleTest {
+	
+	@Test
+	public void testPublish() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"key\":\"value\",\"nested\":{\"inner\":1}}");
+		ConfigHandle handle = ConfigHandle.of(configuration);
+		
+		assertEquals(1L, handle.version());
+		assertEquals("value", handle.get().getString("key"));
+		
+		// The handle holds a copy, later modifications of the source are not visible
+		configuration.setString("key", "changed");
+		assertEquals("value", handle.get().getString("key"));
+		
+		assertThrows(UnsupportedOperationException.class, () -> handle.get().setString("key", "other"));
+		assertThrows(UnsupportedOperationException.class, () -> handle.get().getConfiguration("nested").setInt("inner", 2));
+		
+		assertEquals(2L, handle.publish(configuration));
+		assertEquals(2L, handle.snapshot().getVersion());
+		assertEquals("changed", handle.snapshot().getConfiguration().getString("key"));
+		
+	}
+	
+	@Test
+	public void testSnapshotCannotBeModifiedThroughValues() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"nested\":{\"inner\":1},\"list\":[1,2]}");
+		configuration.setIntArray("ints", new int[]{1, 2});
+		configuration.setLongArray("longs", new long[]{1, 2});
+		configuration.setDoubleArray("doubles", new double[]{1, 2});
+		Configuration snapshot = ConfigHandle.of(configuration).get();
+		
+		((JSONObject) snapshot.get("nested")).put("inner", 2);
+		((JSONArray) snapshot.get("list")).put(3);
+		snapshot.getJSONArray("list").put(4);
+		snapshot.getIntArray("ints")[0] = 9;
+		snapshot.getLongArray("longs")[0] = 9;
+		snapshot.getDoubleArray("doubles")[0] = 9;
+		
+		assertEquals(1, snapshot.getConfiguration("nested").getInt("inner"));
+		assertEquals(2, snapshot.getJSONArray("list").length());
+		assertArrayEquals(new int[]{1, 2}, snapshot.getIntArray("ints"));
+		assertArrayEquals(new long[]{1, 2}, snapshot.getLongArray("longs"));
+		assertArrayEquals(new double[]{1, 2}, snapshot.getDoubleArray("doubles"), 0);
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getConfiguration("nested").setInt("inner", 2));
+		
+	}
+	
+	@Test
+	public void testSnapshotCannotBeModifiedThroughCopies() {
+		
+		ConfigHandle handle = ConfigHandle.of(SimpleConfigLib.buildConfiguration("{\"k\":1}"));
+		
+		SimpleConfigLib.concurrentConfiguration(handle.get()).setInt("k", 99);
+		assertEquals(1, handle.get().getInt("k"));
+		
+		Configuration outer = SimpleConfigLib.emptyConfiguration();
+		outer.setConfiguration("s", handle.get());
+		outer.getConfiguration("s").setInt("k", 7);
+		assertEquals(1, handle.get().getInt("k"));
+		assertEquals(7, outer.getConfiguration("s").getInt("k"));
+		
+	}
+	
+	@Test
+	public void testDerive() {
+		
+		ConfigHandle handle = ConfigHandle.of(SimpleConfigLib.buildConfiguration("{\"port\":80}"));
+		AtomicInteger computations = new AtomicInteger();
+		ConfigHandle.Derived<Integer> port = handle.derive(configuration -> {
+			computations.incrementAndGet();
+			return configuration.getInt("port");
+		});
+		
+		assertEquals(80, (int) port.get());
+		assertEquals(80, (int) port.get());
+		assertEquals(1, computations.get());
+		
+		handle.publish(SimpleConfigLib.buildConfiguration("{\"port\":443}"));
+		
+		assertEquals(443, (int) port.get());
+		assertEquals(2, computations.get());
+		
+	}
+	
+	@Test
+	public void testReload() throws IOException {
+		
+		File file = new File("handle.json");
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		configuration.setString("key", "first");
+		SimpleConfigLib.save(configuration, file);
+		
+		try {
+			
+			ConfigHandle handle = ConfigHandle.load(file);
+			assertEquals("first", handle.get().getString("key"));
+			
+			configuration.setString("key", "second");
+			SimpleConfigLib.save(configuration, file);
+			
+			assertEquals(2L, handle.reload());
+			assertEquals("second", handle.get().getString("key"));
+			
+			assertThrows(IllegalStateException.class, () -> ConfigHandle.of(configuration).reload());
+			
+		} finally {
+			assertTrue(file.delete());
+		}
+		
+	}
+	
+}
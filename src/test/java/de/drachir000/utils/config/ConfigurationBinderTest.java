@@ -0,0 +1,78 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConfigurationBinderTest {
+	
+	@Test
+	public void testBindRecord() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration(
+				"{\"host\":\"localhost\",\"port\":8080,\"secure\":true,\"ratio\":0.5,\"mode\":\"VALUE_TWO\"," +
+						"\"pool\":{\"min\":2,\"max\":16},\"unused\":\"ignored\"}"
+		);
+		
+		Settings settings = configuration.bind(Settings.class);
+		
+		assertEquals("localhost", settings.host());
+		assertEquals(8080, settings.port());
+		assertTrue(settings.secure());
+		assertEquals(0.5, settings.ratio(), 0.0);
+		assertEquals(ConfigurationTest.TestEnum.VALUE_TWO, settings.mode());
+		assertEquals(new Pool(2, 16), settings.pool());
+		assertNull(settings.timeout());
+		
+		assertEquals(settings, configuration.bind(Settings.class));
+		
+	}
+	
+	@Test
+	public void testBindObject() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"name\":\"worker\",\"threads\":\"4\",\"pool\":{\"max\":8}}");
+		
+		Worker worker = configuration.bind(Worker.class);
+		
+		assertEquals("worker", worker.name);
+		assertEquals(4, worker.threads);
+		assertEquals(60L, worker.keepAlive);
+		assertEquals(new Pool(0, 8), worker.pool);
+		
+	}
+	
+	@Test
+	public void testBindInvalid() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"port\":\"not a number\"}");
+		
+		assertThrows(JSONException.class, () -> configuration.bind(Settings.class));
+		assertThrows(IllegalArgumentException.class, () -> configuration.bind(Runnable.class));
+		assertThrows(IllegalArgumentException.class, () -> configuration.bind(Immutable.class));
+		
+	}
+	
+	record Pool(int min, int max) {
+	}
+	
+	record Settings(String host, int port, boolean secure, double ratio, ConfigurationTest.TestEnum mode, Pool pool, Long timeout) {
+	}
+	
+	static class Base {
+		long keepAlive = 60L;
+	}
+	
+	static class Worker extends Base {
+		String name;
+		int threads;
+		Pool pool;
+		transient Object cache;
+	}
+	
+	static class Immutable {
+		final int value = 1;
+	}
+	
+}
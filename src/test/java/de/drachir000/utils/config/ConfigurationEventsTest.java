@@ -0,0 +1,88 @@
+package de.drachir000.utils.config;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ConfigurationEventsTest {
+	
+	@Test
+	public void testEvents() throws Exception {
+		
+		File file = new File("events.json");
+		Path dump = Files.createTempFile("events", ".jfr");
+		
+		try (Recording recording = new Recording()) {
+			
+			for (String name : new String[]{"Load", "Save", "Parse", "Encode", "Decode", "Reload"}) {
+				recording.enable("de.drachir000.config." + name).withThreshold(Duration.ZERO);
+			}
+			recording.start();
+			
+			Configuration configuration = SimpleConfigLib.buildConfiguration("{\"a\":1,\"b\":2}");
+			configuration.setEncoded("encoded", "value");
+			SimpleConfigLib.save(configuration, file, true);
+			
+			Configuration loaded = SimpleConfigLib.load(file);
+			assertEquals("value", loaded.getEncoded("encoded"));
+			
+			ConfigHandle.load(file).reload();
+			
+			recording.stop();
+			recording.dump(dump);
+			
+			List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+			
+			RecordedEvent save = single(events, "Save");
+			assertEquals(file.getPath(), save.getString("path"));
+			assertEquals(file.length(), save.getLong("bytes"));
+			assertEquals(3, save.getInt("keys"));
+			assertFalse(save.getBoolean("locked"));
+			
+			// SimpleConfigLib.load, ConfigHandle.load and ConfigHandle.reload
+			List<RecordedEvent> loads = named(events, "Load");
+			assertEquals(3, loads.size());
+			assertEquals(3, loads.get(0).getInt("keys"));
+			
+			List<RecordedEvent> parses = named(events, "Parse");
+			assertEquals(4, parses.size());
+			assertEquals(2, parses.get(0).getInt("keys"));
+			
+			RecordedEvent encode = single(events, "Encode");
+			assertEquals(String.class.getName(), encode.getString("valueClass"));
+			assertEquals("", encode.getString("codec"));
+			assertTrue(encode.getLong("bytes") > 0);
+			
+			assertEquals(String.class.getName(), single(events, "Decode").getString("valueClass"));
+			assertEquals(2L, single(events, "Reload").getLong("version"));
+			
+		} finally {
+			file.delete();
+			Files.deleteIfExists(dump);
+		}
+		
+	}
+	
+	private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+		return events.stream()
+				.filter(event -> event.getEventType().getName().equals("de.drachir000.config." + name))
+				.collect(Collectors.toList());
+	}
+	
+	private static RecordedEvent single(List<RecordedEvent> events, String name) {
+		List<RecordedEvent> matching = named(events, name);
+		assertFalse("No " + name + " event", matching.isEmpty());
+		return matching.get(0);
+	}
+	
+}
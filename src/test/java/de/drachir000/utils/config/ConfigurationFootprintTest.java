@@ -0,0 +1,75 @@
+package de.drachir000.utils.config;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ConfigurationFootprintTest {
+	
+	@Test
+	public void testEstimate() {
+		
+		Configuration empty = SimpleConfigLib.emptyConfiguration();
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"name\":\"value\",\"number\":42,\"nested\":{\"list\":[1,2,3],\"inner\":{\"flag\":true}}}");
+		
+		assertTrue(empty.estimateRetainedSize() > 0);
+		assertTrue(configuration.estimateRetainedSize() > empty.estimateRetainedSize());
+		
+		ConfigurationFootprint footprint = configuration.footprint();
+		assertEquals(configuration.estimateRetainedSize(), footprint.getTotalBytes());
+		
+		long sum = 0;
+		for (long bytes : footprint.getBytesByCategory().values()) {
+			sum += bytes;
+		}
+		assertEquals(footprint.getTotalBytes(), sum);
+		
+		assertTrue(footprint.getBytes(ConfigurationFootprint.Category.STRUCTURE) > 0);
+		assertTrue(footprint.getBytes(ConfigurationFootprint.Category.KEY) > 0);
+		assertTrue(footprint.getBytes(ConfigurationFootprint.Category.STRING) > 0);
+		assertTrue(footprint.getBytes(ConfigurationFootprint.Category.NUMBER) > 0);
+		assertTrue(footprint.getBytes(ConfigurationFootprint.Category.ARRAY) > 0);
+		assertEquals(0, footprint.getBytes(ConfigurationFootprint.Category.ENCODED));
+		
+		Map<String, Long> subtrees = footprint.getSubtreeBytes();
+		assertArrayEquals(new String[]{"", "nested", "nested.inner"}, subtrees.keySet().toArray());
+		assertEquals(footprint.getTotalBytes(), (long) subtrees.get(""));
+		assertTrue(subtrees.get("nested") > subtrees.get("nested.inner"));
+		assertEquals(configuration.getConfiguration("nested").estimateRetainedSize(), (long) subtrees.get("nested"));
+		
+	}
+	
+	@Test
+	public void testEncodedShare() throws IOException {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		configuration.setString("key", "value");
+		configuration.setEncoded("blob", new int[1024]);
+		
+		// Encoded values are only recognized as strings, e.g. after loading
+		Configuration loaded = SimpleConfigLib.buildConfiguration(configuration.toString(true));
+		ConfigurationFootprint footprint = loaded.footprint();
+		
+		assertTrue(footprint.getBytes(ConfigurationFootprint.Category.ENCODED) > 4096);
+		assertTrue(footprint.getEncodedShare() > 0.5);
+		assertTrue(footprint.toString().contains("ENCODED"));
+		
+	}
+	
+	@Test
+	public void testPrimitiveArrays() {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		configuration.setIntArray("ints", new int[1000]);
+		
+		Configuration boxed = SimpleConfigLib.buildConfiguration(configuration.toString());
+		
+		assertTrue(configuration.footprint().getBytes(ConfigurationFootprint.Category.PRIMITIVE_ARRAY) >= 4000);
+		assertTrue(boxed.estimateRetainedSize() > configuration.estimateRetainedSize());
+		
+	}
+	
+}
@@ -0,0 +1,183 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ConfigurationMergeTest {
+	
+	private static final String BASE = "{\"name\":\"base\",\"db\":{\"host\":\"localhost\",\"port\":5432},\"tags\":[\"a\",\"b\"],\"servers\":[{\"host\":\"s1\",\"port\":1}]}";
+	
+	@Test
+	public void testResolverAccessingConcurrentConfiguration() {
+		
+		ConcurrentConfiguration configuration = SimpleConfigLib.concurrentConfiguration(SimpleConfigLib.buildConfiguration("{\"a\":1,\"b\":2}"));
+		MergePolicy reentrant = MergePolicy.builder()
+				.onConflict((path, current, incoming) -> configuration.getInt("b"))
+				.build();
+		
+		// The resolver runs under the write lock, reading the Configuration must fail instead of deadlocking
+		assertThrows(IllegalStateException.class, () -> configuration.merge(SimpleConfigLib.buildConfiguration("{\"a\":3}"), reentrant));
+		assertThrows(IllegalStateException.class, () -> configuration.compute("a", (k, v) -> configuration.get("b")));
+		
+		configuration.setInt("a", 4);
+		assertEquals(4, configuration.getInt("a"));
+		
+	}
+	
+	@Test
+	public void testDeepMerge() {
+		
+		Configuration base = SimpleConfigLib.buildConfiguration(BASE);
+		Configuration db = base.getConfiguration("db");
+		Configuration patch = SimpleConfigLib.buildConfiguration("{\"db\":{\"port\":6543,\"user\":\"admin\"},\"tags\":[\"c\"],\"debug\":true}");
+		
+		ConfigurationChange change = base.merge(patch, MergePolicy.DEFAULT);
+		
+		assertEquals("base", base.getString("name"));
+		assertEquals("localhost", db.getString("host"));
+		assertEquals(6543, db.getInt("port"));
+		assertEquals("admin", db.getString("user"));
+		assertEquals(1, base.getJSONArray("tags").length());
+		assertTrue(base.getBoolean("debug"));
+		assertEquals(Set.of("db.port", "db.user", "tags", "debug"), change.getKeys());
+		
+		// Merging the same values again changes nothing
+		assertTrue(base.merge(patch, MergePolicy.DEFAULT).isEmpty());
+		
+		// Merged values are copies
+		patch.getJSONArray("tags").put("d");
+		assertEquals(1, base.getJSONArray("tags").length());
+		
+	}
+	
+	@Test
+	public void testReplaceObjects() {
+		
+		Configuration base = SimpleConfigLib.buildConfiguration(BASE);
+		base.merge(SimpleConfigLib.buildConfiguration("{\"db\":{\"port\":1}}"), MergePolicy.builder().objects(MergePolicy.ObjectStrategy.REPLACE).build());
+		
+		assertFalse(base.getConfiguration("db").hasKey("host"));
+		assertEquals(1, base.getConfiguration("db").getInt("port"));
+		
+	}
+	
+	@Test
+	public void testArrayStrategies() {
+		
+		Configuration patch = SimpleConfigLib.buildConfiguration("{\"tags\":[\"b\",\"c\"],\"servers\":[{\"port\":2},{\"host\":\"s2\"}]}");
+		
+		Configuration append = SimpleConfigLib.merge(SimpleConfigLib.buildConfiguration(BASE), patch,
+				MergePolicy.builder().arrays(MergePolicy.ArrayStrategy.APPEND).build());
+		assertTrue(new JSONArray("[\"a\",\"b\",\"b\",\"c\"]").similar(append.getJSONArray("tags")));
+		
+		Configuration distinct = SimpleConfigLib.merge(SimpleConfigLib.buildConfiguration(BASE), patch,
+				MergePolicy.builder().arrays(MergePolicy.ArrayStrategy.APPEND_DISTINCT).build());
+		assertTrue(new JSONArray("[\"a\",\"b\",\"c\"]").similar(distinct.getJSONArray("tags")));
+		
+		Configuration byIndex = SimpleConfigLib.merge(SimpleConfigLib.buildConfiguration(BASE), patch,
+				MergePolicy.builder().arrays(MergePolicy.ArrayStrategy.MERGE_BY_INDEX).build());
+		assertTrue(new JSONArray("[{\"host\":\"s1\",\"port\":2},{\"host\":\"s2\"}]").similar(byIndex.getJSONArray("servers")));
+		assertTrue(new JSONArray("[\"b\",\"c\"]").similar(byIndex.getJSONArray("tags")));
+		
+		Configuration primitive = SimpleConfigLib.emptyConfiguration();
+		primitive.setIntArray("ports", new int[]{80});
+		Configuration ports = SimpleConfigLib.emptyConfiguration();
+		ports.setIntArray("ports", new int[]{443});
+		primitive.merge(ports, MergePolicy.builder().arrays(MergePolicy.ArrayStrategy.APPEND).build());
+		assertArrayEquals(new int[]{80, 443}, primitive.getIntArray("ports"));
+		
+	}
+	
+	@Test
+	public void testConflictResolver() {
+		
+		List<String> conflicts = new ArrayList<>();
+		MergePolicy policy = MergePolicy.builder()
+				.onConflict((path, current, incoming) -> {
+					conflicts.add(path);
+					return path.equals("name") ? current : incoming;
+				})
+				.build();
+		
+		Configuration base = SimpleConfigLib.buildConfiguration(BASE);
+		base.merge(SimpleConfigLib.buildConfiguration("{\"name\":\"patch\",\"db\":{\"port\":1,\"host\":\"localhost\"},\"new\":1}"), policy);
+		
+		assertEquals("base", base.getString("name"));
+		assertEquals(1, base.getConfiguration("db").getInt("port"));
+		assertEquals(List.of("name", "db.port"), conflicts);
+		
+	}
+	
+	@Test
+	public void testConflictPathsInArrayElements() {
+		
+		Configuration base = SimpleConfigLib.buildConfiguration("{\"servers\":[{\"host\":\"s1\",\"tls\":{\"port\":1}}]}");
+		List<String> conflicts = new ArrayList<>();
+		MergePolicy policy = MergePolicy.builder()
+				.arrays(MergePolicy.ArrayStrategy.MERGE_BY_INDEX)
+				.onConflict((path, current, incoming) -> {
+					conflicts.add(path);
+					return incoming;
+				})
+				.build();
+		
+		ConfigurationChange change = base.merge(SimpleConfigLib.buildConfiguration("{\"servers\":[{\"host\":\"s2\",\"tls\":{\"port\":2}}]}"), policy);
+		
+		assertEquals(List.of("servers[0].host", "servers[0].tls.port"), conflicts);
+		assertEquals(Set.of("servers"), change.getKeys());
+		
+		// The paths are the paths of a ConfigurationSelector
+		List<String> selected = new ArrayList<>();
+		for (String path : conflicts) {
+			ConfigurationSelector.compile(path).forEach(base, (p, value) -> selected.add(p));
+		}
+		assertEquals(conflicts, selected);
+		
+	}
+	
+	@Test
+	public void testNullRemoves() {
+		
+		Configuration base = SimpleConfigLib.buildConfiguration(BASE);
+		base.merge(SimpleConfigLib.buildConfiguration("{\"db\":{\"port\":null},\"name\":null}"), MergePolicy.builder().nullRemoves().build());
+		
+		assertFalse(base.hasKey("name"));
+		assertFalse(base.getConfiguration("db").hasKey("port"));
+		assertTrue(base.getConfiguration("db").hasKey("host"));
+		
+	}
+	
+	@Test
+	public void testListenersAndCopies() {
+		
+		Configuration base = SimpleConfigLib.buildConfiguration(BASE);
+		List<ConfigurationChange> changes = new ArrayList<>();
+		base.addChangeListener(changes::add);
+		
+		Configuration merged = SimpleConfigLib.merge(base, SimpleConfigLib.buildConfiguration("{\"db\":{\"port\":1}}"), MergePolicy.DEFAULT);
+		assertEquals(5432, base.getConfiguration("db").getInt("port"));
+		assertEquals(1, merged.getConfiguration("db").getInt("port"));
+		assertTrue(changes.isEmpty());
+		
+		base.merge(merged, MergePolicy.DEFAULT);
+		assertEquals(1, changes.size());
+		assertEquals(Set.of("db.port"), changes.get(0).getKeys());
+		
+		ConcurrentConfiguration concurrent = SimpleConfigLib.concurrentConfiguration(SimpleConfigLib.buildConfiguration(BASE));
+		concurrent.merge(merged, MergePolicy.DEFAULT);
+		assertEquals(1, concurrent.getConfiguration("db").getInt("port"));
+		
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testReadOnly() {
+		SimpleConfigLib.immutableConfiguration(SimpleConfigLib.buildConfiguration(BASE)).merge(SimpleConfigLib.emptyConfiguration(), MergePolicy.DEFAULT);
+	}
+	
+}
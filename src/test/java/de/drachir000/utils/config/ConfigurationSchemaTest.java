@@ -0,0 +1,101 @@
+package de.drachir000.utils.config;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ConfigurationSchemaTest {
+	
+	private static final ConfigurationSchema POOL = ConfigurationSchema.builder()
+			.required("min", ConfigurationSchema.Type.INT, 0, 64)
+			.required("max", ConfigurationSchema.Type.INT, 1, 64)
+			.build();
+	
+	private static final ConfigurationSchema SCHEMA = ConfigurationSchema.builder()
+			.required("host", ConfigurationSchema.Type.STRING)
+			.required("port", ConfigurationSchema.Type.INT, 1, 65535)
+			.optional("ratio", ConfigurationSchema.Type.DOUBLE, 0, 1)
+			.optional("debug", ConfigurationSchema.Type.BOOLEAN)
+			.optional("tags", ConfigurationSchema.Type.ARRAY)
+			.required("pool", POOL)
+			.strict()
+			.build();
+	
+	@Test
+	public void testValid() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration(
+				"{\"host\":\"localhost\",\"port\":\"8080\",\"ratio\":0.25,\"debug\":\"TRUE\",\"tags\":[],\"pool\":{\"min\":1,\"max\":8}}"
+		);
+		
+		assertTrue(SCHEMA.validate(configuration).isEmpty());
+		assertTrue(SCHEMA.isValid(configuration));
+		
+	}
+	
+	@Test
+	public void testViolations() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration(
+				"{\"port\":70000,\"ratio\":\"abc\",\"debug\":1,\"pool\":{\"min\":1.5,\"max\":100},\"extra\":true}"
+		);
+		
+		List<ConfigurationSchema.Violation> violations = SCHEMA.validate(configuration);
+		Map<String, ConfigurationSchema.Violation.Kind> kinds = violations.stream()
+				.collect(Collectors.toMap(ConfigurationSchema.Violation::getPath, ConfigurationSchema.Violation::getKind));
+		
+		assertEquals(7, violations.size());
+		assertEquals(ConfigurationSchema.Violation.Kind.MISSING, kinds.get("host"));
+		assertEquals(ConfigurationSchema.Violation.Kind.OUT_OF_RANGE, kinds.get("port"));
+		assertEquals(ConfigurationSchema.Violation.Kind.WRONG_TYPE, kinds.get("ratio"));
+		assertEquals(ConfigurationSchema.Violation.Kind.WRONG_TYPE, kinds.get("debug"));
+		assertEquals(ConfigurationSchema.Violation.Kind.WRONG_TYPE, kinds.get("pool.min"));
+		assertEquals(ConfigurationSchema.Violation.Kind.OUT_OF_RANGE, kinds.get("pool.max"));
+		assertEquals(ConfigurationSchema.Violation.Kind.UNKNOWN_KEY, kinds.get("extra"));
+		
+	}
+	
+	@Test
+	public void testLongRange() {
+		
+		ConfigurationSchema schema = ConfigurationSchema.builder()
+				.optional("max", ConfigurationSchema.Type.LONG)
+				.optional("min", ConfigurationSchema.Type.LONG)
+				.optional("string", ConfigurationSchema.Type.LONG)
+				.optional("huge", ConfigurationSchema.Type.LONG)
+				.optional("big", ConfigurationSchema.Type.LONG)
+				.optional("digits", ConfigurationSchema.Type.LONG)
+				.build();
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		configuration.setLong("max", Long.MAX_VALUE);
+		configuration.setLong("min", Long.MIN_VALUE);
+		configuration.setString("string", String.valueOf(Long.MAX_VALUE));
+		assertTrue(schema.validate(configuration).isEmpty());
+		
+		configuration.setDouble("huge", 1e30);
+		configuration.set("big", BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE));
+		configuration.setString("digits", "9223372036854775808");
+		
+		List<ConfigurationSchema.Violation> violations = schema.validate(configuration);
+		assertEquals(3, violations.size());
+		for (ConfigurationSchema.Violation violation : violations) {
+			assertEquals(ConfigurationSchema.Violation.Kind.OUT_OF_RANGE, violation.getKind());
+		}
+		
+	}
+	
+	@Test
+	public void testInvalidDeclaration() {
+		
+		assertThrows(IllegalArgumentException.class, () -> ConfigurationSchema.builder().required("key", ConfigurationSchema.Type.STRING, 0, 1));
+		assertThrows(IllegalArgumentException.class, () -> ConfigurationSchema.builder().optional("key", ConfigurationSchema.Type.INT, 2, 1));
+		
+	}
+	
+}
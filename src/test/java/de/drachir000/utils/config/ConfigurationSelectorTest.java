@@ -0,0 +1,83 @@
+package de.drachir000.utils.config;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ConfigurationSelectorTest {
+	
+	private static final Configuration CONFIGURATION = SimpleConfigLib.buildConfiguration("{"
+			+ "\"services\":{\"api\":{\"timeout\":30,\"retry\":{\"timeout\":5}},\"web\":{\"timeout\":60},\"cache\":{\"size\":10}},"
+			+ "\"servers\":[{\"host\":\"s1\",\"port\":80},{\"host\":\"s2\",\"port\":81}],"
+			+ "\"a.b\":{\"c\":1},"
+			+ "\"timeout\":1}");
+	
+	@Test
+	public void testWildcard() {
+		
+		Map<String, Object> matches = select("services.*.timeout");
+		
+		assertEquals(Map.of("services.api.timeout", 30, "services.web.timeout", 60), matches);
+		
+	}
+	
+	@Test
+	public void testRecursiveDescent() {
+		
+		Map<String, Object> matches = select("**.timeout");
+		
+		assertEquals(Map.of("timeout", 1, "services.api.timeout", 30, "services.api.retry.timeout", 5, "services.web.timeout", 60), matches);
+		assertEquals(matches, select("**.**.timeout"));
+		assertEquals(Map.of("services.api.retry.timeout", 5), select("services.**.retry.timeout"));
+		
+	}
+	
+	@Test
+	public void testArrays() {
+		
+		assertEquals(Map.of("servers[0].host", "s1"), select("servers[0].host"));
+		assertEquals(Map.of("servers[1].port", 81), select("servers[-1].port"));
+		assertEquals(Map.of("servers[0].port", 80, "servers[1].port", 81), select("servers[*].port"));
+		assertEquals(Map.of("servers[0].port", 80, "servers[1].port", 81), select("servers.*.port"));
+		assertTrue(select("servers[5].port").isEmpty());
+		
+		Configuration primitive = SimpleConfigLib.emptyConfiguration();
+		primitive.setIntArray("ports", new int[]{80, 443});
+		List<Object> values = new ArrayList<>();
+		ConfigurationSelector.compile("ports[1]").forEachValue(primitive, values::add);
+		assertEquals(List.of(443), values);
+		
+	}
+	
+	@Test
+	public void testQuotedKeysAndRoot() {
+		
+		assertEquals(Map.of("a.b.c", 1), select("['a.b'].c"));
+		assertEquals(3, ConfigurationSelector.compile("services.*").count(CONFIGURATION));
+		assertEquals(1, ConfigurationSelector.compile("").count(CONFIGURATION));
+		
+		Configuration brackets = SimpleConfigLib.buildConfiguration("{\"a]b\":1,\"x['y']\":{\"z\":2}}");
+		assertEquals(1, ConfigurationSelector.compile("['a]b']").count(brackets));
+		assertEquals(1, ConfigurationSelector.compile("[ \"x['y']\" ].z").count(brackets));
+		
+	}
+	
+	@Test
+	public void testMalformed() {
+		for (String expression : new String[]{"services.", ".services", "servers[0", "servers[x]", "a..b", "['a]", "['a'b]"}) {
+			assertThrows(expression, IllegalArgumentException.class, () -> ConfigurationSelector.compile(expression));
+		}
+	}
+	
+	private static Map<String, Object> select(String expression) {
+		Map<String, Object> matches = new LinkedHashMap<>();
+		ConfigurationSelector.compile(expression).forEach(CONFIGURATION, matches::put);
+		return matches;
+	}
+	
+}
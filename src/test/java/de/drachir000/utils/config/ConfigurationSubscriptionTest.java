@@ -0,0 +1,224 @@
+package de.drachir000.utils.config;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class ConfigurationSubscriptionTest {
+	
+	@Test
+	public void testPrefixMatching() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"db\":{\"pool\":{\"size\":4},\"host\":\"localhost\"},\"port\":80}");
+		
+		List<ConfigurationChange> pool = new ArrayList<>();
+		List<ConfigurationChange> db = new ArrayList<>();
+		List<ConfigurationChange> all = new ArrayList<>();
+		configuration.subscribe("db.pool.*", pool::add, Runnable::run);
+		configuration.subscribe("db", db::add, Runnable::run);
+		configuration.subscribe("*", all::add, Runnable::run);
+		
+		configuration.getConfiguration("db").getConfiguration("pool").setInt("size", 8);
+		configuration.getConfiguration("db").setString("host", "remote");
+		configuration.setInt("port", 443);
+		
+		assertEquals(1, pool.size());
+		assertEquals(Set.of("db.pool.size"), pool.get(0).getKeys());
+		assertEquals(4, pool.get(0).getOldValue("db.pool.size"));
+		assertEquals(2, db.size());
+		assertEquals(3, all.size());
+		
+		// Replacing a parent affects the subscribed path below it
+		configuration.setConfiguration("db", SimpleConfigLib.emptyConfiguration());
+		assertEquals(2, pool.size());
+		
+	}
+	
+	@Test
+	public void testDetachedChild() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"db\":{\"host\":\"localhost\"}}");
+		List<ConfigurationChange> changes = new ArrayList<>();
+		configuration.addChangeListener(changes::add);
+		
+		Configuration db = configuration.getConfiguration("db");
+		configuration.setConfiguration("db", SimpleConfigLib.emptyConfiguration());
+		db.setString("host", "remote");
+		
+		assertEquals(1, changes.size());
+		
+	}
+	
+	@Test
+	public void testChangeRestrictedToPath() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"db\":{\"host\":\"localhost\"},\"port\":80}");
+		List<ConfigurationChange> db = new ArrayList<>();
+		configuration.subscribe("db", db::add, Runnable::run);
+		
+		configuration.merge(SimpleConfigLib.buildConfiguration("{\"db\":{\"host\":\"remote\"},\"port\":443}"), MergePolicy.DEFAULT);
+		
+		assertEquals(1, db.size());
+		assertEquals(Set.of("db.host"), db.get(0).getKeys());
+		
+	}
+	
+	@Test
+	public void testRejectedNotification() {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		ExecutorService shutDown = Executors.newSingleThreadExecutor();
+		shutDown.shutdown();
+		
+		List<ConfigurationChange> changes = new ArrayList<>();
+		List<Throwable> reported = new ArrayList<>();
+		configuration.subscribe("a", change -> fail("The rejected notification must not be delivered"), shutDown);
+		configuration.subscribe("a", changes::add, Runnable::run);
+		
+		Thread thread = Thread.currentThread();
+		Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+		thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+		try {
+			configuration.setInt("a", 1);
+		} finally {
+			thread.setUncaughtExceptionHandler(handler);
+		}
+		
+		assertEquals(1, configuration.getInt("a"));
+		assertEquals(1, changes.size());
+		assertEquals(1, reported.size());
+		assertTrue(reported.get(0) instanceof RejectedExecutionException);
+		
+	}
+	
+	@Test
+	public void testErrorInListener() {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		List<ConfigurationChange> changes = new ArrayList<>();
+		configuration.subscribe("a", change -> {
+			changes.add(change);
+			if (changes.size() == 1)
+				throw new AssertionError("listener failure");
+		}, Runnable::run);
+		
+		assertThrows(AssertionError.class, () -> configuration.setInt("a", 1));
+		configuration.setInt("a", 2);
+		
+		assertEquals(2, changes.size());
+		
+	}
+	
+	@Test
+	public void testFailingListenerDoesNotSkipOthers() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"a\":\"x\",\"b\":\"${a}\"}");
+		List<Throwable> reported = new ArrayList<>();
+		configuration.addChangeListener(change -> {
+			throw new IllegalStateException("listener failure");
+		});
+		configuration.enableInterpolation();
+		assertEquals("x", configuration.getString("b"));
+		
+		Thread thread = Thread.currentThread();
+		Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+		thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+		try {
+			configuration.setString("a", "y");
+		} finally {
+			thread.setUncaughtExceptionHandler(handler);
+		}
+		
+		assertEquals("y", configuration.getString("b"));
+		assertEquals(1, reported.size());
+		assertTrue(reported.get(0) instanceof IllegalStateException);
+		
+		// An Error is rethrown, but only after the other subscriptions were notified
+		configuration.addChangeListener(change -> {
+			throw new AssertionError("listener failure");
+		});
+		thread.setUncaughtExceptionHandler((t, e) -> reported.add(e));
+		try {
+			assertThrows(AssertionError.class, () -> configuration.setString("a", "z"));
+		} finally {
+			thread.setUncaughtExceptionHandler(handler);
+		}
+		
+		assertEquals("z", configuration.getString("b"));
+		
+	}
+	
+	@Test
+	public void testCancel() {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		List<ConfigurationChange> changes = new ArrayList<>();
+		ConfigurationSubscription subscription = configuration.subscribe("key", changes::add, Runnable::run);
+		
+		configuration.setInt("key", 1);
+		subscription.cancel();
+		configuration.setInt("key", 2);
+		
+		assertFalse(subscription.isActive());
+		assertEquals(1, changes.size());
+		
+	}
+	
+	@Test
+	public void testAsyncBatching() throws InterruptedException {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		BlockingQueue<ConfigurationChange> changes = new LinkedBlockingQueue<>();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch blocked = new CountDownLatch(1);
+		
+		try {
+			
+			// Block the executor, so the following changes pile up and are merged
+			executor.execute(() -> {
+				try {
+					blocked.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			
+			configuration.subscribe("", changes::add, executor);
+			for (int i = 0; i < 100; i++) {
+				configuration.setInt("counter", i);
+				configuration.setInt("key-" + (i % 3), i);
+			}
+			blocked.countDown();
+			
+			ConfigurationChange change = changes.poll(5, TimeUnit.SECONDS);
+			assertNotNull(change);
+			assertNull(change.getOldValue("counter"));
+			assertEquals(99, change.getNewValue("counter"));
+			assertEquals(Set.of("counter", "key-0", "key-1", "key-2"), change.getKeys());
+			assertNull(changes.poll(100, TimeUnit.MILLISECONDS));
+			
+		} finally {
+			executor.shutdownNow();
+		}
+		
+	}
+	
+	@Test
+	public void testDefaultExecutor() throws InterruptedException {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		CountDownLatch notified = new CountDownLatch(1);
+		configuration.subscribe("key", change -> notified.countDown());
+		
+		configuration.setString("key", "value");
+		
+		assertTrue(notified.await(5, TimeUnit.SECONDS));
+		
+	}
+	
+}
@@ -6,6 +6,8 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
+import java.util.Random;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -924,6 +926,40 @@ public class ConfigurationTest {
 		
 	}
 	
+	@Test
+	public void testWriteEncoded() throws IOException, ClassNotFoundException {
+		
+		TestObject value = new TestObject(123, "Hello World!", TestEnum.VALUE_THREE, 456.78f);
+		Configuration configObject = getConfigurationDeserialization3(value);
+		
+		StringWriter writer = new StringWriter();
+		configObject.write(writer, true);
+		
+		assertEquals(configObject.toString(true), writer.toString());
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration(writer.toString());
+		assertEquals(value, configuration.getEncoded("encoded"));
+		assertEquals("valueInner2", configuration.getConfiguration("config-2").getString("keyInner"));
+		assertEquals(TestEnum.VALUE_TWO, configuration.getEnum(TestEnum.class, "enum"));
+		
+	}
+	
+	@Test
+	public void testEncodedLargeValue() throws IOException, ClassNotFoundException {
+		
+		byte[] value = new byte[3 * 1024 * 1024 + 7];
+		new Random(42).nextBytes(value);
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		configuration.setEncoded("blob", value);
+		
+		assertArrayEquals(value, (byte[]) configuration.getEncoded("blob"));
+		
+		configuration.setString("invalid", "not base64!");
+		assertThrows(IllegalArgumentException.class, () -> configuration.getEncoded("invalid"));
+		
+	}
+	
 	@Test
 	public void testOOP() {
 		
@@ -0,0 +1,120 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+public class ConfigurationTransactionTest {
+	
+	@Test
+	public void testUpdate() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"host\":\"old\",\"legacy\":1,\"same\":true}");
+		List<ConfigurationChange> events = new ArrayList<>();
+		configuration.addChangeListener(events::add);
+		
+		ConfigurationChange change = configuration.update(tx -> {
+			tx.setString("host", "localhost").setInt("port", 8080).remove("legacy").setBoolean("same", true);
+			assertEquals(8080, tx.get("port"));
+			assertNull(tx.get("legacy"));
+			// Staged values are not visible through the Configuration yet
+			assertFalse(configuration.hasKey("port"));
+		});
+		
+		assertEquals(Set.of("host", "port", "legacy"), change.getKeys());
+		assertEquals("old", change.getOldValue("host"));
+		assertEquals("localhost", change.getNewValue("host"));
+		assertEquals(1, change.getOldValue("legacy"));
+		
+		assertEquals(1, events.size());
+		assertSame(change, events.get(0));
+		
+		assertEquals("localhost", configuration.getString("host"));
+		assertEquals(8080, configuration.getInt("port"));
+		assertFalse(configuration.hasKey("legacy"));
+		
+	}
+	
+	@Test
+	public void testFailedUpdate() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"key\":\"value\"}");
+		List<ConfigurationChange> events = new ArrayList<>();
+		configuration.addChangeListener(events::add);
+		
+		assertThrows(JSONException.class, () -> configuration.update(tx -> tx.setString("key", "new").setDouble("invalid", Double.NaN)));
+		assertThrows(IllegalStateException.class, () -> configuration.update(tx -> {
+			tx.setString("key", "new");
+			throw new IllegalStateException();
+		}));
+		
+		assertEquals("value", configuration.getString("key"));
+		assertTrue(events.isEmpty());
+		assertTrue(configuration.update(tx -> tx.setString("key", "value")).isEmpty());
+		
+	}
+	
+	@Test
+	public void testListeners() {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		List<ConfigurationChange> events = new ArrayList<>();
+		Consumer<ConfigurationChange> listener = events::add;
+		configuration.addChangeListener(listener);
+		
+		configuration.setInt("a", 1);
+		configuration.setInt("a", 1);
+		configuration.putIfAbsent("b", 2);
+		configuration.compute("a", (k, v) -> (int) v + 1);
+		
+		assertEquals(3, events.size());
+		assertEquals(2, events.get(2).getNewValue("a"));
+		
+		assertTrue(configuration.removeChangeListener(listener));
+		configuration.setInt("a", 5);
+		assertEquals(3, events.size());
+		
+	}
+	
+	@Test
+	public void testConcurrentUpdate() {
+		
+		ConcurrentConfiguration configuration = SimpleConfigLib.concurrentConfiguration(SimpleConfigLib.emptyConfiguration());
+		
+		ConfigurationChange change = configuration.update(tx -> tx.setInt("a", 1).setInt("b", 2));
+		
+		assertEquals(Set.of("a", "b"), change.getKeys());
+		assertEquals(2, configuration.getInt("b"));
+		
+	}
+	
+	@Test
+	public void testUpdateAndSave() throws IOException {
+		
+		File file = new File("transaction.json");
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		
+		try {
+			
+			SimpleConfigLib.update(configuration, file, tx -> tx.setString("key", "value"));
+			assertEquals("value", SimpleConfigLib.load(file).getString("key"));
+			
+			assertTrue(file.delete());
+			assertTrue(SimpleConfigLib.update(configuration, file, tx -> tx.setString("key", "value")).isEmpty());
+			assertFalse(file.exists());
+			
+		} finally {
+			file.delete();
+		}
+		
+	}
+	
+}
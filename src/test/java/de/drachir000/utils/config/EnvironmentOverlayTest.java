@@ -0,0 +1,93 @@
+package de.drachir000.utils.config;
+
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class EnvironmentOverlayTest {
+	
+	private static final String BASE = "{\"host\":\"localhost\",\"port\":80,\"debug\":false,\"db\":{\"pool-size\":4,\"url\":\"jdbc:h2:mem\"},\"ports\":[80]}";
+	
+	@Test
+	public void testEnvironmentNames() {
+		assertEquals("DB_POOL_SIZE", EnvironmentOverlay.environmentName("db.pool-size"));
+		assertEquals("A1_B", EnvironmentOverlay.environmentName("a1.b"));
+	}
+	
+	@Test
+	public void testOverrides() {
+		
+		Properties properties = new Properties();
+		properties.setProperty("app.db.url", "jdbc:postgresql://db");
+		properties.setProperty("app.port", "9090");
+		
+		LayeredConfiguration configuration = EnvironmentOverlay.builder()
+				.environmentPrefix("APP_")
+				.propertyPrefix("app.")
+				.environment(Map.of("APP_PORT", "8080", "APP_DB_POOL_SIZE", "16", "APP_DEBUG", "true", "APP_PORTS", "[1,2]", "OTHER", "x"))
+				.properties(properties)
+				.build()
+				.apply(SimpleConfigLib.buildConfiguration(BASE));
+		
+		// System properties take precedence over environment variables
+		assertEquals(9090, configuration.getInt("port"));
+		assertEquals("localhost", configuration.getString("host"));
+		assertTrue(configuration.getBoolean("debug"));
+		assertEquals(16, configuration.getConfiguration("db").getInt("pool-size"));
+		assertEquals("jdbc:postgresql://db", configuration.getConfiguration("db").getString("url"));
+		assertEquals(2, configuration.getJSONArray("ports").length());
+		assertFalse(configuration.hasKey("OTHER"));
+		
+		// Overrides are converted to the type of the value they replace
+		assertEquals(Integer.valueOf(9090), configuration.get("port"));
+		
+	}
+	
+	@Test
+	public void testExplicitMapping() {
+		
+		EnvironmentOverlay overlay = EnvironmentOverlay.builder()
+				.map("DATABASE_URL", "db.url")
+				.map("REGION", "cloud.region")
+				.environment(Map.of("DATABASE_URL", "jdbc:mysql://db", "REGION", "eu-1"))
+				.properties(new Properties())
+				.build();
+		
+		Configuration base = SimpleConfigLib.buildConfiguration(BASE);
+		assertEquals(Map.of("DATABASE_URL", "db.url", "REGION", "cloud.region"), overlay.mapping(base));
+		
+		Configuration configuration = overlay.apply(base);
+		assertEquals("jdbc:mysql://db", configuration.getConfiguration("db").getString("url"));
+		assertEquals(4, configuration.getConfiguration("db").getInt("pool-size"));
+		assertEquals("eu-1", configuration.getConfiguration("cloud").getString("region"));
+		
+	}
+	
+	@Test
+	public void testBaseModificationsKeepOverrides() {
+		
+		Configuration base = SimpleConfigLib.buildConfiguration(BASE);
+		LayeredConfiguration configuration = EnvironmentOverlay.builder()
+				.environmentPrefix("")
+				.environment(Map.of("PORT", "8080"))
+				.properties(new Properties())
+				.build()
+				.apply(base);
+		
+		base.setInt("port", 81);
+		base.setString("host", "remote");
+		
+		assertEquals(8080, configuration.getInt("port"));
+		assertEquals("remote", configuration.getString("host"));
+		
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testOverridesAreReadOnly() {
+		SimpleConfigLib.withEnvironmentOverrides(SimpleConfigLib.buildConfiguration(BASE), "APP_", "app.").setInt("port", 1);
+	}
+	
+}
@@ -0,0 +1,139 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class FlatIndexTest {
+	
+	private static Configuration configuration() {
+		return SimpleConfigLib.buildConfiguration("{"
+				+ "\"db\":{\"host\":\"localhost\",\"pool\":{\"size\":8,\"enabled\":true}},"
+				+ "\"ratio\":0.5,"
+				+ "\"tags\":[\"a\",\"b\"]}");
+	}
+	
+	@Test
+	public void testBuild() {
+		
+		Configuration configuration = configuration();
+		FlatIndex index = configuration.enableFlatIndex();
+		
+		assertSame(index, configuration.enableFlatIndex());
+		assertSame(index, configuration.getFlatIndex());
+		assertEquals(5, index.size());
+		assertEquals("localhost", index.getString("db.host"));
+		assertEquals(8, index.getInt("db.pool.size"));
+		assertEquals(8L, index.getLong("db.pool.size"));
+		assertTrue(index.getBoolean("db.pool.enabled"));
+		assertEquals(0.5, index.getDouble("ratio"), 0);
+		assertTrue(index.containsPath("tags"));
+		assertFalse(index.containsPath("db"));
+		assertFalse(index.containsPath("db.pool"));
+		assertNull(index.get("missing"));
+		
+	}
+	
+	@Test
+	public void testIncrementalUpdates() {
+		
+		Configuration configuration = configuration();
+		FlatIndex index = configuration.enableFlatIndex();
+		
+		configuration.set("ratio", 0.75);
+		configuration.getConfiguration("db").getConfiguration("pool").set("size", 16);
+		configuration.set("name", "app");
+		
+		assertEquals(0.75, index.getDouble("ratio"), 0);
+		assertEquals(16, index.getInt("db.pool.size"));
+		assertEquals("app", index.getString("name"));
+		assertEquals(6, index.size());
+		
+	}
+	
+	@Test
+	public void testReplaceNestedConfiguration() {
+		
+		Configuration configuration = configuration();
+		FlatIndex index = configuration.enableFlatIndex();
+		
+		configuration.setConfiguration("db", SimpleConfigLib.buildConfiguration("{\"url\":\"jdbc:h2:mem\",\"pool\":{\"size\":2}}"));
+		
+		assertFalse(index.containsPath("db.host"));
+		assertFalse(index.containsPath("db.pool.enabled"));
+		assertEquals("jdbc:h2:mem", index.getString("db.url"));
+		assertEquals(2, index.getInt("db.pool.size"));
+		
+		configuration.set("db", "none");
+		
+		assertEquals("none", index.getString("db"));
+		assertFalse(index.containsPath("db.url"));
+		assertFalse(index.containsPath("db.pool.size"));
+		
+		configuration.set("db", null);
+		
+		assertFalse(index.containsPath("db"));
+		
+	}
+	
+	@Test
+	public void testExport() {
+		
+		Configuration configuration = configuration();
+		FlatIndex index = configuration.enableFlatIndex();
+		Map<String, Object> view = index.asMap();
+		
+		Properties properties = index.toProperties();
+		assertEquals("8", properties.getProperty("db.pool.size"));
+		assertEquals("[\"a\",\"b\"]", properties.getProperty("tags"));
+		
+		configuration.set("name", "app");
+		assertEquals("app", view.get("name"));
+		assertThrows(UnsupportedOperationException.class, () -> view.put("x", 1));
+		
+	}
+	
+	@Test
+	public void testWrongType() {
+		
+		FlatIndex index = configuration().enableFlatIndex();
+		
+		assertThrows(JSONException.class, () -> index.getInt("db.host"));
+		assertThrows(JSONException.class, () -> index.getString("db.pool.size"));
+		assertThrows(JSONException.class, () -> index.getString("missing"));
+		
+	}
+	
+	@Test
+	public void testDisable() {
+		
+		Configuration configuration = configuration();
+		FlatIndex index = configuration.enableFlatIndex();
+		configuration.disableFlatIndex();
+		
+		configuration.set("ratio", 1.0);
+		
+		assertNull(configuration.getFlatIndex());
+		assertEquals(0.5, index.getDouble("ratio"), 0);
+		
+	}
+	
+	@Test
+	public void testConcurrentConfiguration() {
+		
+		ConcurrentConfiguration configuration = SimpleConfigLib.concurrentConfiguration(configuration());
+		FlatIndex index = configuration.enableFlatIndex();
+		
+		configuration.set("ratio", 2.0);
+		configuration.getConfiguration("db").set("host", "db.local");
+		
+		assertEquals(2.0, index.getDouble("ratio"), 0);
+		assertEquals("db.local", index.getString("db.host"));
+		
+	}
+	
+}
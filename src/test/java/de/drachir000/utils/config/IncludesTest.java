@@ -0,0 +1,161 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+public class IncludesTest {
+	
+	private Path directory;
+	
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("includes");
+		Files.createDirectories(directory.resolve("shared"));
+		write("shared/database.json", "{\"host\":\"db\",\"pool\":{\"size\":4}}");
+		write("shared/limits.json", "{\"requests\":100,\"database\":{\"$include\":\"database.json\"}}");
+		SimpleConfigLib.clearIncludeCache();
+	}
+	
+	@After
+	public void tearDown() throws IOException {
+		SimpleConfigLib.clearIncludeCache();
+		try (var files = Files.walk(directory)) {
+			files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+		}
+	}
+	
+	@Test
+	public void testInclude() throws IOException {
+		
+		File tenant = write("tenant.json", "{\"name\":\"t1\",\"database\":{\"$include\":\"shared/database.json\"},"
+				+ "\"limits\":{\"$include\":[\"shared/limits.json\"],\"requests\":5}}");
+		
+		Configuration configuration = SimpleConfigLib.load(tenant);
+		
+		assertEquals("t1", configuration.getString("name"));
+		assertEquals("db", configuration.getConfiguration("database").getString("host"));
+		assertEquals(4, configuration.getConfiguration("database").getConfiguration("pool").getInt("size"));
+		
+		// Keys of the including object replace keys of the fragment, nested includes are resolved relative to the fragment
+		Configuration limits = configuration.getConfiguration("limits");
+		assertEquals(5, limits.getInt("requests"));
+		assertEquals("db", limits.getConfiguration("database").getString("host"));
+		assertFalse(limits.hasKey(Includes.DIRECTIVE));
+		
+		assertEquals(2, Includes.cacheSize());
+		assertEquals(configuration.toString(), SimpleConfigLib.loadLocked(tenant).toString());
+		
+	}
+	
+	@Test
+	public void testFragmentsAreShared() throws IOException {
+		
+		Configuration first = SimpleConfigLib.load(write("first.json", "{\"database\":{\"$include\":\"shared/database.json\"}}"));
+		Configuration second = SimpleConfigLib.load(write("second.json", "{\"database\":{\"$include\":\"shared/database.json\"}}"));
+		
+		assertSame(first.peek("database"), second.peek("database"));
+		
+		// Modifying a shared fragment copies it for the modifying Configuration only
+		first.getConfiguration("database").getConfiguration("pool").setInt("size", 8);
+		
+		assertEquals(8, first.getConfiguration("database").getConfiguration("pool").getInt("size"));
+		assertEquals(4, second.getConfiguration("database").getConfiguration("pool").getInt("size"));
+		assertEquals("db", first.getConfiguration("database").getString("host"));
+		assertNotSame(first.peek("database"), second.peek("database"));
+		
+		Configuration third = SimpleConfigLib.load(write("third.json", "{\"database\":{\"$include\":\"shared/database.json\"}}"));
+		assertEquals(4, third.getConfiguration("database").getConfiguration("pool").getInt("size"));
+		
+	}
+	
+	@Test
+	public void testSeveralViewsOfASharedFragment() throws IOException {
+		
+		Configuration main = SimpleConfigLib.load(write("main.json", "{\"database\":{\"$include\":\"shared/database.json\"}}"));
+		Configuration v1 = main.getConfiguration("database");
+		Configuration v2 = main.getConfiguration("database");
+		Configuration pool1 = v1.getConfiguration("pool");
+		Configuration pool2 = v2.getConfiguration("pool");
+		
+		v1.setInt("y", 2);
+		v2.setInt("z", 3);
+		pool1.setInt("size", 8);
+		pool2.setInt("max", 16);
+		
+		Configuration database = main.getConfiguration("database");
+		assertEquals(2, database.getInt("y"));
+		assertEquals(3, database.getInt("z"));
+		assertEquals(8, database.getConfiguration("pool").getInt("size"));
+		assertEquals(16, database.getConfiguration("pool").getInt("max"));
+		
+	}
+	
+	@Test
+	public void testSharedArraysCannotBeModified() throws IOException {
+		
+		write("shared/hosts.json", "{\"hosts\":[\"a\"],\"replicas\":[{\"host\":\"r1\"}]}");
+		Configuration t1 = SimpleConfigLib.load(write("t1.json", "{\"$include\":\"shared/hosts.json\",\"name\":\"t1\"}"));
+		Configuration t2 = SimpleConfigLib.load(write("t2.json", "{\"$include\":\"shared/hosts.json\",\"name\":\"t2\"}"));
+		
+		assertThrows(UnsupportedOperationException.class, () -> t1.getJSONArray("hosts").put("evil"));
+		assertThrows(UnsupportedOperationException.class, () -> t1.getJSONArray("hosts").remove(0));
+		assertThrows(UnsupportedOperationException.class, () -> t1.getJSONArray("replicas").getJSONObject(0).put("host", "evil"));
+		assertThrows(UnsupportedOperationException.class, () -> {
+			Iterator<Object> iterator = t1.getJSONArray("hosts").iterator();
+			iterator.next();
+			iterator.remove();
+		});
+		assertEquals("[\"a\"]", t2.getJSONArray("hosts").toString());
+		assertEquals("r1", t2.getJSONArray("replicas").getJSONObject(0).getString("host"));
+		
+		// Replacing the array is a modification of the tenant only
+		t1.setJSONArray("hosts", new JSONArray("[\"b\"]"));
+		assertEquals("[\"b\"]", t1.getJSONArray("hosts").toString());
+		assertEquals("[\"a\"]", t2.getJSONArray("hosts").toString());
+		
+	}
+	
+	@Test
+	public void testChangedFragmentsAreParsedAgain() throws IOException {
+		
+		File tenant = write("tenant.json", "{\"$include\":\"shared/limits.json\"}");
+		assertEquals("db", SimpleConfigLib.load(tenant).getConfiguration("database").getString("host"));
+		
+		File database = write("shared/database.json", "{\"host\":\"replica\"}");
+		database.setLastModified(System.currentTimeMillis() + 10_000);
+		
+		// The changed fragment is included by a cached fragment, which must be parsed again as well
+		Configuration configuration = SimpleConfigLib.load(tenant);
+		assertEquals("replica", configuration.getConfiguration("database").getString("host"));
+		
+		// A Configuration consisting of a single include is modifiable
+		configuration.setInt("requests", 1);
+		assertEquals(1, configuration.getInt("requests"));
+		
+	}
+	
+	@Test(expected = JSONException.class)
+	public void testCircularInclude() throws IOException {
+		write("shared/a.json", "{\"$include\":\"b.json\"}");
+		write("shared/b.json", "{\"x\":{\"$include\":\"a.json\"}}");
+		SimpleConfigLib.load(write("tenant.json", "{\"$include\":\"shared/a.json\"}"));
+	}
+	
+	private File write(String name, String content) throws IOException {
+		Path file = directory.resolve(name);
+		Files.writeString(file, content);
+		return file.toFile();
+	}
+	
+}
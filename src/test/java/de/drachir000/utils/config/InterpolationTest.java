@@ -0,0 +1,133 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InterpolationTest {
+	
+	private Configuration configuration;
+	
+	@Before
+	public void setUp() {
+		configuration = SimpleConfigLib.buildConfiguration("{\"db\":{\"host\":\"localhost\",\"port\":5432,\"address\":\"${db.host}:${db.port}\"},"
+				+ "\"url\":\"jdbc://${db.address}/app\",\"plain\":\"no references\"}");
+		configuration.enableInterpolation();
+	}
+	
+	@Test
+	public void testResolve() {
+		
+		assertEquals("jdbc://localhost:5432/app", configuration.getString("url"));
+		assertEquals("localhost:5432", configuration.getConfiguration("db").getString("address"));
+		assertEquals("no references", configuration.getString("plain"));
+		
+		// Values are stored as written
+		assertEquals("jdbc://${db.address}/app", configuration.get("url"));
+		
+	}
+	
+	@Test
+	public void testInvalidation() {
+		
+		assertEquals("jdbc://localhost:5432/app", configuration.getString("url"));
+		
+		configuration.getConfiguration("db").setInt("port", 6543);
+		assertEquals("jdbc://localhost:6543/app", configuration.getString("url"));
+		
+		configuration.setString("url", "${db.host}");
+		assertEquals("localhost", configuration.getString("url"));
+		
+		// Replacing a parent invalidates the values below it
+		configuration.setConfiguration("db", SimpleConfigLib.buildConfiguration("{\"host\":\"remote\"}"));
+		assertEquals("remote", configuration.getString("url"));
+		
+	}
+	
+	@Test
+	public void testDetachedNestedConfiguration() {
+		
+		Configuration root = SimpleConfigLib.buildConfiguration("{\"db\":{\"host\":\"h1\",\"url\":\"x-${db.host}\"}}");
+		root.enableInterpolation();
+		Configuration db = root.getConfiguration("db");
+		
+		root.setConfiguration("db", SimpleConfigLib.buildConfiguration("{\"host\":\"h2\",\"url\":\"x-${db.host}\"}"));
+		assertEquals("x-h2", root.getConfiguration("db").getString("url"));
+		
+		db.setString("url", "detached-${db.host}");
+		assertEquals("detached-h2", db.getString("url"));
+		assertEquals("x-h2", root.getConfiguration("db").getString("url"));
+		
+	}
+	
+	@Test
+	public void testInvalidationOfNestedPaths() {
+		
+		Configuration root = SimpleConfigLib.buildConfiguration("{\"a\":{\"b\":{\"c\":\"1\"}},\"ref\":\"${a.b.c}\",\"other\":\"${ref}\"}");
+		root.enableInterpolation();
+		assertEquals("1", root.getString("other"));
+		
+		root.getConfiguration("a").setConfiguration("b", SimpleConfigLib.buildConfiguration("{\"c\":\"2\"}"));
+		assertEquals("2", root.getString("other"));
+		
+		root.getConfiguration("a").getConfiguration("b").setString("c", "3");
+		assertEquals("3", root.getString("ref"));
+		assertEquals("3", root.getString("other"));
+		
+	}
+	
+	@Test
+	public void testDefaultsAndEscapes() {
+		
+		configuration.setString("fallback", "${missing:-none}/${db.host:-unused}");
+		configuration.setString("escaped", "$${db.host} is ${db.host}");
+		
+		assertEquals("none/localhost", configuration.getString("fallback"));
+		assertEquals("${db.host} is localhost", configuration.getString("escaped"));
+		assertEquals("x", configuration.getOrDefault("missing", "x"));
+		
+	}
+	
+	@Test
+	public void testEnvironment() {
+		String path = System.getenv("PATH");
+		configuration.setString("path", "${env:PATH:-unset}");
+		assertEquals(path != null ? path : "unset", configuration.getString("path"));
+	}
+	
+	@Test
+	public void testUnresolved() {
+		
+		configuration.setString("broken", "${missing}");
+		
+		assertThrows(JSONException.class, () -> configuration.getString("broken"));
+		assertEquals("fallback", configuration.getOrDefault("broken", "fallback"));
+		
+		configuration.setString("missing", "found");
+		assertEquals("found", configuration.getString("broken"));
+		
+	}
+	
+	@Test
+	public void testCycle() {
+		
+		configuration.setString("a", "${b}");
+		configuration.setString("b", "x${a}");
+		
+		JSONException e = assertThrows(JSONException.class, () -> configuration.getString("a"));
+		assertTrue(e.getMessage().contains("Circular reference"));
+		
+		configuration.setString("b", "x");
+		assertEquals("x", configuration.getString("a"));
+		
+	}
+	
+	@Test
+	public void testDisable() {
+		configuration.disableInterpolation();
+		assertEquals("jdbc://${db.address}/app", configuration.getString("url"));
+	}
+	
+}
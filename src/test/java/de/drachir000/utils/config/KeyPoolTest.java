@@ -0,0 +1,69 @@
+package de.drachir000.utils.config;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class KeyPoolTest {
+	
+	@After
+	public void tearDown() {
+		SimpleConfigLib.setKeyInterning(false);
+	}
+	
+	@Test
+	public void testParsedKeysAreShared() {
+		
+		SimpleConfigLib.setKeyInterning(true);
+		
+		String source = "{\"name\" : \"name\", \"nested\": {\"name\": 1, \"list\": [{\"name\": true}]}}";
+		Configuration first = SimpleConfigLib.buildConfiguration(source);
+		Configuration second = SimpleConfigLib.buildConfiguration(source);
+		
+		assertSame(key(first, "name"), key(second, "name"));
+		assertSame(key(first, "name"), key(first.getConfiguration("nested"), "name"));
+		assertSame(key(first, "name"), first.getConfiguration("nested").getJSONArray("list").getJSONObject(0).keySet().iterator().next());
+		
+		// Values are not pooled
+		assertNotSame(key(first, "name"), first.getString("name"));
+		assertEquals("name", first.getString("name"));
+		
+	}
+	
+	@Test
+	public void testSetKeysAreShared() {
+		
+		SimpleConfigLib.setKeyInterning(true);
+		
+		Configuration first = SimpleConfigLib.emptyConfiguration();
+		Configuration second = SimpleConfigLib.emptyConfiguration();
+		
+		first.setInt(new String("key"), 1);
+		second.setInt(new String("key"), 2);
+		
+		assertSame(key(first, "key"), key(second, "key"));
+		
+	}
+	
+	@Test
+	public void testDisabled() {
+		
+		String source = "{\"key\":1}";
+		Configuration first = SimpleConfigLib.buildConfiguration(source);
+		Configuration second = SimpleConfigLib.buildConfiguration(source);
+		
+		assertNotSame(key(first, "key"), key(second, "key"));
+		assertEquals(0, KeyPool.size());
+		
+	}
+	
+	private static String key(Configuration configuration, String key) {
+		for (String existing : configuration.getKeys()) {
+			if (existing.equals(key))
+				return existing;
+		}
+		throw new AssertionError("Missing key " + key);
+	}
+	
+}
@@ -0,0 +1,146 @@
+package de.drachir000.utils.config;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LayeredConfigurationTest {
+	
+	private Configuration defaults;
+	private Configuration site;
+	private Configuration instance;
+	private LayeredConfiguration layered;
+	
+	@Before
+	public void setUp() {
+		defaults = SimpleConfigLib.buildConfiguration("{\"host\":\"localhost\",\"port\":80,\"db\":{\"user\":\"admin\",\"pool\":4}}");
+		site = SimpleConfigLib.buildConfiguration("{\"port\":8080,\"db\":{\"pool\":8}}");
+		instance = SimpleConfigLib.buildConfiguration("{\"host\":\"node-1\"}");
+		layered = SimpleConfigLib.layeredConfiguration(defaults, site, instance);
+	}
+	
+	@Test
+	public void testPrecedence() {
+		
+		assertEquals("node-1", layered.getString("host"));
+		assertEquals(8080, layered.getInt("port"));
+		assertEquals(Set.of("host", "port", "db"), layered.getKeys());
+		
+		// Nested Configurations are merged
+		Configuration db = layered.getConfiguration("db");
+		assertEquals("admin", db.getString("user"));
+		assertEquals(8, db.getInt("pool"));
+		
+		assertSame(instance, layered.getSourceLayer("host"));
+		assertSame(site, layered.getSourceLayer("port"));
+		assertNull(layered.getSourceLayer("missing"));
+		
+	}
+	
+	@Test
+	public void testLayerModificationsAreResolved() {
+		
+		instance.setInt("port", 9090);
+		assertEquals(9090, layered.getInt("port"));
+		
+		instance.set("port", null);
+		assertEquals(8080, layered.getInt("port"));
+		
+		site.set("port", null);
+		assertEquals(80, layered.getInt("port"));
+		
+		defaults.getConfiguration("db").setString("user", "root");
+		assertEquals("root", layered.getConfiguration("db").getString("user"));
+		assertEquals(8, layered.getConfiguration("db").getInt("pool"));
+		
+		// A value which is not a Configuration hides the Configurations below it
+		instance.setString("db", "sqlite");
+		assertEquals("sqlite", layered.getString("db"));
+		
+	}
+	
+	@Test
+	public void testChangesHiddenByHigherLayersAreNotReported() {
+		
+		List<ConfigurationChange> changes = new ArrayList<>();
+		layered.addChangeListener(changes::add);
+		
+		defaults.setInt("port", 81);
+		assertTrue(changes.isEmpty());
+		
+		site.setInt("port", 8081);
+		assertEquals(1, changes.size());
+		assertEquals(8080, changes.get(0).getOldValue("port"));
+		assertEquals(8081, changes.get(0).getNewValue("port"));
+		
+		site.getConfiguration("db").setInt("pool", 16);
+		assertEquals(2, changes.size());
+		assertEquals(Set.of("db.pool"), changes.get(1).getKeys());
+		assertEquals(16, changes.get(1).getNewValue("db.pool"));
+		
+	}
+	
+	@Test
+	public void testNestedChangesOfASingleLayerAreReported() {
+		
+		Configuration base = SimpleConfigLib.buildConfiguration("{\"db\":{\"port\":1}}");
+		LayeredConfiguration single = SimpleConfigLib.layeredConfiguration(base);
+		List<ConfigurationChange> changes = new ArrayList<>();
+		single.addChangeListener(changes::add);
+		
+		base.getConfiguration("db").setInt("port", 2);
+		
+		assertEquals(1, changes.size());
+		assertEquals(1, changes.get(0).getOldValue("db.port"));
+		assertEquals(2, changes.get(0).getNewValue("db.port"));
+		assertEquals(2, single.getConfiguration("db").getInt("port"));
+		
+	}
+	
+	@Test
+	public void testWritesGoToTopLayer() {
+		
+		List<ConfigurationChange> changes = new ArrayList<>();
+		layered.addChangeListener(changes::add);
+		
+		assertEquals(8080, layered.setInt("port", 443));
+		assertEquals(443, instance.getInt("port"));
+		assertEquals(8080, site.getInt("port"));
+		assertEquals(443, layered.getInt("port"));
+		assertEquals(1, changes.size());
+		
+		layered.update(tx -> tx.setString("host", "node-2").remove("port"));
+		assertEquals("node-2", instance.getString("host"));
+		assertFalse(instance.hasKey("port"));
+		assertEquals(8080, layered.getInt("port"));
+		assertEquals(2, changes.size());
+		assertEquals(Set.of("host", "port"), changes.get(1).getKeys());
+		
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testNestedConfigurationsAreReadOnly() {
+		layered.getConfiguration("db").setInt("pool", 2);
+	}
+	
+	@Test
+	public void testDetach() {
+		
+		layered.detach();
+		site.setInt("port", 1);
+		
+		assertEquals(8080, layered.getInt("port"));
+		
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoLayers() {
+		SimpleConfigLib.layeredConfiguration();
+	}
+	
+}
@@ -0,0 +1,121 @@
+package de.drachir000.utils.config;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class LockedFilesTest {
+	
+	@Test
+	public void testLoadAndSaveLocked() throws IOException {
+		
+		File file = new File("locked.json");
+		
+		try {
+			
+			assertTrue(SimpleConfigLib.loadLocked(file).getKeys().isEmpty());
+			
+			Configuration configuration = SimpleConfigLib.buildConfiguration("{\"key\":\"value\",\"number\":42}");
+			SimpleConfigLib.saveLocked(configuration, file);
+			
+			Configuration loaded = SimpleConfigLib.loadLocked(file);
+			assertEquals("value", loaded.getString("key"));
+			assertEquals(42, loaded.getInt("number"));
+			
+			// Saving a smaller configuration must not leave parts of the previous content behind
+			SimpleConfigLib.saveLocked(SimpleConfigLib.buildConfiguration("{\"a\":1}"), file);
+			assertEquals("{\"a\":1}", SimpleConfigLib.load(file).toString());
+			
+		} finally {
+			file.delete();
+		}
+		
+	}
+	
+	@Test
+	public void testCharsetAndLocalLocks() throws IOException {
+		
+		File file = new File("charset.json");
+		
+		try {
+			
+			Configuration configuration = SimpleConfigLib.buildConfiguration("{\"name\":\"Grüße ✓\"}");
+			
+			SimpleConfigLib.saveLocked(configuration, file);
+			assertEquals("Grüße ✓", SimpleConfigLib.load(file).getString("name"));
+			
+			SimpleConfigLib.save(configuration, file);
+			assertEquals("Grüße ✓", SimpleConfigLib.loadLocked(file).getString("name"));
+			
+			// The locks of this JVM are removed once no thread uses them
+			assertEquals(0, LockedFiles.localLockCount());
+			
+		} finally {
+			file.delete();
+		}
+		
+	}
+	
+	@Test
+	public void testConcurrentModify() throws Exception {
+		
+		File file = new File("modify.json");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		
+		try {
+			
+			SimpleConfigLib.getFileLockStatistics().reset();
+			
+			List<Future<ConfigurationChange>> futures = new ArrayList<>();
+			for (int i = 0; i < 40; i++) {
+				futures.add(executor.submit(() -> SimpleConfigLib.modify(file, tx -> {
+					Object current = tx.get("counter");
+					tx.setInt("counter", current == null ? 1 : ((Number) current).intValue() + 1);
+				})));
+			}
+			
+			for (Future<ConfigurationChange> future : futures) {
+				assertTrue(future.get().contains("counter"));
+			}
+			
+			assertEquals(40, SimpleConfigLib.loadLocked(file).getInt("counter"));
+			
+			FileLockStatistics statistics = SimpleConfigLib.getFileLockStatistics();
+			assertTrue(statistics.getAcquisitions() >= 81);
+			assertTrue(statistics.getContendedAcquisitions() <= statistics.getAcquisitions());
+			
+		} finally {
+			executor.shutdownNow();
+			file.delete();
+		}
+		
+	}
+	
+	@Test
+	public void testModifyWithoutChange() throws IOException {
+		
+		File file = new File("unchanged.json");
+		
+		try {
+			
+			ConfigurationChange change = SimpleConfigLib.modify(file, tx -> {
+			});
+			
+			assertTrue(change.isEmpty());
+			assertFalse(file.exists());
+			
+		} finally {
+			file.delete();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,129 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class OffHeapConfigurationTest {
+	
+	private static final String SOURCE = "{\"string\":\"välue ✓\",\"int\":42,\"long\":12345678901,\"double\":1.5,\"big\":123456789012345678901234567890.5," +
+			"\"true\":true,\"false\":false,\"null\":null,\"numeric\":\"17\",\"list\":[1,\"two\",{\"three\":3},[4]]," +
+			"\"nested\":{\"inner\":{\"deep\":\"value\"},\"count\":7}}";
+	
+	@Test
+	public void testGetters() {
+		
+		Configuration source = SimpleConfigLib.buildConfiguration(SOURCE);
+		OffHeapConfiguration configuration = SimpleConfigLib.offHeapConfiguration(source);
+		
+		assertTrue(configuration.getOffHeapSize() > 0);
+		assertEquals(source.getKeys(), configuration.getKeys());
+		
+		assertEquals("välue ✓", configuration.getString("string"));
+		assertEquals(42, configuration.getInt("int"));
+		assertEquals(42L, configuration.getLong("int"));
+		assertEquals(12345678901L, configuration.getLong("long"));
+		assertEquals(1.5, configuration.getDouble("double"), 0.0);
+		assertEquals(new BigDecimal("123456789012345678901234567890.5"), configuration.get("big"));
+		assertTrue(configuration.getBoolean("true"));
+		assertFalse(configuration.getBoolean("false"));
+		assertEquals(JSONObject.NULL, configuration.get("null"));
+		assertEquals(17, configuration.getInt("numeric"));
+		
+		JSONArray list = configuration.getJSONArray("list");
+		assertEquals(4, list.length());
+		assertEquals(3, list.getJSONObject(2).getInt("three"));
+		
+		Configuration nested = configuration.getConfiguration("nested");
+		assertTrue(nested instanceof OffHeapConfiguration);
+		assertEquals(7, nested.getInt("count"));
+		assertEquals("value", nested.getConfiguration("inner").getString("deep"));
+		assertEquals(Set.of("inner", "count"), nested.getKeys());
+		
+		assertTrue(configuration.hasKey("int"));
+		assertFalse(configuration.hasKey("missing"));
+		assertThrows(JSONException.class, () -> configuration.getInt("missing"));
+		assertThrows(JSONException.class, () -> configuration.getInt("string"));
+		assertEquals(5, configuration.getOrDefault("missing", 5));
+		
+		assertTrue(source.toJsonObject().similar(new JSONObject(configuration.toString())));
+		assertTrue(source.toJsonObject().similar(configuration.toJsonObject()));
+		
+	}
+	
+	@Test
+	public void testPrimitiveArrays() {
+		
+		Configuration source = SimpleConfigLib.emptyConfiguration();
+		source.setIntArray("ints", new int[]{1, -2, 3});
+		source.setLongArray("longs", new long[]{Long.MIN_VALUE});
+		source.setDoubleArray("doubles", new double[]{0.25, 4});
+		
+		OffHeapConfiguration configuration = SimpleConfigLib.offHeapConfiguration(source);
+		
+		assertArrayEquals(new int[]{1, -2, 3}, configuration.getIntArray("ints"));
+		assertArrayEquals(new long[]{Long.MIN_VALUE}, configuration.getLongArray("longs"));
+		assertArrayEquals(new double[]{0.25, 4}, configuration.getDoubleArray("doubles"), 0.0);
+		assertEquals(source.toString().length(), configuration.toString().length());
+		
+	}
+	
+	@Test
+	public void testManyKeys() {
+		
+		Configuration source = SimpleConfigLib.emptyConfiguration();
+		for (int i = 0; i < 10_000; i++) {
+			source.setInt("key-" + i, i);
+		}
+		
+		OffHeapConfiguration configuration = SimpleConfigLib.offHeapConfiguration(source);
+		
+		for (int i = 0; i < 10_000; i++) {
+			assertEquals(i, configuration.getInt("key-" + i));
+		}
+		assertEquals(10_000, configuration.getKeys().size());
+		
+	}
+	
+	@Test
+	public void testFootprint() {
+		
+		OffHeapConfiguration configuration = SimpleConfigLib.offHeapConfiguration(SimpleConfigLib.buildConfiguration(SOURCE));
+		ConfigurationFootprint footprint = configuration.footprint();
+		
+		// The layout accounts for every byte of the buffer
+		assertEquals(configuration.getOffHeapSize(), configuration.estimateRetainedSize());
+		assertEquals(configuration.getOffHeapSize(), footprint.getTotalBytes());
+		assertEquals(configuration.getOffHeapSize(), (long) footprint.getSubtreeBytes().get(""));
+		
+		OffHeapConfiguration nested = (OffHeapConfiguration) configuration.getConfiguration("nested");
+		assertEquals(nested.getOffHeapSize(), (long) footprint.getSubtreeBytes().get("nested"));
+		assertEquals(List.of("", "nested", "nested.inner"), List.copyOf(footprint.getSubtreeBytes().keySet()));
+		
+		ConfigurationFootprint small = SimpleConfigLib.offHeapConfiguration(SimpleConfigLib.buildConfiguration("{\"a\":\"xy\",\"n\":{\"b\":1}}")).footprint();
+		assertEquals(2 * 3, small.getBytes(ConfigurationFootprint.Category.KEY));
+		assertEquals(1 + 4 + 2, small.getBytes(ConfigurationFootprint.Category.STRING));
+		assertEquals(1 + 4, small.getBytes(ConfigurationFootprint.Category.NUMBER));
+		
+	}
+	
+	@Test
+	public void testReadOnly() {
+		
+		OffHeapConfiguration configuration = SimpleConfigLib.offHeapConfiguration(SimpleConfigLib.buildConfiguration(SOURCE));
+		
+		assertThrows(UnsupportedOperationException.class, () -> configuration.setInt("int", 1));
+		assertThrows(UnsupportedOperationException.class, () -> configuration.getConfiguration("nested").setInt("count", 1));
+		assertThrows(UnsupportedOperationException.class, () -> configuration.update(tx -> tx.setInt("int", 1)));
+		assertEquals(42, configuration.getInt("int"));
+		
+	}
+	
+}
@@ -0,0 +1,162 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class PersistentConfigurationTest {
+	
+	private static PersistentConfiguration configuration() {
+		return SimpleConfigLib.persistentConfiguration(SimpleConfigLib.buildConfiguration("{"
+				+ "\"name\":\"app\","
+				+ "\"db\":{\"host\":\"localhost\",\"pool\":{\"size\":8}},"
+				+ "\"tags\":[\"a\",\"b\"]}"));
+	}
+	
+	@Test
+	public void testRead() {
+		
+		PersistentConfiguration configuration = configuration();
+		
+		assertEquals("app", configuration.getString("name"));
+		assertEquals(8, configuration.getConfiguration("db").getConfiguration("pool").getInt("size"));
+		assertEquals(new JSONArray("[\"a\",\"b\"]").toString(), configuration.getJSONArray("tags").toString());
+		assertEquals(Set.of("name", "db", "tags"), configuration.getKeys());
+		assertEquals(3, configuration.size());
+		assertTrue(configuration.hasKey("db"));
+		assertFalse(configuration.hasKey("missing"));
+		assertThrows(JSONException.class, () -> configuration.getString("missing"));
+		assertTrue(SimpleConfigLib.buildConfiguration(configuration.toString()).toJsonObject().similar(configuration.toJsonObject()));
+		
+	}
+	
+	@Test
+	public void testVersions() {
+		
+		PersistentConfiguration base = configuration();
+		PersistentConfiguration modified = base.with("name", "other").with("port", 8080);
+		
+		assertEquals("app", base.getString("name"));
+		assertFalse(base.hasKey("port"));
+		assertEquals("other", modified.getString("name"));
+		assertEquals(8080, modified.getInt("port"));
+		assertEquals(4, modified.size());
+		
+		PersistentConfiguration removed = modified.without("db");
+		assertFalse(removed.hasKey("db"));
+		assertTrue(modified.hasKey("db"));
+		assertEquals(3, removed.size());
+		
+		assertSame(base, base.with("name", "app"));
+		assertSame(base, base.without("missing"));
+		
+	}
+	
+	@Test
+	public void testWithPath() {
+		
+		PersistentConfiguration base = configuration();
+		PersistentConfiguration modified = base.withPath("db.pool.size", 16).withPath("cache.ttl", 60);
+		
+		assertEquals(8, base.getConfiguration("db").getConfiguration("pool").getInt("size"));
+		assertEquals(16, modified.getConfiguration("db").getConfiguration("pool").getInt("size"));
+		assertEquals("localhost", modified.getConfiguration("db").getString("host"));
+		assertEquals(60, modified.getConfiguration("cache").getInt("ttl"));
+		assertFalse(base.hasKey("cache"));
+		
+		assertFalse(modified.withPath("db.pool.size", null).getConfiguration("db").getConfiguration("pool").hasKey("size"));
+		assertSame(base, base.withPath("missing.key", null));
+		
+	}
+	
+	@Test
+	public void testNestedConfigurations() {
+		
+		PersistentConfiguration base = configuration();
+		PersistentConfiguration db = base.getConfiguration("db").with("host", "db.local");
+		PersistentConfiguration modified = base.with("db", db).with("extra", SimpleConfigLib.buildConfiguration("{\"a\":1}"));
+		
+		assertEquals("db.local", modified.getConfiguration("db").getString("host"));
+		assertEquals(1, modified.getConfiguration("extra").getInt("a"));
+		assertEquals("localhost", base.getConfiguration("db").getString("host"));
+		
+	}
+	
+	@Test
+	public void testValuesAreCopied() {
+		
+		JSONArray array = new JSONArray("[1,2]");
+		int[] ints = {1, 2};
+		PersistentConfiguration configuration = SimpleConfigLib.persistentConfiguration(SimpleConfigLib.emptyConfiguration())
+				.with("array", array)
+				.with("ints", ints);
+		
+		array.put(3);
+		ints[0] = 5;
+		configuration.getJSONArray("array").put(4);
+		configuration.getIntArray("ints")[1] = 6;
+		
+		assertEquals(2, configuration.getJSONArray("array").length());
+		assertArrayEquals(new int[]{1, 2}, configuration.getIntArray("ints"));
+		
+	}
+	
+	@Test
+	public void testImmutable() {
+		
+		PersistentConfiguration configuration = configuration();
+		
+		assertThrows(UnsupportedOperationException.class, () -> configuration.set("name", "other"));
+		assertThrows(UnsupportedOperationException.class, () -> configuration.getConfiguration("db").set("host", "other"));
+		assertThrows(UnsupportedOperationException.class, () -> configuration.merge(SimpleConfigLib.emptyConfiguration(), MergePolicy.DEFAULT));
+		assertEquals("app", configuration.getString("name"));
+		
+	}
+	
+	@Test
+	public void testTrieAgainstMap() {
+		
+		// Many keys and removals exercise splits, collisions and the collapsing of nodes
+		Random random = new Random(42);
+		Map<String, Object> expected = new HashMap<>();
+		HashTrie trie = HashTrie.EMPTY;
+		
+		for (int i = 0; i < 20000; i++) {
+			String key = "k" + random.nextInt(5000);
+			if (random.nextInt(3) == 0) {
+				expected.remove(key);
+				trie = trie.without(key);
+			} else {
+				expected.put(key, i);
+				trie = trie.with(key, i);
+			}
+		}
+		
+		// "Aa" and "BB" have the same hash code
+		expected.put("Aa", 1);
+		expected.put("BB", 2);
+		trie = trie.with("Aa", 1).with("BB", 2);
+		assertEquals(1, trie.get("Aa"));
+		assertEquals(2, trie.get("BB"));
+		HashTrie withoutCollision = trie.without("Aa");
+		assertNull(withoutCollision.get("Aa"));
+		assertEquals(2, withoutCollision.get("BB"));
+		
+		assertEquals(expected.size(), trie.size());
+		Map<String, Object> actual = new HashMap<>();
+		trie.forEach(actual::put);
+		assertEquals(expected, actual);
+		for (Map.Entry<String, Object> entry : expected.entrySet()) {
+			assertEquals(entry.getValue(), trie.get(entry.getKey()));
+		}
+		
+	}
+	
+}
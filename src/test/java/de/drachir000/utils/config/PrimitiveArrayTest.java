@@ -0,0 +1,108 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveArrayTest {
+	
+	@Test
+	public void testSetAndGet() {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		
+		int[] ints = {1, 2, 3};
+		configuration.setIntArray("ints", ints);
+		configuration.setLongArray("longs", new long[]{Long.MAX_VALUE, -1L});
+		configuration.setDoubleArray("doubles", new double[]{0.5, -2.25});
+		
+		// The stored array is returned without copying
+		assertSame(ints, configuration.getIntArray("ints"));
+		assertArrayEquals(new long[]{Long.MAX_VALUE, -1L}, configuration.getLongArray("longs"));
+		assertArrayEquals(new double[]{0.5, -2.25}, configuration.getDoubleArray("doubles"), 0.0);
+		
+		// Widening conversions
+		assertArrayEquals(new long[]{1L, 2L, 3L}, configuration.getLongArray("ints"));
+		assertArrayEquals(new double[]{1.0, 2.0, 3.0}, configuration.getDoubleArray("ints"), 0.0);
+		
+		JSONArray array = configuration.getJSONArray("ints");
+		assertEquals(3, array.length());
+		assertEquals(2, array.getInt(1));
+		
+		assertThrows(JSONException.class, () -> configuration.setDoubleArray("nan", new double[]{Double.NaN}));
+		assertFalse(configuration.hasKey("nan"));
+		
+	}
+	
+	@Test
+	public void testSerialization() throws IOException {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		configuration.setIntArray("ints", new int[]{1, 2, 3});
+		configuration.setDoubleArray("doubles", new double[]{0.5});
+		
+		assertEquals("[1,2,3]", configuration.toString().replaceAll(".*\"ints\":(\\[[^]]*]).*", "$1"));
+		// Primitive arrays are not encoded
+		assertEquals(configuration.toString(), configuration.toString(true));
+		
+		Configuration loaded = SimpleConfigLib.buildConfiguration(configuration.toString());
+		assertTrue(loaded.get("ints") instanceof JSONArray);
+		assertArrayEquals(new int[]{1, 2, 3}, loaded.getIntArray("ints"));
+		assertArrayEquals(new double[]{0.5}, loaded.getDoubleArray("doubles"), 0.0);
+		
+	}
+	
+	@Test
+	public void testWrongFormat() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"text\":\"value\",\"mixed\":[1,\"a\"]}");
+		
+		assertThrows(JSONException.class, () -> configuration.getIntArray("text"));
+		assertThrows(JSONException.class, () -> configuration.getLongArray("mixed"));
+		assertThrows(JSONException.class, () -> configuration.getDoubleArray("missing"));
+		
+		int[] fallback = {42};
+		assertSame(fallback, configuration.getOrDefault("text", fallback));
+		assertNull(configuration.getOrDefault("missing", (long[]) null));
+		
+	}
+	
+	@Test
+	public void testValuesOutOfRange() {
+		
+		Configuration configuration = SimpleConfigLib.buildConfiguration("{\"big\":[1,12345678901],\"huge\":[1e30],\"fraction\":[2.5]}");
+		configuration.setLongArray("longs", new long[]{1, Long.MAX_VALUE});
+		configuration.setLong("long", 12345678901L);
+		
+		assertThrows(JSONException.class, () -> configuration.getIntArray("big"));
+		assertThrows(JSONException.class, () -> configuration.getIntArray("longs"));
+		assertThrows(JSONException.class, () -> configuration.getLongArray("huge"));
+		
+		assertArrayEquals(new long[]{1, 12345678901L}, configuration.getLongArray("big"));
+		assertArrayEquals(new int[]{2}, configuration.getIntArray("fraction"));
+		assertEquals(12345678901L, configuration.getLong("long"));
+		
+		// The scalar getters truncate, like JSONObject does
+		assertEquals((int) 12345678901L, configuration.getInt("long"));
+		
+	}
+	
+	@Test
+	public void testSnapshotIsCopied() {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		int[] ints = {1, 2, 3};
+		configuration.setIntArray("ints", ints);
+		
+		Configuration snapshot = SimpleConfigLib.immutableConfiguration(configuration);
+		ints[0] = 99;
+		
+		assertEquals(1, snapshot.getIntArray("ints")[0]);
+		
+	}
+	
+}
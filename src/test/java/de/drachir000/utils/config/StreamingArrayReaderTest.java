@@ -0,0 +1,123 @@
+package de.drachir000.utils.config;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+public class StreamingArrayReaderTest {
+	
+	private static final String DOCUMENT = "{\"before\":1,\"data\":{\"name\":\"points\",\"points\":[1, \"two\", {\"three\":3}, [4], null],\"after\":{\"x\":true}},\"last\":\"end\"}";
+	
+	@Test
+	public void testIterate() throws IOException {
+		
+		try (StreamingArrayReader reader = SimpleConfigLib.streamArray(new StringReader(DOCUMENT), "data.points")) {
+			
+			assertTrue(reader.isFound());
+			
+			List<Object> elements = new ArrayList<>();
+			reader.forEachRemaining(elements::add);
+			
+			assertEquals(5, elements.size());
+			assertEquals(1, elements.get(0));
+			assertEquals("two", elements.get(1));
+			assertEquals(3, ((JSONObject) elements.get(2)).getInt("three"));
+			assertEquals(JSONObject.NULL, elements.get(4));
+			assertThrows(NoSuchElementException.class, reader::next);
+			
+			Configuration configuration = reader.getConfiguration();
+			assertEquals(1, configuration.getInt("before"));
+			assertEquals("points", configuration.getConfiguration("data").getString("name"));
+			assertFalse(configuration.getConfiguration("data").hasKey("points"));
+			assertTrue(configuration.getConfiguration("data").getConfiguration("after").getBoolean("x"));
+			assertEquals("end", configuration.getString("last"));
+			
+		}
+		
+	}
+	
+	@Test
+	public void testSkipRemaining() throws IOException {
+		
+		try (StreamingArrayReader reader = SimpleConfigLib.streamArray(new StringReader(DOCUMENT), "data.points")) {
+			
+			assertEquals(1, reader.next());
+			
+			Configuration configuration = reader.getConfiguration();
+			assertEquals("end", configuration.getString("last"));
+			assertFalse(reader.hasNext());
+			
+		}
+		
+	}
+	
+	@Test
+	public void testMissingAndInvalid() throws IOException {
+		
+		try (StreamingArrayReader reader = SimpleConfigLib.streamArray(new StringReader(DOCUMENT), "data.missing")) {
+			assertFalse(reader.isFound());
+			assertFalse(reader.hasNext());
+			assertTrue(new JSONObject(DOCUMENT).similar(reader.getConfiguration().toJsonObject()));
+		}
+		
+		try (StreamingArrayReader reader = SimpleConfigLib.streamArray(new StringReader("{\"data\":[]}"), "data")) {
+			assertTrue(reader.isFound());
+			assertFalse(reader.hasNext());
+			assertTrue(reader.getConfiguration().getKeys().isEmpty());
+		}
+		
+		assertThrows(JSONException.class, () -> SimpleConfigLib.streamArray(new StringReader(DOCUMENT), "data.name"));
+		
+		try (StreamingArrayReader reader = SimpleConfigLib.streamArray(new StringReader("{\"data\":[1,2"), "data")) {
+			assertEquals(1, reader.next());
+			assertEquals(2, reader.next());
+			assertThrows(JSONException.class, reader::hasNext);
+		}
+		
+	}
+	
+	@Test
+	public void testLargeFile() throws IOException {
+		
+		File file = new File("stream.json");
+		int count = 200_000;
+		
+		try {
+			
+			try (Writer writer = new BufferedWriter(new FileWriter(file))) {
+				writer.write("{\"version\":3,\"values\":[");
+				for (int i = 0; i < count; i++) {
+					if (i > 0)
+						writer.write(',');
+					writer.write(Integer.toString(i));
+				}
+				writer.write("],\"checksum\":\"ok\"}");
+			}
+			
+			long sum = 0;
+			try (StreamingArrayReader reader = SimpleConfigLib.streamArray(file, "values")) {
+				
+				sum = reader.stream().mapToLong(value -> ((Number) value).longValue()).sum();
+				
+				Configuration configuration = reader.getConfiguration();
+				assertEquals(3, configuration.getInt("version"));
+				assertEquals("ok", configuration.getString("checksum"));
+				
+			}
+			
+			assertEquals((long) count * (count - 1) / 2, sum);
+			
+		} finally {
+			file.delete();
+		}
+		
+	}
+	
+}
@@ -0,0 +1,179 @@
+package de.drachir000.utils.config;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.NotSerializableException;
+
+import static org.junit.Assert.*;
+
+public class ValueCodecTest {
+	
+	@After
+	public void unregister() {
+		SimpleConfigLib.unregisterCodec(Point.class);
+		SimpleConfigLib.unregisterCodec(Shape.class);
+		SimpleConfigLib.unregisterCodec(Money.class);
+		SimpleConfigLib.unregisterCodec(Node.class);
+		SimpleConfigLib.unregisterCodec(Tree.class);
+	}
+	
+	@Test
+	public void testRecordCodec() throws IOException, ClassNotFoundException {
+		
+		SimpleConfigLib.registerRecordCodec(Shape.class);
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		Shape value = new Shape("square", new Point(1, 2), ConfigurationTest.TestEnum.VALUE_TWO, null, 4.5);
+		
+		configuration.setEncoded("key", value);
+		
+		assertTrue(configuration.isEncodedObject("key"));
+		assertEquals(value, configuration.getEncoded("key"));
+		
+		Configuration reloaded = SimpleConfigLib.buildConfiguration(configuration.toString());
+		assertEquals(value, reloaded.getEncoded("key"));
+		
+	}
+	
+	@Test
+	public void testSelfReferentialRecordCodec() throws IOException, ClassNotFoundException {
+		
+		SimpleConfigLib.registerRecordCodec(Node.class);
+		SimpleConfigLib.registerRecordCodec(Tree.class);
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		Node list = new Node("a", new Node("b", new Node("c", null)));
+		Tree tree = new Tree("root", new Branch(new Tree("left", null), null));
+		
+		configuration.setEncoded("list", list);
+		configuration.setEncoded("tree", tree);
+		
+		Configuration reloaded = SimpleConfigLib.buildConfiguration(configuration.toString());
+		assertEquals(list, reloaded.getEncoded("list"));
+		assertEquals(tree, reloaded.getEncoded("tree"));
+		
+	}
+	
+	@Test
+	public void testCustomCodec() throws IOException, ClassNotFoundException {
+		
+		SimpleConfigLib.registerCodec(Money.class, "money", new MoneyCodec());
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		Money value = new Money(1999, "EUR");
+		
+		configuration.set("key", value);
+		
+		Configuration reloaded = SimpleConfigLib.buildConfiguration(configuration.toString(true));
+		assertTrue(reloaded.isEncodedObject("key"));
+		assertEquals(value, reloaded.getEncoded("key"));
+		
+	}
+	
+	@Test
+	public void testCodecIsSmallerThanSerialization() throws IOException {
+		
+		ConfigurationTest.TestObject value = new ConfigurationTest.TestObject(123, "Hello World!", ConfigurationTest.TestEnum.VALUE_THREE, 456.78f);
+		String serialized = Configuration.serialize(value);
+		
+		SimpleConfigLib.registerCodec(ConfigurationTest.TestObject.class, "test-object", ValueCodec.forRecord(ConfigurationTest.TestObject.class));
+		try {
+			String encoded = Configuration.serialize(value);
+			assertTrue(encoded.length() < serialized.length());
+			assertEquals(value, Configuration.deserialize(encoded));
+			// Values written before the codec was registered stay readable
+			assertEquals(value, Configuration.deserialize(serialized));
+		} catch (ClassNotFoundException e) {
+			fail(e.getMessage());
+		} finally {
+			SimpleConfigLib.unregisterCodec(ConfigurationTest.TestObject.class);
+		}
+		
+	}
+	
+	@Test
+	public void testUnknownCodec() throws IOException {
+		
+		SimpleConfigLib.registerRecordCodec(Point.class);
+		String encoded = Configuration.serialize(new Point(3, 4));
+		SimpleConfigLib.unregisterCodec(Point.class);
+		
+		assertThrows(ClassNotFoundException.class, () -> Configuration.deserialize(encoded));
+		
+	}
+	
+	@Test
+	public void testUnregisteredNonSerializable() {
+		
+		Configuration configuration = SimpleConfigLib.emptyConfiguration();
+		
+		assertThrows(NotSerializableException.class, () -> configuration.setEncoded("key", new Money(1, "USD")));
+		
+	}
+	
+	@Test
+	public void testDuplicateId() {
+		
+		SimpleConfigLib.registerCodec(Money.class, "money", new MoneyCodec());
+		
+		assertThrows(IllegalArgumentException.class, () -> SimpleConfigLib.registerCodec(Point.class, "money", ValueCodec.forRecord(Point.class)));
+		
+	}
+	
+	record Point(int x, int y) {
+	}
+	
+	record Shape(String name, Point origin, ConfigurationTest.TestEnum kind, Long tag, double size) {
+	}
+	
+	record Node(String value, Node next) {
+	}
+	
+	record Tree(String name, Branch branch) {
+	}
+	
+	record Branch(Tree left, Tree right) {
+	}
+	
+	static final class Money {
+		
+		final long cents;
+		final String currency;
+		
+		Money(long cents, String currency) {
+			this.cents = cents;
+			this.currency = currency;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Money && ((Money) o).cents == cents && ((Money) o).currency.equals(currency);
+		}
+		
+		@Override
+		public int hashCode() {
+			return Long.hashCode(cents) * 31 + currency.hashCode();
+		}
+		
+	}
+	
+	static final class MoneyCodec implements ValueCodec<Money> {
+		
+		@Override
+		public void encode(Money value, DataOutput out) throws IOException {
+			out.writeLong(value.cents);
+			out.writeUTF(value.currency);
+		}
+		
+		@Override
+		public Money decode(DataInput in) throws IOException {
+			return new Money(in.readLong(), in.readUTF());
+		}
+		
+	}
+	
+}